@@ -0,0 +1,241 @@
+package com.minimart.api.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minimart.api.util.TokenBucketLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket limits in front of the public endpoints that run BCrypt
+ * (login, register, reset-password), so a burst of attempts is turned away
+ * before it can occupy the CPU.
+ *
+ * Every request spends a token from its client IP's bucket and, when the
+ * JSON body has an "email", from that email's bucket too (slows guessing one
+ * account's password from many addresses). An empty bucket answers 429 with
+ * Retry-After in seconds.
+ *
+ * The IP bucket is keyed on getRemoteAddr(). Behind a reverse proxy that is
+ * the proxy's address and every client would share one bucket, so such
+ * deployments must set server.forward-headers-strategy (or configure the
+ * trusted proxies on the container) so X-Forwarded-For is resolved first.
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS = Set.of(
+            "/api/users/login",
+            "/api/users/register",
+            "/api/users/reset-password");
+
+    // Auth bodies are a few hundred bytes; anything larger is refused rather than buffered
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${rate-limit.auth.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.auth.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${rate-limit.auth.ip.refill-per-minute:10}")
+    private int ipRefillPerMinute;
+
+    @Value("${rate-limit.auth.email.capacity:5}")
+    private int emailCapacity;
+
+    @Value("${rate-limit.auth.email.refill-per-minute:2}")
+    private int emailRefillPerMinute;
+
+    @Value("${rate-limit.auth.stripes:64}")
+    private int stripes;
+
+    @Value("${rate-limit.auth.max-keys:100000}")
+    private int maxKeys;
+
+    private TokenBucketLimiter ipLimiter;
+    private TokenBucketLimiter emailLimiter;
+
+    @PostConstruct
+    public void init() {
+        ipLimiter = new TokenBucketLimiter(ipCapacity, ipRefillPerMinute, stripes, maxKeys);
+        emailLimiter = new TokenBucketLimiter(emailCapacity, emailRefillPerMinute, stripes, maxKeys);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !"POST".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !LIMITED_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // Client address as seen by the server (X-Forwarded-For is not trusted, anyone can set it)
+        long waitNanos = ipLimiter.tryAcquire("ip:" + request.getRemoteAddr());
+        if (waitNanos > 0) {
+            reject(response, waitNanos);
+            return;
+        }
+
+        // The body is read here to find the email, then replayed to the controller
+        CachedBodyRequest cached = CachedBodyRequest.wrap(request);
+        if (cached == null) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        String email = extractEmail(cached.body);
+        if (email != null) {
+            waitNanos = emailLimiter.tryAcquire("email:" + email);
+            if (waitNanos > 0) {
+                reject(response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(cached, response);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ip", ipLimiter.getStats());
+        stats.put("email", emailLimiter.getStats());
+        return stats;
+    }
+
+    private String extractEmail(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            if (email == null || !email.isTextual() || email.asText().isBlank()) {
+                return null;
+            }
+            return email.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            // Malformed JSON: let the controller report it
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, (TimeUnit.NANOSECONDS.toMillis(waitNanos) + 999) / 1000);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("message", "Too many attempts. Please try again in " + retryAfter + " seconds.");
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    // Request whose body has been read into memory and can be read again downstream
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        // null when the body is larger than MAX_BODY_BYTES
+        static CachedBodyRequest wrap(HttpServletRequest request) throws IOException {
+            if (request.getContentLengthLong() > MAX_BODY_BYTES) {
+                return null;
+            }
+            byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            return body.length > MAX_BODY_BYTES ? null : new CachedBodyRequest(request, body);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The body is already in memory, so there is nothing to wait for
+                    try {
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
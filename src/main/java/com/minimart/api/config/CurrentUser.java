@@ -0,0 +1,20 @@
+package com.minimart.api.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the authenticated caller into a controller method:
+ * {@code @CurrentUser AuthUser user}
+ *
+ * The AuthUser is the one JwtAuthenticationFilter verified for this request;
+ * nothing is parsed again.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
@@ -0,0 +1,74 @@
+package com.minimart.api.config;
+
+import com.minimart.api.service.GoogleVisionOcrEngine;
+import com.minimart.api.service.LocalOcrEngine;
+import com.minimart.api.service.MicroBatchingOcrEngine;
+import com.minimart.api.service.OcrEngine;
+import com.minimart.api.service.ResilientOcrEngine;
+import com.minimart.api.service.ScreenshotPreprocessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OcrConfig {
+
+    /**
+     * Downscale / grayscale / strip metadata before screenshots are sent to a remote OCR engine
+     */
+    @Bean
+    public ScreenshotPreprocessor screenshotPreprocessor(
+            @Value("${ocr.preprocess.max-width:1000}") int maxWidth,
+            @Value("${ocr.preprocess.max-height:2000}") int maxHeight
+    ) {
+        return new ScreenshotPreprocessor(maxWidth, maxHeight);
+    }
+
+    /**
+     * ocr.engine: google (Cloud Vision, client created on first call) or local (offline stand-in),
+     * behind bulkhead / deadline / circuit breaker. Each remote call (single image or batch)
+     * is guarded once.
+     */
+    @Bean(destroyMethod = "close")
+    public ResilientOcrEngine ocrEngine(
+            @Value("${ocr.engine:google}") String engine,
+            @Value("${google.credentials.path:google-credentials.json}") String credentialsPath,
+            @Value("${ocr.max-in-flight:4}") int maxInFlight,
+            @Value("${ocr.acquire-timeout-ms:2000}") long acquireTimeoutMs,
+            @Value("${ocr.deadline-ms:15000}") long deadlineMs,
+            @Value("${ocr.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${ocr.breaker.open-ms:30000}") long openMs,
+            @Value("${ocr.preprocess.enabled:true}") boolean preprocess,
+            ScreenshotPreprocessor preprocessor
+    ) {
+        OcrEngine remote = "local".equalsIgnoreCase(engine)
+                ? new LocalOcrEngine()
+                : new GoogleVisionOcrEngine(credentialsPath, preprocess ? preprocessor : null);
+        System.out.println("🔧 OCR engine: " + engine + " (max in flight " + maxInFlight
+                + ", deadline " + deadlineMs + "ms)");
+        return new ResilientOcrEngine(remote, maxInFlight, acquireTimeoutMs, deadlineMs, failureThreshold, openMs);
+    }
+
+    /**
+     * Coalesces concurrent uploads into batches sent through the guarded engine
+     * (so a failed batch counts once in the circuit breaker). The bulkhead and
+     * deadline below only bound batch calls, so waiting callers get their own
+     * queue limit and deadline here.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "ocr.batch.enabled", havingValue = "true", matchIfMissing = true)
+    public MicroBatchingOcrEngine ocrBatcher(
+            ResilientOcrEngine ocrEngine,
+            @Value("${ocr.batch.max-size:16}") int batchMaxSize,
+            @Value("${ocr.batch.max-wait-ms:50}") long batchMaxWaitMs,
+            @Value("${ocr.batch.concurrency:2}") int batchConcurrency,
+            @Value("${ocr.batch.max-queued:256}") int batchMaxQueued,
+            @Value("${ocr.batch.caller-deadline-ms:20000}") long callerDeadlineMs
+    ) {
+        batchMaxSize = Math.min(batchMaxSize, GoogleVisionOcrEngine.MAX_BATCH_SIZE);
+        System.out.println("🔧 OCR batching: up to " + batchMaxSize + " images within " + batchMaxWaitMs + "ms");
+        return new MicroBatchingOcrEngine(ocrEngine, batchMaxSize, batchMaxWaitMs, batchConcurrency,
+                batchMaxQueued, callerDeadlineMs);
+    }
+}
@@ -1,5 +1,7 @@
 package com.minimart.api.controller;
 
+import com.minimart.api.config.CurrentUser;
+import com.minimart.api.dto.AuthUser;
 import com.minimart.api.model.Address;
 import com.minimart.api.service.AddressService;
 import jakarta.validation.Valid;
@@ -22,7 +24,8 @@ public class AddressController {
     
     // GET ALL addresses (for admin/owner)
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllAddresses() {
+    public ResponseEntity<Map<String, Object>> getAllAddresses(@CurrentUser AuthUser user) {
+        user.requireAdminOrOwner();
         List<Address> addresses = addressService.getAllAddresses();
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -34,11 +37,12 @@ public class AddressController {
     
     // GET address by ID
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getAddressById(@PathVariable Integer id) {
+    public ResponseEntity<Map<String, Object>> getAddressById(@CurrentUser AuthUser user, @PathVariable Integer id) {
         Map<String, Object> response = new HashMap<>();
         
         return addressService.getAddressById(id)
                 .map(address -> {
+                    user.requireAccess(address.getUser_id());
                     response.put("success", true);
                     response.put("message", "Address found");
                     response.put("data", address);
@@ -53,7 +57,8 @@ public class AddressController {
     
     // GET all addresses for a specific user
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Map<String, Object>> getAllAddressesByUser(@PathVariable Long userId) {
+    public ResponseEntity<Map<String, Object>> getAllAddressesByUser(@CurrentUser AuthUser user, @PathVariable Long userId) {
+        user.requireAccess(userId);
         List<Address> addresses = addressService.getAllAddressesByUserId(userId);
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -65,7 +70,9 @@ public class AddressController {
     
     // POST - Create new address
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createAddress(@Valid @RequestBody Address address) {
+    public ResponseEntity<Map<String, Object>> createAddress(
+            @CurrentUser AuthUser user,
+            @Valid @RequestBody Address address) {
         Map<String, Object> response = new HashMap<>();
         
         // Manual validation for user_id during CREATE
@@ -74,6 +81,7 @@ public class AddressController {
             response.put("message", "User ID is required");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
+        user.requireAccess(address.getUser_id());
         
         Address createdAddress = addressService.createAddress(address);
         response.put("success", true);
@@ -85,9 +93,11 @@ public class AddressController {
     // PUT - Update address by ID only
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateAddress(
+            @CurrentUser AuthUser user,
             @PathVariable Integer id,
             @Valid @RequestBody Address addressDetails) {
         
+        requireAddressAccess(user, id);
         Map<String, Object> response = new HashMap<>();
         
         try {
@@ -105,7 +115,8 @@ public class AddressController {
     
     // DELETE address by ID only
     @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> deleteAddress(@PathVariable Integer id) {
+    public ResponseEntity<Map<String, Object>> deleteAddress(@CurrentUser AuthUser user, @PathVariable Integer id) {
+        requireAddressAccess(user, id);
         Map<String, Object> response = new HashMap<>();
         
         try {
@@ -123,9 +134,11 @@ public class AddressController {
     // GET addresses by user and province
     @GetMapping("/user/{userId}/province/{province}")
     public ResponseEntity<Map<String, Object>> getAddressesByUserAndProvince(
+            @CurrentUser AuthUser user,
             @PathVariable Long userId,
             @PathVariable String province) {
         
+        user.requireAccess(userId);
         List<Address> addresses = addressService.getAddressesByUserIdAndProvince(userId, province);
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -138,9 +151,11 @@ public class AddressController {
     // GET addresses by user and district
     @GetMapping("/user/{userId}/district/{district}")
     public ResponseEntity<Map<String, Object>> getAddressesByUserAndDistrict(
+            @CurrentUser AuthUser user,
             @PathVariable Long userId,
             @PathVariable String district) {
         
+        user.requireAccess(userId);
         List<Address> addresses = addressService.getAddressesByUserIdAndDistrict(userId, district);
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -152,7 +167,8 @@ public class AddressController {
     
     // GET count of user's addresses
     @GetMapping("/user/{userId}/count")
-    public ResponseEntity<Map<String, Object>> countUserAddresses(@PathVariable Long userId) {
+    public ResponseEntity<Map<String, Object>> countUserAddresses(@CurrentUser AuthUser user, @PathVariable Long userId) {
+        user.requireAccess(userId);
         Long count = addressService.countUserAddresses(userId);
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -160,4 +176,10 @@ public class AddressController {
         response.put("count", count);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+    
+    // Unknown ids pass through so the service answers "not found"
+    private void requireAddressAccess(AuthUser user, Integer id) {
+        addressService.getAddressById(id)
+                .ifPresent(address -> user.requireAccess(address.getUser_id()));
+    }
+}
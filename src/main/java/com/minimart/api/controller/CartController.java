@@ -1,5 +1,7 @@
 package com.minimart.api.controller;
 
+import com.minimart.api.config.CurrentUser;
+import com.minimart.api.dto.AuthUser;
 import com.minimart.api.model.Cart;
 import com.minimart.api.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,7 +26,10 @@ public class CartController {
      * GET /api/cart/{userId}
      */
     @GetMapping("/{userId}")
-    public ResponseEntity<Map<String, Object>> getUserCart(@PathVariable Long userId) {
+    public ResponseEntity<Map<String, Object>> getUserCart(@CurrentUser AuthUser user, @PathVariable Long userId) {
+        if (!user.canAccess(userId)) {
+            return forbidden();
+        }
         Map<String, Object> response = new HashMap<>();
         try {
             List<Cart> cartItems = cartService.getUserCart(userId);
@@ -43,7 +48,10 @@ public class CartController {
      * GET /api/cart/{userId}/summary
      */
     @GetMapping("/{userId}/summary")
-    public ResponseEntity<Map<String, Object>> getCartSummary(@PathVariable Long userId) {
+    public ResponseEntity<Map<String, Object>> getCartSummary(@CurrentUser AuthUser user, @PathVariable Long userId) {
+        if (!user.canAccess(userId)) {
+            return forbidden();
+        }
         try {
             Map<String, Object> summary = cartService.getCartSummary(userId);
             return ResponseEntity.ok(summary);
@@ -60,7 +68,10 @@ public class CartController {
      * GET /api/cart/{userId}/count
      */
     @GetMapping("/{userId}/count")
-    public ResponseEntity<Map<String, Object>> getCartCount(@PathVariable Long userId) {
+    public ResponseEntity<Map<String, Object>> getCartCount(@CurrentUser AuthUser user, @PathVariable Long userId) {
+        if (!user.canAccess(userId)) {
+            return forbidden();
+        }
         Map<String, Object> response = new HashMap<>();
         try {
             Long count = cartService.getCartCount(userId);
@@ -77,10 +88,12 @@ public class CartController {
     /**
      * Add product to cart
      * POST /api/cart/add
-     * Body: { "userId": 1, "productId": 5, "qty": 2 }
+     * Body: { "userId": 1, "productId": 5, "qty": 2 } (userId optional, defaults to the caller)
      */
     @PostMapping("/add")
-    public ResponseEntity<Map<String, Object>> addToCart(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> addToCart(
+            @CurrentUser AuthUser user,
+            @RequestBody Map<String, Object> request) {
         try {
             // Safe type conversion with null checks
             Long userId = null;
@@ -92,6 +105,8 @@ public class CartController {
                 if (userIdObj instanceof Number) {
                     userId = ((Number) userIdObj).longValue();
                 }
+            } else {
+                userId = user.userId();
             }
             
             if (request.get("productId") != null) {
@@ -122,6 +137,10 @@ public class CartController {
                 return ResponseEntity.badRequest().body(response);
             }
             
+            if (!user.canAccess(userId)) {
+                return forbidden();
+            }
+            
             Map<String, Object> result = cartService.addToCart(userId, productId, qty);
             
             if ((Boolean) result.get("success")) {
@@ -144,9 +163,14 @@ public class CartController {
      */
     @PutMapping("/{cartId}")
     public ResponseEntity<Map<String, Object>> updateCartQuantity(
+            @CurrentUser AuthUser user,
             @PathVariable Integer cartId,
             @RequestBody Map<String, Object> request) {
         try {
+            if (!canAccessCartItem(user, cartId)) {
+                return forbidden();
+            }
+            
             Integer qty = null;
             
             if (request.get("qty") != null) {
@@ -183,8 +207,12 @@ public class CartController {
      * DELETE /api/cart/{cartId}
      */
     @DeleteMapping("/{cartId}")
-    public ResponseEntity<Map<String, Object>> removeFromCart(@PathVariable Integer cartId) {
+    public ResponseEntity<Map<String, Object>> removeFromCart(@CurrentUser AuthUser user, @PathVariable Integer cartId) {
         try {
+            if (!canAccessCartItem(user, cartId)) {
+                return forbidden();
+            }
+            
             Map<String, Object> result = cartService.removeFromCart(cartId);
             
             if ((Boolean) result.get("success")) {
@@ -205,7 +233,10 @@ public class CartController {
      * DELETE /api/cart/clear/{userId}
      */
     @DeleteMapping("/clear/{userId}")
-    public ResponseEntity<Map<String, Object>> clearCart(@PathVariable Long userId) {
+    public ResponseEntity<Map<String, Object>> clearCart(@CurrentUser AuthUser user, @PathVariable Long userId) {
+        if (!user.canAccess(userId)) {
+            return forbidden();
+        }
         try {
             Map<String, Object> result = cartService.clearCart(userId);
             return ResponseEntity.ok(result);
@@ -216,4 +247,18 @@ public class CartController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
-}
\ No newline at end of file
+    
+    // Unknown items pass through so the service answers "Cart item not found"
+    private boolean canAccessCartItem(AuthUser user, Integer cartId) {
+        return cartService.getCartOwnerId(cartId)
+                .map(user::canAccess)
+                .orElse(true);
+    }
+    
+    private ResponseEntity<Map<String, Object>> forbidden() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Access denied.");
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+    }
+}
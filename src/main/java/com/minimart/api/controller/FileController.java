@@ -1,7 +1,11 @@
 package com.minimart.api.controller;
 
 import com.minimart.api.dto.UploadFileResponse;
+import com.minimart.api.service.FileETagService;
 import com.minimart.api.service.FileStorageService;
+import com.minimart.api.service.HotImageCache;
+import com.minimart.api.service.ImageVariantService;
+import com.minimart.api.util.FileResponseWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -9,20 +13,37 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.io.*;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/files")
 @CrossOrigin(origins = "*")
 public class FileController {
 
+    // Loaded by every home screen: served from memory
+    private static final Set<String> HOT_FOLDERS = Set.of("advertising", "category");
+
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private FileResponseWriter fileResponseWriter;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private HotImageCache hotImageCache;
+
+    @Autowired
+    private FileETagService fileETagService;
+
     /**
      * Upload file endpoint
      */
@@ -72,143 +93,99 @@ public class FileController {
     }
     
     /**
-     * Download/View file from products folder
+     * Download/View file from products folder (images uploaded before category-independent keys)
      * Handles: /api/files/products/{category}/{filename}
      * Example: /api/files/products/Beverages/image.jpg
+     * The folder is the category at upload time; the file stays there when the product moves
+     * Optional ?w=128|256|512|1024 serves a downscaled copy
      */
     @GetMapping(value = "/products/{category}/{filename:.+}", produces = "application/octet-stream")
     public void downloadProductFile(
             @PathVariable String category,
             @PathVariable String filename,
+            @RequestParam(value = "w", required = false) Integer width,
+            HttpServletRequest request,
             HttpServletResponse response) throws IOException {
         
-        System.out.println("=== PRODUCT FILE DOWNLOAD REQUEST ===");
-        System.out.println("Category: " + category);
-        System.out.println("File: " + filename);
-        
-        try {
-            // Path: uploads/products/{category}/{filename}
-            Path filePath = Paths.get("uploads/products")
-                    .toAbsolutePath()
-                    .normalize()
-                    .resolve(category)
-                    .resolve(filename);
-            
-            System.out.println("📂 Checking path: " + filePath);
-            
-            if (!Files.exists(filePath) || !Files.isReadable(filePath)) {
-                System.err.println("❌ File not found");
-                response.sendError(HttpServletResponse.SC_NOT_FOUND, "File not found");
-                return;
-            }
-            
-            String contentType = getContentType(filename);
-            long fileSize = Files.size(filePath);
-            
-            System.out.println("✅ File found!");
-            System.out.println("   Content-Type: " + contentType);
-            System.out.println("   Size: " + fileSize + " bytes");
-            
-            // Set response headers
-            response.setContentType(contentType);
-            response.setContentLengthLong(fileSize);
-            response.setHeader("Content-Disposition", "inline; filename=\"" + filename + "\"");
-            response.setHeader("Cache-Control", "max-age=31536000");
-            
-            // Stream file directly to response
-            try (InputStream is = new FileInputStream(filePath.toFile());
-                 OutputStream os = response.getOutputStream()) {
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, bytesRead);
-                }
-                os.flush();
-            }
-            
-            System.out.println("✅ File sent successfully");
-            
-        } catch (IOException e) {
-            System.err.println("❌ Error serving file: " + e.getMessage());
-            e.printStackTrace();
-            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error serving file");
-        }
+        // Path: uploads/products/{category}/{filename}
+        serve(request, response, fileStorageService.resolveProductFile(category, filename), filename, width, false);
     }
     
     /**
      * Download/View file from folder
      * Handles: /api/files/{folder}/{filename}
-     * Example: /api/files/profile/user.jpg, /api/files/category/image.jpg
+     * Example: /api/files/profile/user.jpg, /api/files/category/image.jpg, /api/files/product/image.jpg
+     * Optional ?w=128|256|512|1024 serves a downscaled copy
      */
     @GetMapping(value = "/{folder}/{filename:.+}", produces = "application/octet-stream")
     public void downloadFile(
             @PathVariable String folder,
             @PathVariable String filename,
+            @RequestParam(value = "w", required = false) Integer width,
+            HttpServletRequest request,
             HttpServletResponse response) throws IOException {
         
-        System.out.println("=== FILE DOWNLOAD REQUEST ===");
-        System.out.println("Folder: " + folder);
-        System.out.println("File: " + filename);
+        // Path: configured directory of type {folder}, otherwise uploads/{folder}
+        serve(request, response, fileStorageService.resolveServedFile(folder, filename), filename, width,
+                HOT_FOLDERS.contains(folder));
+    }
+    
+    // Image GETs are the hottest path: no per-request logging unless something fails
+    private void serve(HttpServletRequest request, HttpServletResponse response,
+                       Path filePath, String filename, Integer width, boolean hot) throws IOException {
+        if (filePath == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "File not found");
+            return;
+        }
         
+        String contentType = getContentType(filename);
+        int variantWidth = width != null && width > 0 ? Math.max(0, ImageVariantService.snapWidth(width)) : 0;
         try {
-            // Try: uploads/{folder}/{filename}
-            Path filePath = fileStorageService.getFileStorageLocation(null)
-                    .resolve(folder)
-                    .resolve(filename)
-                    .normalize();
-            
-            System.out.println("📂 Checking path: " + filePath);
-            
-            if (!Files.exists(filePath) || !Files.isReadable(filePath)) {
-                // Try: uploads/{type}/{filename}
-                System.out.println("📂 Not found, trying as type folder...");
-                filePath = fileStorageService.getFileStorageLocation(folder)
-                        .resolve(filename)
-                        .normalize();
-                System.out.println("📂 Checking path: " + filePath);
-            }
-            
-            if (!Files.exists(filePath) || !Files.isReadable(filePath)) {
-                System.err.println("❌ File not found");
-                response.sendError(HttpServletResponse.SC_NOT_FOUND, "File not found");
+            HotImageCache.Entry cached = hot ? hotImageCache.get(filePath, variantWidth) : null;
+            if (cached != null) {
+                fileResponseWriter.write(request, response, cached.content(), cached.lastModified(),
+                        cached.etag(), filename, contentType);
                 return;
             }
             
-            String contentType = getContentType(filename);
-            long fileSize = Files.size(filePath);
-            
-            System.out.println("✅ File found!");
-            System.out.println("   Content-Type: " + contentType);
-            System.out.println("   Size: " + fileSize + " bytes");
-            
-            // Set response headers
-            response.setContentType(contentType);
-            response.setContentLengthLong(fileSize);
-            response.setHeader("Content-Disposition", "inline; filename=\"" + filename + "\"");
-            response.setHeader("Cache-Control", "max-age=31536000");
-            
-            // Stream file directly to response
-            try (InputStream is = new FileInputStream(filePath.toFile());
-                 OutputStream os = response.getOutputStream()) {
-                
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, bytesRead);
-                }
-                os.flush();
+            Path original = filePath;
+            if (variantWidth > 0) {
+                filePath = imageVariantService.resolve(filePath, variantWidth);
             }
             
-            System.out.println("✅ File sent successfully");
-            
+            cached = hot ? hotImageCache.load(original, variantWidth, filePath) : null;
+            if (cached != null) {
+                fileResponseWriter.write(request, response, cached.content(), cached.lastModified(),
+                        cached.etag(), filename, contentType);
+            } else {
+                fileResponseWriter.write(request, response, filePath, filename, contentType);
+            }
         } catch (IOException e) {
-            System.err.println("❌ Error serving file: " + e.getMessage());
-            e.printStackTrace();
+            // Client went away mid-transfer; nothing left to send
+            if (response.isCommitted()) {
+                return;
+            }
+            System.err.println("❌ Error serving file " + filePath + ": " + e.getMessage());
             response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Error serving file");
         }
     }
     
+    /**
+     * Hot image cache and ETag cache metrics
+     * GET /api/files/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("hotCache", hotImageCache.getStats());
+        data.put("etags", fileETagService.getStats());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Determine content type from file extension
      */
@@ -1,21 +1,28 @@
 package com.minimart.api.controller;
 
+import com.minimart.api.config.CurrentUser;
 import com.minimart.api.model.Order;
+import com.minimart.api.model.PaymentVerification;
 import com.minimart.api.repository.OrderRepository;
+import com.minimart.api.service.OCRService;
+import com.minimart.api.service.OcrResultCacheService;
 import com.minimart.api.service.OrderService;
-import com.minimart.api.util.JwtUtil;
+import com.minimart.api.service.PaymentVerificationService;
 import com.minimart.api.dto.*;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -26,26 +33,19 @@ public class OrderController {
     private OrderService orderService;
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private PaymentVerificationService paymentVerificationService;
     
     @Autowired
-    private OrderRepository orderRepository;
+    private OCRService ocrService;
     
-    private Long extractUserIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid authorization header");
-        }
-        String token = authHeader.substring(7);
-        return jwtUtil.extractUserId(token);
-    }
+    @Autowired
+    private OcrResultCacheService ocrResultCache;
     
-    private String extractRoleFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid authorization header");
-        }
-        String token = authHeader.substring(7);
-        return jwtUtil.extractRole(token);
-    }
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
     
 	/**
 	 * Create new order (NO payment yet!)
@@ -53,13 +53,13 @@ public class OrderController {
 	 */
 	@PostMapping("/create")
 	public ResponseEntity<Map<String, Object>> createOrder(
-	        @RequestHeader("Authorization") String authHeader,
+	        @CurrentUser AuthUser user,
 	        @RequestBody Map<String, Object> request
 	) {
 	    Map<String, Object> response = new HashMap<>();
 	    
 	    try {
-	        Long tokenUserId = extractUserIdFromToken(authHeader);
+	        Long tokenUserId = user.userId();
 	        
 	        // ✅ Only need amount, items, and addressId
 	        BigDecimal amount = new BigDecimal(request.get("amount").toString());
@@ -105,12 +105,12 @@ public class OrderController {
      */
     @GetMapping("/my-orders")
     public ResponseEntity<Map<String, Object>> getMyOrders(
-            @RequestHeader("Authorization") String authHeader
+            @CurrentUser AuthUser user
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            Long userId = extractUserIdFromToken(authHeader);
+            Long userId = user.userId();
             List<OrderSummaryDTO> orders = orderService.getUserOrdersSummary(userId);
             
             response.put("success", true);
@@ -131,34 +131,63 @@ public class OrderController {
     }
     
     /**
-     * Get all pending orders (Admin only)
-     * GET /api/orders/pending
+     * Get pending orders (Admin only), newest first, one keyset page at a time
+     * GET /api/orders/pending?limit=50&after=<nextCursor>
+     * Filters: from, to (yyyy-MM-dd, inclusive), userId, minAmount, maxAmount
      */
     @GetMapping("/pending")
     public ResponseEntity<Map<String, Object>> getPendingOrders(
-            @RequestHeader("Authorization") String authHeader
+            @CurrentUser AuthUser user,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            String role = extractRoleFromToken(authHeader);
-            if (!"admin".equalsIgnoreCase(role) && !"owner".equalsIgnoreCase(role)) {
+            if (!user.isAdminOrOwner()) {
                 response.put("success", false);
                 response.put("message", "Access denied. Admin only.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
             }
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", "Unauthorized: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        OrderFilter filter;
+        OrderCursor cursor;
+        int pageSize;
+        try {
+            filter = new OrderFilter("pending", from, to, userId, minAmount, maxAmount);
+            filter.validate();
+            cursor = OrderCursor.parse(after);
+            pageSize = pageSize(limit);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        
+        try {
+            List<PendingOrderDTO> orders = orderService.getPendingOrdersPage(filter, cursor, pageSize);
+            PendingOrderDTO last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
             
-            List<PendingOrderDTO> orders = orderService.getPendingOrdersSummary();
             response.put("success", true);
             response.put("message", "Pending orders retrieved successfully");
             response.put("count", orders.size());
             response.put("data", orders);
+            response.put("limit", pageSize);
+            response.put("total", orderService.countOrders(filter));
+            response.put("nextCursor", orders.size() == pageSize
+                    ? new OrderCursor(last.getCreatedAt(), last.getId()).encode() : null);
             return ResponseEntity.ok(response);
             
-        } catch (RuntimeException e) {
-            response.put("success", false);
-            response.put("message", "Unauthorized: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error: " + e.getMessage());
@@ -167,35 +196,65 @@ public class OrderController {
     }
     
     /**
-     * Get all orders (Admin/Owner only)
-     * GET /api/orders/all
+     * Get all orders (Admin/Owner only), newest first, one keyset page at a time
+     * GET /api/orders/all?limit=50&after=<nextCursor>
+     * Filters: status, from, to (yyyy-MM-dd, inclusive), userId, minAmount, maxAmount
      */
     @GetMapping("/all")
     public ResponseEntity<Map<String, Object>> getAllOrders(
-            @RequestHeader("Authorization") String authHeader
+            @CurrentUser AuthUser user,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            String role = extractRoleFromToken(authHeader);
-            if (!"admin".equalsIgnoreCase(role) && !"owner".equalsIgnoreCase(role)) {
+            if (!user.isAdminOrOwner()) {
                 response.put("success", false);
                 response.put("message", "Access denied. Admin only.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
             }
-            
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", "Unauthorized: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        OrderFilter filter;
+        OrderCursor cursor;
+        int pageSize;
+        try {
+            filter = new OrderFilter(status, from, to, userId, minAmount, maxAmount);
+            filter.validate();
+            cursor = OrderCursor.parse(after);
+            pageSize = pageSize(limit);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        
+        try {
             // ✅ Use DTO instead of full Order entity!
-            List<OrderSummaryDTO> orders = orderService.getAllOrdersSummary();
+            List<OrderSummaryDTO> orders = orderService.getOrdersPage(filter, cursor, pageSize);
+            OrderSummaryDTO last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+            
             response.put("success", true);
             response.put("message", "All orders retrieved successfully");
             response.put("count", orders.size());
             response.put("data", orders);
+            response.put("limit", pageSize);
+            response.put("total", orderService.countOrders(filter));
+            response.put("nextCursor", orders.size() == pageSize
+                    ? new OrderCursor(last.getCreatedAt(), last.getId()).encode() : null);
             return ResponseEntity.ok(response);
             
-        } catch (RuntimeException e) {
-            response.put("success", false);
-            response.put("message", "Unauthorized: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error: " + e.getMessage());
@@ -203,20 +262,29 @@ public class OrderController {
         }
     }
     
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+    
     /**
      * Get all orders for a specific user (Admin only)
      * GET /api/orders/user/{userId}
      */
     @GetMapping("/user/{userId}")
     public ResponseEntity<Map<String, Object>> getUserOrders(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser AuthUser user,
             @PathVariable Long userId
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            String role = extractRoleFromToken(authHeader);
-            if (!"admin".equalsIgnoreCase(role) && !"owner".equalsIgnoreCase(role)) {
+            if (!user.isAdminOrOwner()) {
                 response.put("success", false);
                 response.put("message", "Access denied. Admin only.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
@@ -246,20 +314,15 @@ public class OrderController {
      */
     @GetMapping("/{orderId}/payment-status")
     public ResponseEntity<Map<String, Object>> checkPaymentStatus(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser AuthUser user,
             @PathVariable Long orderId
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            Long tokenUserId = extractUserIdFromToken(authHeader);
-            String role = extractRoleFromToken(authHeader);
-            
             Order order = orderService.getOrderById(orderId);
             
-            if (!order.getUserId().equals(tokenUserId) 
-                && !"admin".equalsIgnoreCase(role) 
-                && !"owner".equalsIgnoreCase(role)) {
+            if (!user.canAccess(order.getUserId())) {
                 response.put("success", false);
                 response.put("message", "Access denied.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
@@ -288,20 +351,15 @@ public class OrderController {
      */
     @GetMapping("/{orderId}")
     public ResponseEntity<Map<String, Object>> getOrderById(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser AuthUser user,
             @PathVariable Long orderId
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            Long tokenUserId = extractUserIdFromToken(authHeader);
-            String role = extractRoleFromToken(authHeader);
-            
             Order order = orderService.getOrderById(orderId);
             
-            if (!order.getUserId().equals(tokenUserId) 
-                && !"admin".equalsIgnoreCase(role) 
-                && !"owner".equalsIgnoreCase(role)) {
+            if (!user.canAccess(order.getUserId())) {
                 response.put("success", false);
                 response.put("message", "Access denied.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
@@ -356,36 +414,38 @@ public class OrderController {
     }
     
     /**
-     * Upload payment screenshot
+     * Upload payment screenshot (verified in the background)
      * POST /api/orders/{orderId}/upload-screenshot
+     * Poll GET /api/orders/{orderId}/verification for the result
      */
     @PostMapping("/{orderId}/upload-screenshot")
     public ResponseEntity<Map<String, Object>> uploadScreenshot(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser AuthUser user,
             @PathVariable Long orderId,
             @RequestParam("screenshot") MultipartFile screenshot
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            Long tokenUserId = extractUserIdFromToken(authHeader);
+            Long tokenUserId = user.userId();
             
-            Map<String, Object> result = orderService.uploadPaymentScreenshot(
+            Map<String, Object> result = paymentVerificationService.submit(
                 tokenUserId, orderId, screenshot
             );
             
+            response.put("success", result.get("success"));
+            response.put("message", result.get("message"));
+            response.put("data", result);
+            
             if ((Boolean) result.get("success")) {
-                response.put("success", true);
-                response.put("message", result.get("message"));
-                response.put("data", result);
-                return ResponseEntity.ok(response);
-            } else {
-                response.put("success", false);
-                response.put("message", result.get("message"));
-                response.put("data", result);
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
             }
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
             
+        } catch (RejectedExecutionException e) {
+            response.put("success", false);
+            response.put("message", "Too many screenshots being verified. Please try again shortly.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
         } catch (RuntimeException e) {
             response.put("success", false);
             response.put("message", "Unauthorized: " + e.getMessage());
@@ -397,20 +457,88 @@ public class OrderController {
         }
     }
     
+    /**
+     * Screenshot verification status (order owner or admin)
+     * GET /api/orders/{orderId}/verification
+     */
+    @GetMapping("/{orderId}/verification")
+    public ResponseEntity<Map<String, Object>> getVerification(
+            @CurrentUser AuthUser user,
+            @PathVariable Long orderId
+    ) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            PaymentVerification job = paymentVerificationService.getLatest(orderId);
+            if (job == null) {
+                response.put("success", false);
+                response.put("message", "No screenshot uploaded for this order");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            
+            if (!user.canAccess(job.getUserId())) {
+                response.put("success", false);
+                response.put("message", "Access denied. This order doesn't belong to you.");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            }
+            
+            response.put("success", true);
+            response.put("data", paymentVerificationService.toMap(job));
+            return ResponseEntity.ok(response);
+            
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", "Unauthorized: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+    }
+    
+    /**
+     * OCR engine health (circuit breaker state, call counters) and result cache hit rates (Admin)
+     * GET /api/orders/verification/ocr-stats
+     */
+    @GetMapping("/verification/ocr-stats")
+    public ResponseEntity<Map<String, Object>> getOcrStats(
+            @CurrentUser AuthUser user
+    ) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            if (!user.isAdminOrOwner()) {
+                response.put("success", false);
+                response.put("message", "Access denied. Admin only.");
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            }
+            
+            response.put("success", true);
+            Map<String, Object> data = new HashMap<>();
+            data.put("engine", ocrService.getEngineStats());
+            data.put("batching", ocrService.getBatchingStats());
+            data.put("preprocess", ocrService.getPreprocessStats());
+            data.put("cache", ocrResultCache.getStats());
+            response.put("data", data);
+            return ResponseEntity.ok(response);
+            
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", "Unauthorized: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+    }
+    
     /**
      * Confirm payment (Admin)
      * PUT /api/orders/{orderId}/confirm-payment
      */
     @PutMapping("/{orderId}/confirm-payment")
     public ResponseEntity<Map<String, Object>> confirmPayment(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser AuthUser user,
             @PathVariable Long orderId
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            String role = extractRoleFromToken(authHeader);
-            if (!"admin".equalsIgnoreCase(role) && !"owner".equalsIgnoreCase(role)) {
+            if (!user.isAdminOrOwner()) {
                 response.put("success", false);
                 response.put("message", "Access denied. Admin only.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
@@ -447,15 +575,14 @@ public class OrderController {
      */
     @PutMapping("/{orderId}/reject-payment")
     public ResponseEntity<Map<String, Object>> rejectPayment(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser AuthUser user,
             @PathVariable Long orderId,
             @RequestBody(required = false) Map<String, String> request
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            String role = extractRoleFromToken(authHeader);
-            if (!"admin".equalsIgnoreCase(role) && !"owner".equalsIgnoreCase(role)) {
+            if (!user.isAdminOrOwner()) {
                 response.put("success", false);
                 response.put("message", "Access denied. Admin only.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
@@ -531,20 +658,15 @@ public class OrderController {
      */
     @DeleteMapping("/{orderId}")
     public ResponseEntity<Map<String, Object>> cancelOrder(
-            @RequestHeader("Authorization") String authHeader,
+            @CurrentUser AuthUser user,
             @PathVariable Long orderId
     ) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            Long tokenUserId = extractUserIdFromToken(authHeader);
-            String role = extractRoleFromToken(authHeader);
-            
             Order order = orderService.getOrderById(orderId);
             
-            if (!order.getUserId().equals(tokenUserId) 
-                    && !"admin".equalsIgnoreCase(role) 
-                    && !"owner".equalsIgnoreCase(role)) {
+            if (!user.canAccess(order.getUserId())) {
                 response.put("success", false);
                 response.put("message", "Access denied.");
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
@@ -1,16 +1,31 @@
 package com.minimart.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.minimart.api.config.CurrentUser;
+import com.minimart.api.dto.AuthUser;
+import com.minimart.api.dto.ProductCursor;
 import com.minimart.api.model.Product;
 import com.minimart.api.model.Category;
 import com.minimart.api.service.ProductService;
+import com.minimart.api.service.CatalogCacheService;
+import com.minimart.api.service.ProductSuggestIndex;
+import com.minimart.api.service.ProductSuggestService;
 import com.minimart.api.service.CategoryService;
 import com.minimart.api.service.FileStorageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
@@ -30,49 +45,93 @@ public class ProductController {
     @Autowired
     private FileStorageService fileStorageService;
     
+    @Autowired
+    private CatalogCacheService catalogCache;
+    
+    @Autowired
+    private ProductSuggestService productSuggestService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    
     // Get all products
+    // Keyset pagination: ?sort=name&limit=50 then ?sort=name&limit=50&after=<nextCursor>
+    // Without limit/after every product is returned (old behavior), still streamed row by row
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getAllProducts(
+    public ResponseEntity<StreamingResponseBody> getAllProducts(
             @RequestParam(required = false) String sort,
-            @RequestParam(required = false) Integer categoryId) {
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
         
-        Map<String, Object> response = new HashMap<>();
+        ProductCursor.Sort sortMode = ProductCursor.Sort.from(sort);
+        ProductCursor cursor;
+        Integer pageSize = limit;
         
         try {
-            List<Product> products;
+            cursor = ProductCursor.parse(sortMode, after);
             
-            // Filter by category if provided
-            if (categoryId != null) {
-                if ("name".equalsIgnoreCase(sort)) {
-                    products = productService.getProductsByCategoryOrderedByName(categoryId);
-                } else {
-                    products = productService.getProductsByCategory(categoryId);
-                }
-            } else {
-                // Get all products with optional sorting
-                if ("name".equalsIgnoreCase(sort)) {
-                    products = productService.getAllProductsOrderedByName();
-                } else if ("price_asc".equalsIgnoreCase(sort)) {
-                    products = productService.getAllProductsOrderedByPrice("asc");
-                } else if ("price_desc".equalsIgnoreCase(sort)) {
-                    products = productService.getAllProductsOrderedByPrice("desc");
-                } else if ("date".equalsIgnoreCase(sort)) {
-                    products = productService.getAllProductsOrderedByDate();
-                } else {
-                    products = productService.getAllProducts();
-                }
+            if (pageSize == null && cursor != null) {
+                pageSize = DEFAULT_PAGE_SIZE;
             }
-            
-            response.put("success", true);
-            response.put("data", products);
-            response.put("count", products.size());
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
+            if (pageSize != null && (pageSize < 1 || pageSize > MAX_PAGE_SIZE)) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "Error retrieving products: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, response));
         }
+        
+        final Integer pageLimit = pageSize;
+        
+        // Body is written while rows are read from the database
+        StreamingResponseBody body = out -> {
+            ObjectWriter productWriter = objectMapper.writer()
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+            int[] count = {0};
+            
+            json.writeStartObject();
+            json.writeBooleanField("success", true);
+            json.writeArrayFieldStart("data");
+            
+            ProductCursor last;
+            try {
+                last = productService.streamProducts(sortMode, cursor, categoryId, pageLimit, product -> {
+                    try {
+                        productWriter.writeValue(json, product);
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                System.err.println("❌ Client aborted product stream: " + e.getMessage());
+                throw e.getCause();
+            }
+            
+            json.writeEndArray();
+            json.writeNumberField("count", count[0]);
+            if (pageLimit != null) {
+                json.writeNumberField("limit", pageLimit);
+                // Full page means there may be more rows
+                json.writeStringField("nextCursor",
+                        count[0] == pageLimit && last != null ? last.encode() : null);
+            }
+            json.writeEndObject();
+            json.flush();
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
     
     // Get product by ID
@@ -120,19 +179,31 @@ public class ProductController {
         }
     }
     
-    // Search products
+    // Search products (ranked by relevance, paged)
     @GetMapping("/search")
     public ResponseEntity<Map<String, Object>> searchProducts(
-            @RequestParam(required = false) String keyword) {
+            @RequestParam(required = false) String keyword,
+            @RequestParam(value = "page", defaultValue = "0") Integer page,
+            @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) Integer size) {
         
         Map<String, Object> response = new HashMap<>();
         
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            response.put("success", false);
+            response.put("message", "page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        
         try {
-            List<Product> products = productService.searchProducts(keyword);
+            Page<Product> products = productService.searchProducts(keyword, page, size);
             
             response.put("success", true);
-            response.put("data", products);
-            response.put("count", products.size());
+            response.put("data", products.getContent());
+            response.put("count", products.getNumberOfElements());
+            response.put("total", products.getTotalElements());
+            response.put("page", page);
+            response.put("size", size);
+            response.put("hasNext", products.hasNext());
             response.put("keyword", keyword != null ? keyword : "all");
             return ResponseEntity.ok(response);
             
@@ -143,6 +214,36 @@ public class ProductController {
         }
     }
     
+    // Autocomplete: product / category names starting with the prefix, most popular first
+    @GetMapping("/suggest")
+    public ResponseEntity<Map<String, Object>> suggest(
+            @RequestParam(value = "prefix", required = false) String prefix,
+            @RequestParam(value = "limit", defaultValue = "" + ProductSuggestIndex.MAX_RESULTS) Integer limit) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        if (limit < 1 || limit > ProductSuggestIndex.MAX_RESULTS) {
+            response.put("success", false);
+            response.put("message", "limit must be between 1 and " + ProductSuggestIndex.MAX_RESULTS);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        }
+        
+        try {
+            List<ProductSuggestIndex.Suggestion> suggestions = productSuggestService.suggest(prefix, limit);
+            
+            response.put("success", true);
+            response.put("data", suggestions);
+            response.put("count", suggestions.size());
+            response.put("prefix", prefix != null ? prefix : "");
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error loading suggestions: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
     // Create product (with stock input at the same time)
     @PostMapping
     public ResponseEntity<Map<String, Object>> createProduct(
@@ -154,8 +255,7 @@ public class ProductController {
             @RequestParam(value = "image", required = false) MultipartFile imageFile) {
         
         Map<String, Object> response = new HashMap<>();
-        String uploadedFilename = null;
-        String categoryName = null;
+        String uploadedImageUrl = null;
         
         try {
             System.out.println("📝 Creating product");
@@ -169,8 +269,6 @@ public class ProductController {
             Category category = categoryService.getCategoryById(categoryId)
                     .orElseThrow(() -> new RuntimeException("Category not found with id: " + categoryId));
             
-            categoryName = category.getName();
-            
             // Create product object
             Product product = new Product();
             product.setName(name);
@@ -180,15 +278,13 @@ public class ProductController {
             
             // Handle optional image upload
             if (imageFile != null && !imageFile.isEmpty()) {
-                System.out.println("📤 Uploading image to category folder: " + categoryName);
-                
-                uploadedFilename = fileStorageService.storeFileInCategoryFolder(imageFile, categoryName);
+                System.out.println("📤 Uploading product image");
                 
-                // Generate RELATIVE URL (without localhost)
-                String imageUrl = "/api/files/products/" + sanitizeFolderName(categoryName) + "/" + uploadedFilename;
+                // RELATIVE URL (without localhost), independent of the category
+                uploadedImageUrl = fileStorageService.storeProductImage(imageFile);
                 
-                product.setImage(imageUrl);
-                System.out.println("✅ Image uploaded: " + imageUrl);
+                product.setImage(uploadedImageUrl);
+                System.out.println("✅ Image uploaded: " + uploadedImageUrl);
             } else {
                 System.out.println("ℹ️ No image uploaded - product created without image");
             }
@@ -205,10 +301,10 @@ public class ProductController {
             System.err.println("❌ Error: " + e.getMessage());
             
             // Rollback: delete uploaded image if exists
-            if (uploadedFilename != null && categoryName != null) {
+            if (uploadedImageUrl != null) {
                 try {
-                    fileStorageService.deleteFileInCategoryFolder(uploadedFilename, categoryName);
-                    System.out.println("🗑️ Rolled back uploaded image: " + uploadedFilename);
+                    fileStorageService.deleteProductImage(uploadedImageUrl);
+                    System.out.println("🗑️ Rolled back uploaded image: " + uploadedImageUrl);
                 } catch (Exception ex) {
                     System.err.println("⚠️ Failed to delete uploaded image: " + ex.getMessage());
                 }
@@ -222,10 +318,10 @@ public class ProductController {
             e.printStackTrace();
             
             // Rollback: delete uploaded image if exists
-            if (uploadedFilename != null && categoryName != null) {
+            if (uploadedImageUrl != null) {
                 try {
-                    fileStorageService.deleteFileInCategoryFolder(uploadedFilename, categoryName);
-                    System.out.println("🗑️ Rolled back uploaded image: " + uploadedFilename);
+                    fileStorageService.deleteProductImage(uploadedImageUrl);
+                    System.out.println("🗑️ Rolled back uploaded image: " + uploadedImageUrl);
                 } catch (Exception ex) {
                     System.err.println("⚠️ Failed to delete uploaded image: " + ex.getMessage());
                 }
@@ -249,10 +345,8 @@ public class ProductController {
             @RequestParam(value = "image", required = false) MultipartFile imageFile) {
         
         Map<String, Object> response = new HashMap<>();
-        String uploadedFilename = null;
+        String uploadedImageUrl = null;
         String oldImageUrl = null;
-        String oldCategoryName = null;
-        String newCategoryName = null;
         
         try {
             System.out.println("📝 Updating product");
@@ -268,7 +362,6 @@ public class ProductController {
                     .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
             
             oldImageUrl = existingProduct.getImage();
-            oldCategoryName = existingProduct.getCategory().getName();
             
             // Prepare update
             Product productDetails = new Product();
@@ -282,91 +375,36 @@ public class ProductController {
             if (categoryId != null) {
                 Category newCategory = categoryService.getCategoryById(categoryId)
                         .orElseThrow(() -> new RuntimeException("Category not found with id: " + categoryId));
-                newCategoryName = newCategory.getName();
                 productDetails.setCategory(newCategory);
             } else {
                 productDetails.setCategory(existingProduct.getCategory());
-                newCategoryName = oldCategoryName;
             }
             
             // Handle optional image upload
             if (imageFile != null && !imageFile.isEmpty()) {
-                System.out.println("📤 Uploading new image to category folder: " + newCategoryName);
+                System.out.println("📤 Uploading new product image");
                 
-                uploadedFilename = fileStorageService.storeFileInCategoryFolder(imageFile, newCategoryName);
+                // RELATIVE URL (without localhost), independent of the category
+                uploadedImageUrl = fileStorageService.storeProductImage(imageFile);
                 
-                // Generate RELATIVE URL (without localhost)
-                String imageUrl = "/api/files/products/" + sanitizeFolderName(newCategoryName) + "/" + uploadedFilename;
-                
-                productDetails.setImage(imageUrl);
-                System.out.println("✅ New image uploaded: " + imageUrl);
+                productDetails.setImage(uploadedImageUrl);
+                System.out.println("✅ New image uploaded: " + uploadedImageUrl);
             } else {
-                // Keep existing image or handle category change
-                if (!oldCategoryName.equals(newCategoryName) && oldImageUrl != null && !oldImageUrl.isEmpty()) {
-                    // Category changed but no new image - need to move existing image
-                    System.out.println("ℹ️ Category changed, moving existing image");
-                    
-                    // Extract old filename
-                    String oldFilename = extractFilenameFromUrl(oldImageUrl);
-                    
-                    if (oldFilename != null) {
-                        try {
-                            // Read old file
-                            String oldSanitizedCategory = sanitizeFolderName(oldCategoryName);
-                            java.nio.file.Path oldPath = java.nio.file.Paths.get("uploads/products")
-                                    .resolve(oldSanitizedCategory)
-                                    .resolve(oldFilename);
-                            
-                            if (java.nio.file.Files.exists(oldPath)) {
-                                // Copy to new category folder
-                                String newSanitizedCategory = sanitizeFolderName(newCategoryName);
-                                java.nio.file.Path newPath = java.nio.file.Paths.get("uploads/products")
-                                        .resolve(newSanitizedCategory);
-                                
-                                java.nio.file.Files.createDirectories(newPath);
-                                java.nio.file.Path newFilePath = newPath.resolve(oldFilename);
-                                
-                                java.nio.file.Files.copy(oldPath, newFilePath, 
-                                        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                                
-                                // Delete old file
-                                java.nio.file.Files.deleteIfExists(oldPath);
-                                
-                                // Update URL (RELATIVE)
-                                String newImageUrl = "/api/files/products/" + newSanitizedCategory + "/" + oldFilename;
-                                
-                                productDetails.setImage(newImageUrl);
-                                System.out.println("✅ Image moved to new category folder");
-                            } else {
-                                productDetails.setImage(oldImageUrl);
-                                System.out.println("⚠️ Old image not found, keeping URL");
-                            }
-                        } catch (Exception e) {
-                            System.err.println("⚠️ Failed to move image: " + e.getMessage());
-                            productDetails.setImage(oldImageUrl);
-                        }
-                    } else {
-                        productDetails.setImage(oldImageUrl);
-                    }
-                } else {
-                    productDetails.setImage(existingProduct.getImage());
-                    System.out.println("ℹ️ Keeping existing image");
-                }
+                // Image URLs do not depend on the category: a category change is a metadata update only
+                productDetails.setImage(existingProduct.getImage());
+                System.out.println("ℹ️ Keeping existing image");
             }
             
             // Update product with stock (both at the same time!)
             Product updatedProduct = productService.updateProduct(id, productDetails, stock);
             
             // Delete old image only after successful update and if new image was uploaded
-            if (uploadedFilename != null && oldImageUrl != null && !oldImageUrl.isEmpty()) {
-                String oldFilename = extractFilenameFromUrl(oldImageUrl);
-                if (oldFilename != null && !oldFilename.isEmpty()) {
-                    try {
-                        fileStorageService.deleteFileInCategoryFolder(oldFilename, oldCategoryName);
-                        System.out.println("🗑️ Deleted old image: " + oldFilename);
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Failed to delete old image: " + e.getMessage());
-                    }
+            if (uploadedImageUrl != null && oldImageUrl != null && !oldImageUrl.isEmpty()) {
+                try {
+                    fileStorageService.deleteProductImage(oldImageUrl);
+                    System.out.println("🗑️ Deleted old image: " + oldImageUrl);
+                } catch (Exception e) {
+                    System.err.println("⚠️ Failed to delete old image: " + e.getMessage());
                 }
             }
             
@@ -379,10 +417,10 @@ public class ProductController {
             System.err.println("❌ Error: " + e.getMessage());
             
          // Rollback: delete new uploaded image if exists
-            if (uploadedFilename != null && newCategoryName != null) {
+            if (uploadedImageUrl != null) {
                 try {
-                    fileStorageService.deleteFileInCategoryFolder(uploadedFilename, newCategoryName);
-                    System.out.println("🗑️ Rolled back uploaded image: " + uploadedFilename);
+                    fileStorageService.deleteProductImage(uploadedImageUrl);
+                    System.out.println("🗑️ Rolled back uploaded image: " + uploadedImageUrl);
                 } catch (Exception ex) {
                     System.err.println("⚠️ Failed to delete uploaded image: " + ex.getMessage());
                 }
@@ -401,10 +439,10 @@ public class ProductController {
             e.printStackTrace();
             
             // Rollback: delete new uploaded image if exists
-            if (uploadedFilename != null && newCategoryName != null) {
+            if (uploadedImageUrl != null) {
                 try {
-                    fileStorageService.deleteFileInCategoryFolder(uploadedFilename, newCategoryName);
-                    System.out.println("🗑️ Rolled back uploaded image: " + uploadedFilename);
+                    fileStorageService.deleteProductImage(uploadedImageUrl);
+                    System.out.println("🗑️ Rolled back uploaded image: " + uploadedImageUrl);
                 } catch (Exception ex) {
                     System.err.println("⚠️ Failed to delete uploaded image: " + ex.getMessage());
                 }
@@ -428,16 +466,11 @@ public class ProductController {
             
             // Delete product image if exists
             if (product.getImage() != null && !product.getImage().isEmpty()) {
-                String filename = extractFilenameFromUrl(product.getImage());
-                String categoryName = product.getCategory().getName();
-                
-                if (filename != null && categoryName != null) {
-                    try {
-                        fileStorageService.deleteFileInCategoryFolder(filename, categoryName);
-                        System.out.println("🗑️ Deleted product image: " + filename);
-                    } catch (Exception e) {
-                        System.err.println("⚠️ Failed to delete image: " + e.getMessage());
-                    }
+                try {
+                    fileStorageService.deleteProductImage(product.getImage());
+                    System.out.println("🗑️ Deleted product image: " + product.getImage());
+                } catch (Exception e) {
+                    System.err.println("⚠️ Failed to delete image: " + e.getMessage());
                 }
             }
             
@@ -570,6 +603,16 @@ public class ProductController {
         }
     }
     
+    // Catalog cache statistics (hit/miss/eviction, admin only)
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats(@CurrentUser AuthUser user) {
+        user.requireAdminOrOwner();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", catalogCache.getStats());
+        return ResponseEntity.ok(response);
+    }
+    
     // Get products with low stock
     @GetMapping("/low-stock")
     public ResponseEntity<Map<String, Object>> getLowStockProducts(
@@ -592,27 +635,4 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
-
-    // Helper method to extract filename from URL
-    private String extractFilenameFromUrl(String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
-            return null;
-        }
-        
-        int lastSlashIndex = imageUrl.lastIndexOf('/');
-        if (lastSlashIndex != -1 && lastSlashIndex < imageUrl.length() - 1) {
-            return imageUrl.substring(lastSlashIndex + 1);
-        }
-        
-        return null;
-    }
-    
-    // Helper method to sanitize folder name
-    private String sanitizeFolderName(String name) {
-        if (name == null) {
-            return null;
-        }
-        // Replace special characters with underscore, keep alphanumeric and spaces
-        return name.replaceAll("[^a-zA-Z0-9\\s]", "_").trim();
-    }
-}
\ No newline at end of file
+}
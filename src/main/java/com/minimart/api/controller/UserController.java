@@ -1,8 +1,12 @@
 package com.minimart.api.controller;
 
+import com.minimart.api.config.AuthRateLimitFilter;
+import com.minimart.api.config.CurrentUser;
 import com.minimart.api.dto.AuthResponse;
+import com.minimart.api.dto.AuthUser;
 import com.minimart.api.dto.ForgotPasswordRequest;
 import com.minimart.api.dto.LoginRequest;
+import com.minimart.api.dto.RefreshTokenRequest;
 import com.minimart.api.dto.RegisterRequest;
 import com.minimart.api.dto.ResendOtpRequest;
 import com.minimart.api.dto.ResetPasswordRequest;
@@ -10,6 +14,7 @@ import com.minimart.api.dto.UserDTO;
 import com.minimart.api.dto.VerifyOtpRequest;
 import com.minimart.api.service.UserService;
 import com.minimart.api.service.FileStorageService;
+import com.minimart.api.service.MailQueueService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -32,6 +37,12 @@ public class UserController {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private AuthRateLimitFilter authRateLimitFilter;
+
+    @Autowired
+    private MailQueueService mailQueueService;
+
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request) {
         AuthResponse response = userService.register(request);
@@ -76,6 +87,41 @@ public class UserController {
         }
     }
 
+    /**
+     * Exchange a refresh token for a new access token and a new refresh token
+     * POST /api/users/refresh-token  Body: { "refresh_token": "..." }
+     */
+    @PostMapping("/refresh-token")
+    public ResponseEntity<AuthResponse> refreshToken(@RequestBody RefreshTokenRequest request) {
+        AuthResponse response = userService.refreshToken(request);
+
+        if (response.isSuccess()) {
+            return ResponseEntity.ok(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+    }
+
+    /**
+     * Revoke this session (refresh token family and the access token in use)
+     * POST /api/users/logout  Body: { "refresh_token": "..." } (optional)
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<AuthResponse> logout(
+            @CurrentUser AuthUser user,
+            @RequestBody(required = false) RefreshTokenRequest request) {
+        return ResponseEntity.ok(userService.logout(user, request));
+    }
+
+    /**
+     * Revoke every session of the current user
+     * POST /api/users/logout-all
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<AuthResponse> logoutAll(@CurrentUser AuthUser user) {
+        return ResponseEntity.ok(userService.logoutAll(user));
+    }
+
     @PostMapping("/forgot-password")
     public ResponseEntity<AuthResponse> forgotPassword(@RequestBody ForgotPasswordRequest request) {
         AuthResponse response = userService.forgotPassword(request);
@@ -99,7 +145,8 @@ public class UserController {
     }
 
     @GetMapping("/info/{userId}")
-    public ResponseEntity<UserDTO> getUserInfo(@PathVariable Long userId) {
+    public ResponseEntity<UserDTO> getUserInfo(@CurrentUser AuthUser user, @PathVariable Long userId) {
+        user.requireAccess(userId);
         return userService.getUserInfo(userId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
@@ -112,11 +159,13 @@ public class UserController {
      */
     @PostMapping("/info/{userId}")
     public ResponseEntity<Map<String, Object>> updateUserInfo(
+            @CurrentUser AuthUser user,
             @PathVariable Long userId,
             @RequestParam(value = "userName", required = false) String userName,
             @RequestParam(value = "phone_number", required = false) String phoneNumber,
             @RequestParam(value = "image", required = false) MultipartFile image) {
         
+        user.requireAccess(userId);
         Map<String, Object> response = new HashMap<>();
         String uploadedFilename = null;
         
@@ -218,27 +267,59 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDTO> getUserById(@CurrentUser AuthUser user, @PathVariable Long id) {
+        user.requireAccess(id);
         return userService.getUserById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/email/{email}")
-    public ResponseEntity<UserDTO> getUserByEmail(@PathVariable String email) {
+    public ResponseEntity<UserDTO> getUserByEmail(@CurrentUser AuthUser user, @PathVariable String email) {
+        if (!email.equalsIgnoreCase(user.email())) {
+            user.requireAdminOrOwner();
+        }
         return userService.getUserByEmail(email)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDTO>> getAllUsers() {
+    public ResponseEntity<List<UserDTO>> getAllUsers(@CurrentUser AuthUser user) {
+        user.requireAdminOrOwner();
         List<UserDTO> users = userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Login/register/reset-password rate limiter counters (admin only)
+     * GET /api/users/rate-limit-stats
+     */
+    @GetMapping("/rate-limit-stats")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats(@CurrentUser AuthUser user) {
+        user.requireAdminOrOwner();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", authRateLimitFilter.getStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Outbound mail queue counters and mails per status (admin only)
+     * GET /api/users/mail-queue-stats
+     */
+    @GetMapping("/mail-queue-stats")
+    public ResponseEntity<Map<String, Object>> getMailQueueStats(@CurrentUser AuthUser user) {
+        user.requireAdminOrOwner();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", mailQueueService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<Void> deleteUser(@CurrentUser AuthUser user, @PathVariable Long id) {
+        user.requireAccess(id);
         if (userService.deleteUser(id)) {
             return ResponseEntity.noContent().build();
         } else {
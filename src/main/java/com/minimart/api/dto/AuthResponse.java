@@ -11,6 +11,13 @@ public class AuthResponse {
     @JsonProperty("access_token")
     private String accessToken;
 
+    @JsonProperty("refresh_token")
+    private String refreshToken;
+
+    // Access token lifetime in seconds
+    @JsonProperty("expires_in")
+    private Long expiresIn;
+
     // Constructors
     public AuthResponse() {
     }
@@ -33,6 +40,16 @@ public class AuthResponse {
         this.accessToken = accessToken;
     }
 
+    public AuthResponse(boolean success, String message, UserDTO user, String accessToken,
+                        String refreshToken, Long expiresIn) {
+        this.success = success;
+        this.message = message;
+        this.user = user;
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
     // Getters and Setters
     public boolean isSuccess() {
         return success;
@@ -65,4 +82,20 @@ public class AuthResponse {
     public void setAccessToken(String accessToken) {
         this.accessToken = accessToken;
     }
-}
\ No newline at end of file
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(Long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+}
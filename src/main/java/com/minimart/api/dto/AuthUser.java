@@ -0,0 +1,49 @@
+package com.minimart.api.dto;
+
+import com.minimart.api.exception.ForbiddenException;
+
+import java.security.Principal;
+import java.util.Objects;
+
+/**
+ * Authenticated caller, taken from a verified access token.
+ * Set as the Spring Security principal by JwtAuthenticationFilter.
+ *
+ * @param jti       token id, used to revoke this one token
+ * @param expiresAt token expiry (epoch millis)
+ */
+public record AuthUser(String email, Long userId, String role, String jti, long expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAt;
+    }
+
+    // Admin and owner accounts may see and manage every user's data
+    public boolean isAdminOrOwner() {
+        return "admin".equalsIgnoreCase(role) || "owner".equalsIgnoreCase(role);
+    }
+
+    /**
+     * True if this caller may act on data owned by ownerId (their own, or any as admin/owner)
+     */
+    public boolean canAccess(Long ownerId) {
+        return isAdminOrOwner() || (userId != null && Objects.equals(userId, ownerId));
+    }
+
+    public void requireAccess(Long ownerId) {
+        if (!canAccess(ownerId)) {
+            throw new ForbiddenException("Access denied.");
+        }
+    }
+
+    public void requireAdminOrOwner() {
+        if (!isAdminOrOwner()) {
+            throw new ForbiddenException("Access denied. Admin only.");
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.minimart.api.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset cursor for admin order listing (newest first): "<createdAt>,<id>"
+ * Example: after=2025-10-19T16:01:00.123456,812
+ */
+public class OrderCursor {
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public OrderCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Parse "after" request param (null / blank means first page)
+     */
+    public static OrderCursor parse(String after) {
+        if (after == null || after.trim().isEmpty()) {
+            return null;
+        }
+
+        String value = after.trim();
+        int comma = value.lastIndexOf(',');
+
+        try {
+            if (comma == -1) {
+                throw new IllegalArgumentException("Cursor must be <createdAt>,<id>");
+            }
+            return new OrderCursor(LocalDateTime.parse(value.substring(0, comma)),
+                    Long.valueOf(value.substring(comma + 1).trim()));
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor 'after=" + after + "': " + e.getMessage());
+        }
+    }
+
+    public String encode() {
+        return createdAt + "," + id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,75 @@
+package com.minimart.api.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Optional filters for admin order listing (null = no filter).
+ * Date range is inclusive on both days.
+ */
+public class OrderFilter {
+
+    private String status;
+    private LocalDate from;
+    private LocalDate to;
+    private Long userId;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+
+    public OrderFilter() {}
+
+    public OrderFilter(String status, LocalDate from, LocalDate to, Long userId,
+                       BigDecimal minAmount, BigDecimal maxAmount) {
+        this.status = status != null && !status.trim().isEmpty() ? status.trim().toLowerCase() : null;
+        this.from = from;
+        this.to = to;
+        this.userId = userId;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+
+    /**
+     * Reject ranges that can never match (400 instead of an empty page)
+     */
+    public void validate() {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) > 0) {
+            throw new IllegalArgumentException("minAmount must not be greater than maxAmount");
+        }
+    }
+
+    /**
+     * Stable key for caching counts per filter
+     */
+    public String cacheKey() {
+        return status + "|" + from + "|" + to + "|" + userId + "|"
+                + (minAmount != null ? minAmount.stripTrailingZeros().toPlainString() : null) + "|"
+                + (maxAmount != null ? maxAmount.stripTrailingZeros().toPlainString() : null);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public BigDecimal getMinAmount() {
+        return minAmount;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+}
@@ -28,6 +28,13 @@ public class OrderSummaryDTO {
         this.addressId = addressId;
         this.payDate = payDate;
     }
+    
+    // Projection constructor (JPQL COUNT returns Long)
+    public OrderSummaryDTO(Long id, Long userId, String status, BigDecimal amount,
+                          LocalDateTime createdAt, Long itemCount, Long addressId,
+                          LocalDateTime payDate) {
+        this(id, userId, status, amount, createdAt, itemCount.intValue(), addressId, payDate);
+    }
 
     // Getters and Setters
     public Long getId() {
@@ -29,6 +29,13 @@ public class PendingOrderDTO {
         this.itemCount = itemCount;
     }
     
+    // Projection constructor (JPQL COUNT returns Long)
+    public PendingOrderDTO(Long id, Long userId, String userName, String userEmail,
+                          BigDecimal amount, String paymentMethod, 
+                          LocalDateTime createdAt, Long itemCount) {
+        this(id, userId, userName, userEmail, amount, paymentMethod, createdAt, itemCount.intValue());
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
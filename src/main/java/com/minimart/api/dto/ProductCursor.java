@@ -0,0 +1,160 @@
+package com.minimart.api.dto;
+
+import com.minimart.api.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset cursor for product listing: "<sortKey>,<id>"
+ * Example: after=Coca Cola,12 | after=1.50,12 | after=2025-10-19T16:01:00,12
+ * A product without created_at sorts last by date; its cursor has an empty key (",12").
+ */
+public class ProductCursor {
+
+    /**
+     * Sort modes supported by GET /api/products
+     * Every mode ends with product id so the order is total
+     */
+    public enum Sort {
+        ID,          // p.id ASC (default)
+        NAME,        // p.name ASC, p.id ASC
+        PRICE_ASC,   // p.price ASC, p.id ASC
+        PRICE_DESC,  // p.price DESC, p.id DESC
+        DATE,        // p.createdAt DESC NULLS LAST, p.id DESC
+        CATEGORY;    // p.category.id ASC, p.id ASC
+
+        public static Sort from(String sort) {
+            if (sort == null || sort.trim().isEmpty()) {
+                return ID;
+            }
+            switch (sort.trim().toLowerCase()) {
+                case "name": return NAME;
+                case "price_asc": return PRICE_ASC;
+                case "price_desc": return PRICE_DESC;
+                case "date": return DATE;
+                case "category": return CATEGORY;
+                default: return ID;
+            }
+        }
+    }
+
+    private final Sort sort;
+    private final String sortKey;
+    private final Integer id;
+
+    public ProductCursor(Sort sort, String sortKey, Integer id) {
+        this.sort = sort;
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * Parse "after" request param. Sort key may contain commas (product names),
+     * so the id is always taken after the LAST comma.
+     */
+    public static ProductCursor parse(Sort sort, String after) {
+        if (after == null || after.trim().isEmpty()) {
+            return null;
+        }
+
+        String value = after.trim();
+        int comma = value.lastIndexOf(',');
+
+        try {
+            if (comma == -1) {
+                // Only id given (valid for default id sort)
+                if (sort != Sort.ID) {
+                    throw new IllegalArgumentException("Cursor must be <sortKey>,<id> for sort " + sort.name().toLowerCase());
+                }
+                return new ProductCursor(sort, null, Integer.valueOf(value));
+            }
+
+            String sortKey = value.substring(0, comma);
+            Integer id = Integer.valueOf(value.substring(comma + 1).trim());
+
+            // Validate the key now so a bad cursor is a 400, not a query error
+            switch (sort) {
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    new BigDecimal(sortKey);
+                    break;
+                case DATE:
+                    if (!sortKey.isEmpty()) {
+                        LocalDateTime.parse(sortKey);
+                    }
+                    break;
+                case CATEGORY:
+                    Integer.valueOf(sortKey);
+                    break;
+                default:
+                    break;
+            }
+
+            return new ProductCursor(sort, sortKey, id);
+
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor 'after=" + after + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Build the cursor pointing at (after) the given product
+     */
+    public static ProductCursor of(Sort sort, Product product) {
+        String sortKey;
+        switch (sort) {
+            case NAME:
+                sortKey = product.getName();
+                break;
+            case PRICE_ASC:
+            case PRICE_DESC:
+                sortKey = product.getPrice().toPlainString();
+                break;
+            case DATE:
+                sortKey = product.getCreatedAt() == null ? "" : product.getCreatedAt().toString();
+                break;
+            case CATEGORY:
+                sortKey = String.valueOf(product.getCategory().getId());
+                break;
+            default:
+                sortKey = null;
+        }
+        return new ProductCursor(sort, sortKey, product.getId());
+    }
+
+    public String encode() {
+        return sortKey == null ? String.valueOf(id) : sortKey + "," + id;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public BigDecimal getPriceKey() {
+        return new BigDecimal(sortKey);
+    }
+
+    // Null for a cursor at a product without created_at
+    public LocalDateTime getDateKey() {
+        return sortKey.isEmpty() ? null : LocalDateTime.parse(sortKey);
+    }
+
+    public Integer getCategoryKey() {
+        return Integer.valueOf(sortKey);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,7 @@
+package com.minimart.api.exception;
+
+public class ForbiddenException extends RuntimeException {
+    public ForbiddenException(String message) {
+        super(message);
+    }
+}
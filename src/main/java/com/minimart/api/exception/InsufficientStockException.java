@@ -0,0 +1,19 @@
+package com.minimart.api.exception;
+
+import java.util.List;
+import java.util.Map;
+
+public class InsufficientStockException extends RuntimeException {
+    
+    // One entry per product: productId, productName, requested, available
+    private final List<Map<String, Object>> shortfalls;
+    
+    public InsufficientStockException(String message, List<Map<String, Object>> shortfalls) {
+        super(message);
+        this.shortfalls = shortfalls;
+    }
+    
+    public List<Map<String, Object>> getShortfalls() {
+        return shortfalls;
+    }
+}
@@ -0,0 +1,58 @@
+package com.minimart.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Upload path (e.g. uploads/category/{uuid}.png) served from a shared blob
+ */
+@Entity
+@Table(name = "file_alias", schema = "final")
+public class FileAlias {
+
+    // Path the file would have had without dedup, relative to the working directory
+    @Id
+    @Column(length = 500)
+    private String path;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public FileAlias() {
+    }
+
+    public FileAlias(String path, String sha256) {
+        this.path = path;
+        this.sha256 = sha256;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -44,6 +44,14 @@ public class Payment {
     @Column(name = "transaction_date")
     private LocalDateTime transactionDate;
 
+    // SHA-256 (hex) of the verified screenshot bytes
+    @Column(name = "screenshot_hash", length = 64)
+    private String screenshotHash;
+
+    // 64-bit dHash of the verified screenshot (near-duplicate detection)
+    @Column(name = "screenshot_dhash")
+    private Long screenshotDhash;
+
     // Constructors
     public Payment() {
         this.createdAt = LocalDateTime.now();
@@ -160,4 +168,20 @@ public class Payment {
     public void setTransactionDate(LocalDateTime transactionDate) {
         this.transactionDate = transactionDate;
     }
-}
\ No newline at end of file
+
+    public String getScreenshotHash() {
+        return screenshotHash;
+    }
+
+    public void setScreenshotHash(String screenshotHash) {
+        this.screenshotHash = screenshotHash;
+    }
+
+    public Long getScreenshotDhash() {
+        return screenshotDhash;
+    }
+
+    public void setScreenshotDhash(Long screenshotDhash) {
+        this.screenshotDhash = screenshotDhash;
+    }
+}
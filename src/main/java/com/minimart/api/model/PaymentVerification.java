@@ -0,0 +1,197 @@
+package com.minimart.api.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One screenshot verification job (queued -> processing -> verified / rejected / failed / review)
+ */
+@Entity
+@Table(name = "payment_verification", schema = "final")
+public class PaymentVerification {
+
+    public static final String QUEUED = "queued";
+    public static final String PROCESSING = "processing";
+    public static final String VERIFIED = "verified";
+    public static final String REJECTED = "rejected";
+    public static final String FAILED = "failed";
+    // Looked like an already paid screenshot: left to the admin's confirm / reject
+    public static final String REVIEW = "review";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "screenshot_path")
+    private String screenshotPath;
+
+    // SHA-256 (hex) of the uploaded bytes, key of the OCR result cache
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // dHash of the image (null if the upload could not be decoded)
+    @Column(name = "perceptual_hash")
+    private Long perceptualHash;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(name = "transaction_id")
+    private String transactionId;
+
+    private Integer attempts;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Constructors
+    public PaymentVerification() {
+    }
+
+    public PaymentVerification(Long orderId, Long userId, String fileName, String screenshotPath) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.fileName = fileName;
+        this.screenshotPath = screenshotPath;
+        this.status = QUEUED;
+        this.attempts = 0;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public boolean isFinished() {
+        return VERIFIED.equals(status) || REJECTED.equals(status) || FAILED.equals(status)
+                || REVIEW.equals(status);
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getScreenshotPath() {
+        return screenshotPath;
+    }
+
+    public void setScreenshotPath(String screenshotPath) {
+        this.screenshotPath = screenshotPath;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Long getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    public void setPerceptualHash(Long perceptualHash) {
+        this.perceptualHash = perceptualHash;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
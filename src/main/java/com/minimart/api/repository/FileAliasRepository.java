@@ -0,0 +1,18 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.model.FileAlias;
+import com.minimart.api.model.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FileAliasRepository extends JpaRepository<FileAlias, String> {
+
+    // Blob behind an upload path, in one query
+    @Query("SELECT b FROM FileAlias a, FileBlob b WHERE a.path = :path AND b.sha256 = a.sha256")
+    Optional<FileBlob> findBlobByPath(@Param("path") String path);
+}
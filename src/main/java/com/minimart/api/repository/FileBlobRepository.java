@@ -0,0 +1,30 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.model.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    // 0 if the blob does not exist yet
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount + 1 WHERE b.sha256 = :sha256")
+    int addReference(@Param("sha256") String sha256);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - 1 WHERE b.sha256 = :sha256 AND b.refCount > 0")
+    int removeReference(@Param("sha256") String sha256);
+
+    // 1 if this call removed the last reference's row (caller then deletes the bytes)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM FileBlob b WHERE b.sha256 = :sha256 AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("sha256") String sha256);
+}
@@ -0,0 +1,26 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.model.OcrResult;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OcrResultRepository extends JpaRepository<OcrResult, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE OcrResult r SET r.hits = r.hits + 1, r.lastUsedAt = :now WHERE r.contentHash = :hash")
+    int recordHit(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    // Least recently used first (eviction candidates)
+    @Query("SELECT r.contentHash FROM OcrResult r ORDER BY r.lastUsedAt ASC")
+    List<String> findLeastRecentlyUsed(Pageable pageable);
+}
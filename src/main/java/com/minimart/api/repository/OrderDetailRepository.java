@@ -3,10 +3,15 @@ package com.minimart.api.repository;
 import com.minimart.api.model.OrderDetail;
 import com.minimart.api.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
     List<OrderDetail> findByOrder(Order order);
-}
\ No newline at end of file
+    
+    // Units sold per product over paid orders: [productId, SUM(qty)]
+    @Query("SELECT d.productId, SUM(d.qty) FROM OrderDetail d WHERE d.order.status = 'paid' GROUP BY d.productId")
+    List<Object[]> sumPaidQtyByProduct();
+}
@@ -1,15 +1,56 @@
 package com.minimart.api.repository;
 
+import com.minimart.api.dto.OrderSummaryDTO;
+import com.minimart.api.dto.PendingOrderDTO;
 import com.minimart.api.model.Order;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
     List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
     List<Order> findByStatus(String status);
     
     // ✅ Correct method name
     List<Order> findAllByOrderByCreatedAtDesc();
+    
+    // ========== Summary projections (one query, no per-order lookups) ==========
+    
+    String ORDER_SUMMARY_SELECT =
+        "SELECT new com.minimart.api.dto.OrderSummaryDTO(" +
+        "o.id, o.userId, o.status, o.amount, o.createdAt, COUNT(d.id), o.addressId, p.payDate) " +
+        "FROM Order o " +
+        "LEFT JOIN OrderDetail d ON d.order = o " +
+        "LEFT JOIN Payment p ON p.orderId = o.id ";
+    
+    String ORDER_SUMMARY_GROUP =
+        " GROUP BY o.id, o.userId, o.status, o.amount, o.createdAt, o.addressId, p.payDate" +
+        " ORDER BY o.createdAt DESC, o.id DESC";
+    
+    @Query(ORDER_SUMMARY_SELECT + "WHERE o.userId = :userId" + ORDER_SUMMARY_GROUP)
+    List<OrderSummaryDTO> findSummariesByUserId(@Param("userId") Long userId);
+    
+    @Query(ORDER_SUMMARY_SELECT + ORDER_SUMMARY_GROUP)
+    List<OrderSummaryDTO> findAllSummaries();
+    
+    @Query("SELECT new com.minimart.api.dto.PendingOrderDTO(" +
+           "o.id, o.userId, COALESCE(u.userName, 'Unknown'), COALESCE(u.email, 'Unknown'), " +
+           "o.amount, COALESCE(p.paymentMethod, 'N/A'), o.createdAt, COUNT(d.id)) " +
+           "FROM Order o " +
+           "LEFT JOIN User u ON u.userId = o.userId " +
+           "LEFT JOIN OrderDetail d ON d.order = o " +
+           "LEFT JOIN Payment p ON p.orderId = o.id " +
+           "WHERE o.status = :status " +
+           "GROUP BY o.id, o.userId, u.userName, u.email, o.amount, p.paymentMethod, o.createdAt " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<PendingOrderDTO> findPendingSummariesByStatus(@Param("status") String status);
+    
+    // Compare-and-set status: 0 rows means someone else already moved the order on
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to, o.updatedAt = CURRENT_TIMESTAMP WHERE o.id = :id AND o.status = :from")
+    int updateStatusIfCurrent(@Param("id") Long id, @Param("from") String from, @Param("to") String to);
 }
\ No newline at end of file
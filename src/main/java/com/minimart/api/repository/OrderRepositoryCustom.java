@@ -0,0 +1,19 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.dto.OrderCursor;
+import com.minimart.api.dto.OrderFilter;
+import com.minimart.api.dto.OrderSummaryDTO;
+import com.minimart.api.dto.PendingOrderDTO;
+
+import java.util.List;
+
+public interface OrderRepositoryCustom {
+
+    // Keyset page of order summaries, newest first (createdAt DESC, id DESC)
+    List<OrderSummaryDTO> findSummaryPage(OrderFilter filter, OrderCursor after, int limit);
+
+    // Same for the pending dashboard (adds user name / email and payment method)
+    List<PendingOrderDTO> findPendingSummaryPage(OrderFilter filter, OrderCursor after, int limit);
+
+    long countByFilter(OrderFilter filter);
+}
@@ -0,0 +1,110 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.dto.OrderCursor;
+import com.minimart.api.dto.OrderFilter;
+import com.minimart.api.dto.OrderSummaryDTO;
+import com.minimart.api.dto.PendingOrderDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtered keyset pagination for admin order listing.
+ *
+ * Pages are ordered by (createdAt DESC, id DESC) and continue with
+ * "WHERE (createdAt, id) < (:createdAt, :id)", so page N costs the same as page 1.
+ * Item count is a correlated subquery (not GROUP BY) so the database can stop
+ * after "limit" orders instead of aggregating the whole table first.
+ */
+public class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    private static final String ITEM_COUNT =
+            "(SELECT COUNT(d.id) FROM OrderDetail d WHERE d.order = o)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSummaryDTO> findSummaryPage(OrderFilter filter, OrderCursor after, int limit) {
+        String select = "SELECT new com.minimart.api.dto.OrderSummaryDTO("
+                + "o.id, o.userId, o.status, o.amount, o.createdAt, " + ITEM_COUNT + ", o.addressId, p.payDate) "
+                + "FROM Order o "
+                + "LEFT JOIN Payment p ON p.orderId = o.id";
+
+        return page(select, OrderSummaryDTO.class, filter, after, limit);
+    }
+
+    @Override
+    public List<PendingOrderDTO> findPendingSummaryPage(OrderFilter filter, OrderCursor after, int limit) {
+        String select = "SELECT new com.minimart.api.dto.PendingOrderDTO("
+                + "o.id, o.userId, COALESCE(u.userName, 'Unknown'), COALESCE(u.email, 'Unknown'), "
+                + "o.amount, COALESCE(p.paymentMethod, 'N/A'), o.createdAt, " + ITEM_COUNT + ") "
+                + "FROM Order o "
+                + "LEFT JOIN User u ON u.userId = o.userId "
+                + "LEFT JOIN Payment p ON p.orderId = o.id";
+
+        return page(select, PendingOrderDTO.class, filter, after, limit);
+    }
+
+    @Override
+    public long countByFilter(OrderFilter filter) {
+        Map<String, Object> params = new HashMap<>();
+        String jpql = "SELECT COUNT(o) FROM Order o" + where(filter, null, params);
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+        params.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    private <T> List<T> page(String select, Class<T> type, OrderFilter filter, OrderCursor after, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        String jpql = select + where(filter, after, params) + " ORDER BY o.createdAt DESC, o.id DESC";
+
+        TypedQuery<T> query = entityManager.createQuery(jpql, type);
+        params.forEach(query::setParameter);
+        query.setMaxResults(limit);
+        query.setHint("org.hibernate.readOnly", true);
+        return query.getResultList();
+    }
+
+    private String where(OrderFilter filter, OrderCursor after, Map<String, Object> params) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+
+        if (filter.getStatus() != null) {
+            where.append(" AND o.status = :status");
+            params.put("status", filter.getStatus());
+        }
+        if (filter.getFrom() != null) {
+            where.append(" AND o.createdAt >= :from");
+            params.put("from", filter.getFrom().atStartOfDay());
+        }
+        if (filter.getTo() != null) {
+            where.append(" AND o.createdAt < :to");
+            params.put("to", filter.getTo().plusDays(1).atStartOfDay());
+        }
+        if (filter.getUserId() != null) {
+            where.append(" AND o.userId = :userId");
+            params.put("userId", filter.getUserId());
+        }
+        if (filter.getMinAmount() != null) {
+            where.append(" AND o.amount >= :minAmount");
+            params.put("minAmount", filter.getMinAmount());
+        }
+        if (filter.getMaxAmount() != null) {
+            where.append(" AND o.amount <= :maxAmount");
+            params.put("maxAmount", filter.getMaxAmount());
+        }
+        if (after != null) {
+            where.append(" AND (o.createdAt < :afterCreatedAt"
+                    + " OR (o.createdAt = :afterCreatedAt AND o.id < :afterId))");
+            params.put("afterCreatedAt", after.getCreatedAt());
+            params.put("afterId", after.getId());
+        }
+
+        return where.toString();
+    }
+}
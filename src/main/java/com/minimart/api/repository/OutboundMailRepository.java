@@ -0,0 +1,35 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.model.OutboundMail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboundMailRepository extends JpaRepository<OutboundMail, Long> {
+
+    // 1 if this caller claimed the mail for a send attempt (0: already taken or finished)
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundMail m SET m.status = 'sending', m.attempts = m.attempts + 1, m.updatedAt = :now " +
+           "WHERE m.id = :id AND m.status = 'queued'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Mails that were being sent when the app stopped get another attempt
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboundMail m SET m.status = 'queued', m.updatedAt = :now WHERE m.status = 'sending'")
+    int requeueInterrupted(@Param("now") LocalDateTime now);
+
+    List<OutboundMail> findByStatusOrderByIdAsc(String status);
+
+    // [status, count] rows for the queue metrics
+    @Query("SELECT m.status, COUNT(m) FROM OutboundMail m GROUP BY m.status")
+    List<Object[]> countByStatus();
+}
@@ -2,7 +2,9 @@ package com.minimart.api.repository;
 
 import com.minimart.api.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +16,11 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     // 🆕 NEW: Find payment by transaction ID
     Optional<Payment> findByTransactionId(String transactionId);
+    
+    // Payments made with an identical screenshot (SHA-256 of the bytes)
+    List<Payment> findByScreenshotHash(String screenshotHash);
+    
+    // Perceptual hashes of paid screenshots: [paymentId, dHash]
+    @Query("SELECT p.id, p.screenshotDhash FROM Payment p WHERE p.status = 'paid' AND p.screenshotDhash IS NOT NULL")
+    List<Object[]> findPaidScreenshotDhashes();
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.model.PaymentVerification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PaymentVerificationRepository extends JpaRepository<PaymentVerification, Long> {
+
+    // Latest job for an order (what the status endpoint reports)
+    Optional<PaymentVerification> findFirstByOrderIdOrderByIdDesc(Long orderId);
+
+    boolean existsByOrderIdAndStatusIn(Long orderId, Collection<String> statuses);
+
+    // Jobs left unfinished by a restart
+    List<PaymentVerification> findByStatusInOrderByIdAsc(Collection<String> statuses);
+}
@@ -10,7 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, ProductRepositoryCustom {
 
     // Find products by category
     List<Product> findByCategory(Category category);
@@ -21,12 +21,6 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     // Find products by name containing (case insensitive)
     List<Product> findByNameContainingIgnoreCase(String keyword);
 
-    // Search products by name or detail
-    @Query("SELECT p FROM Product p WHERE " +
-           "LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(p.detail) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Product> searchProducts(@Param("keyword") String keyword);
-
     // Find products with low stock (using join with Stock table)
     @Query("SELECT p FROM Product p JOIN p.stock s WHERE s.qty <= :threshold")
     List<Product> findByStockLessThanEqual(@Param("threshold") Integer threshold);
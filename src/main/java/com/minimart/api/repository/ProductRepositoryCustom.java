@@ -0,0 +1,12 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.dto.ProductCursor;
+import com.minimart.api.model.Product;
+
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+
+    // Keyset page of products (stock + category fetched in the same query), streamed row by row
+    Stream<Product> streamPage(ProductCursor.Sort sort, ProductCursor after, Integer categoryId, Integer limit);
+}
@@ -0,0 +1,116 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.dto.ProductCursor;
+import com.minimart.api.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.stream.Stream;
+
+/**
+ * Keyset (seek) pagination for product listing.
+ * Each sort mode is (sortKey, id) so "WHERE (key, id) > (:key, :id)" picks up
+ * exactly after the last row of the previous page without OFFSET scans.
+ * Products without created_at come last in the date sort, ordered by id.
+ */
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final int FETCH_SIZE = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Product> streamPage(ProductCursor.Sort sort, ProductCursor after, Integer categoryId, Integer limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT p FROM Product p JOIN FETCH p.category c LEFT JOIN FETCH p.stock s WHERE 1 = 1");
+
+        if (categoryId != null) {
+            jpql.append(" AND c.id = :categoryId");
+        }
+
+        if (after != null) {
+            jpql.append(" AND ").append(seekCondition(sort, after));
+        }
+
+        jpql.append(" ORDER BY ").append(orderBy(sort));
+
+        TypedQuery<Product> query = entityManager.createQuery(jpql.toString(), Product.class);
+
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+
+        if (after != null) {
+            query.setParameter("afterId", after.getId());
+            switch (sort) {
+                case NAME:
+                    query.setParameter("afterKey", after.getSortKey());
+                    break;
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    query.setParameter("afterKey", after.getPriceKey());
+                    break;
+                case DATE:
+                    if (after.getDateKey() != null) {
+                        query.setParameter("afterKey", after.getDateKey());
+                    }
+                    break;
+                case CATEGORY:
+                    query.setParameter("afterKey", after.getCategoryKey());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+
+        // Let the driver fetch in chunks instead of materializing the whole result set
+        query.setHint("org.hibernate.fetchSize", FETCH_SIZE);
+        query.setHint("org.hibernate.readOnly", true);
+
+        return query.getResultStream();
+    }
+
+    private String seekCondition(ProductCursor.Sort sort, ProductCursor after) {
+        switch (sort) {
+            case NAME:
+                return "(p.name > :afterKey OR (p.name = :afterKey AND p.id > :afterId))";
+            case PRICE_ASC:
+                return "(p.price > :afterKey OR (p.price = :afterKey AND p.id > :afterId))";
+            case PRICE_DESC:
+                return "(p.price < :afterKey OR (p.price = :afterKey AND p.id < :afterId))";
+            case DATE:
+                if (after.getDateKey() == null) {
+                    return "(p.createdAt IS NULL AND p.id < :afterId)";
+                }
+                return "(p.createdAt < :afterKey OR (p.createdAt = :afterKey AND p.id < :afterId)"
+                        + " OR p.createdAt IS NULL)";
+            case CATEGORY:
+                return "(c.id > :afterKey OR (c.id = :afterKey AND p.id > :afterId))";
+            default:
+                return "p.id > :afterId";
+        }
+    }
+
+    private String orderBy(ProductCursor.Sort sort) {
+        switch (sort) {
+            case NAME:
+                return "p.name ASC, p.id ASC";
+            case PRICE_ASC:
+                return "p.price ASC, p.id ASC";
+            case PRICE_DESC:
+                return "p.price DESC, p.id DESC";
+            case DATE:
+                return "p.createdAt DESC NULLS LAST, p.id DESC";
+            case CATEGORY:
+                return "c.id ASC, p.id ASC";
+            default:
+                return "p.id ASC";
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // 1 if this call rotated the token (0: already rotated, revoked or expired)
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.rotatedAt = :now WHERE t.tokenHash = :tokenHash " +
+           "AND t.rotatedAt IS NULL AND t.revokedAt IS NULL AND t.expiresAt > :now")
+    int markRotated(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.familyId = :familyId AND t.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revokedAt = :now WHERE t.userId = :userId AND t.revokedAt IS NULL")
+    int revokeAllForUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Expired tokens are useless; revoked ones only ever get refused
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now OR t.revokedAt IS NOT NULL")
+    int deleteExpiredOrRevoked(@Param("now") LocalDateTime now);
+}
@@ -4,10 +4,11 @@ import com.minimart.api.model.Stock;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface StockRepository extends JpaRepository<Stock, Integer> {
+public interface StockRepository extends JpaRepository<Stock, Integer>, StockRepositoryCustom {
     
     // Find stock by product ID
     Optional<Stock> findByProductId(Integer productId);
@@ -17,4 +18,7 @@ public interface StockRepository extends JpaRepository<Stock, Integer> {
     
     // Delete stock by product ID
     void deleteByProductId(Integer productId);
+    
+    // Current stock of several products in one query
+    List<Stock> findByProductIdIn(List<Integer> productIds);
 }
\ No newline at end of file
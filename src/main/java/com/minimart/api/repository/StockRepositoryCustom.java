@@ -0,0 +1,10 @@
+package com.minimart.api.repository;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StockRepositoryCustom {
+
+    // Conditionally deduct qty per product in one batch; returns product ids that did not have enough stock
+    List<Integer> deductAll(Map<Integer, Integer> qtyByProduct);
+}
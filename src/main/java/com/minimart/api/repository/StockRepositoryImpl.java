@@ -0,0 +1,83 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.model.Stock;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Set-based stock deduction.
+ *
+ * Every line is "UPDATE ... SET qty = qty - ? WHERE product_id = ? AND qty >= ?",
+ * so the check and the write are one atomic statement per row: two orders racing
+ * for the last units cannot both win. All lines go to the database as a single
+ * JDBC batch (one round trip per order) on the transaction's connection.
+ *
+ * The table name comes from the Stock mapping, and since the batch bypasses
+ * Hibernate, pending changes are flushed before it and the persistence context
+ * is cleared after it (Stock rows read afterwards are current).
+ */
+public class StockRepositoryImpl implements StockRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile String deductSql;
+
+    @Override
+    public List<Integer> deductAll(Map<Integer, Integer> qtyByProduct) {
+        // Same lock order for every order, so concurrent multi-line orders cannot deadlock
+        Map<Integer, Integer> ordered = new TreeMap<>(qtyByProduct);
+        if (ordered.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Session session = entityManager.unwrap(Session.class);
+        session.flush();
+        List<Integer> shortfalls = session.doReturningWork(connection -> {
+            List<Integer> shortIds = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(deductSql())) {
+                for (Map.Entry<Integer, Integer> line : ordered.entrySet()) {
+                    statement.setInt(1, line.getValue());
+                    statement.setInt(2, line.getKey());
+                    statement.setInt(3, line.getValue());
+                    statement.addBatch();
+                }
+
+                int[] updated = statement.executeBatch();
+
+                int i = 0;
+                for (Integer productId : ordered.keySet()) {
+                    // 0 rows: not enough stock (or no stock row at all)
+                    if (updated[i++] == 0) {
+                        shortIds.add(productId);
+                    }
+                }
+            }
+            return shortIds;
+        });
+        session.clear();
+        return shortfalls;
+    }
+
+    private String deductSql() {
+        if (deductSql == null) {
+            EntityPersister persister = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getMappingMetamodel()
+                    .getEntityDescriptor(Stock.class);
+            String table = ((AbstractEntityPersister) persister).getTableName();
+            deductSql = "UPDATE " + table + " SET qty = qty - ? WHERE product_id = ? AND qty >= ?";
+        }
+        return deductSql;
+    }
+}
@@ -142,6 +142,12 @@ public class CartService {
         return response;
     }
     
+    // Owner (user id) of a cart item
+    public Optional<Long> getCartOwnerId(Integer cartId) {
+        return cartRepository.findById(cartId)
+                .map(cart -> cart.getUser_id().longValue());
+    }
+    
     // Remove item from cart
     @Transactional
     public Map<String, Object> removeFromCart(Integer cartId) {
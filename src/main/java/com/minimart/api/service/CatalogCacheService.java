@@ -0,0 +1,211 @@
+package com.minimart.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.minimart.api.model.Category;
+import com.minimart.api.model.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache for catalog reads (products and categories).
+ *
+ * Bounded by estimated bytes, not entry count. Cached lists are stored as
+ * unmodifiable copies; the entities in them are shared by every caller and
+ * must be treated as read-only (updates go through the repositories).
+ * Writers invalidate the affected
+ * keys immediately and again after their transaction commits, so a concurrent
+ * reader cannot re-cache the pre-commit row.
+ *
+ * Keys:
+ *   product:{id}
+ *   products:all | products:page:...             (whole catalog lists / pages)
+ *   products:category:{categoryId}[:...]         (per-category lists / pages)
+ *   category:{id} | categories:...
+ */
+@Service
+public class CatalogCacheService {
+
+    @Value("${catalog.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${catalog.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private Cache<String, Object> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Object value) -> (int) Math.min(Integer.MAX_VALUE, estimateBytes(value) + key.length() * 2L))
+                // Safety net for rows edited outside the API
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        System.out.println("✅ Catalog cache ready (max " + maxBytes + " bytes, ttl " + ttlSeconds + "s)");
+    }
+
+    /**
+     * Get cached value or load it (loader runs at most once per key concurrently)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        return (T) cache.get(key, k -> unmodifiable(loader.get()));
+    }
+
+    // One caller sorting or trimming a cached list must not change what other threads see
+    private static Object unmodifiable(Object value) {
+        return value instanceof List<?> list ? List.copyOf(list) : value;
+    }
+
+    // ========== Keys ==========
+
+    public static String productKey(Integer productId) {
+        return "product:" + productId;
+    }
+
+    public static String productListKey(Integer categoryId, String variant) {
+        String base = categoryId == null ? "products:" : "products:category:" + categoryId + ":";
+        return base + variant;
+    }
+
+    public static String categoryKey(Integer categoryId) {
+        return "category:" + categoryId;
+    }
+
+    public static String categoryListKey(String variant) {
+        return "categories:" + variant;
+    }
+
+    // ========== Invalidation ==========
+
+    /**
+     * A product row (or its stock) changed.
+     * Drops the product itself, whole-catalog lists/pages and lists of the given categories.
+     * Pass both old and new category when a product moves.
+     */
+    public void invalidateProduct(Integer productId, Integer... categoryIds) {
+        Predicate<String> affected = key ->
+                key.equals(productKey(productId))
+                || (key.startsWith("products:") && !key.startsWith("products:category:"))
+                || matchesCategoryList(key, categoryIds);
+
+        invalidateNowAndAfterCommit(affected);
+    }
+
+    /**
+     * A category changed. Products embed their category, so every product entry goes too.
+     */
+    public void invalidateCategory(Integer categoryId) {
+        Predicate<String> affected = key ->
+                key.equals(categoryKey(categoryId))
+                || key.startsWith("categories:")
+                || key.startsWith("product");
+
+        invalidateNowAndAfterCommit(affected);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private boolean matchesCategoryList(String key, Integer... categoryIds) {
+        if (categoryIds == null) {
+            return false;
+        }
+        for (Integer categoryId : categoryIds) {
+            if (categoryId != null && key.startsWith("products:category:" + categoryId + ":")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void invalidateNowAndAfterCommit(Predicate<String> affected) {
+        invalidateMatching(affected);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateMatching(affected);
+                }
+            });
+        }
+    }
+
+    private void invalidateMatching(Predicate<String> affected) {
+        cache.asMap().keySet().removeIf(affected);
+    }
+
+    // ========== Stats ==========
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionBytes", stats.evictionWeight());
+        result.put("loadCount", stats.loadCount());
+        result.put("entries", cache.estimatedSize());
+        result.put("residentBytes", cache.policy().eviction()
+                .flatMap(eviction -> eviction.weightedSize().stream().boxed().findFirst())
+                .orElse(0L));
+        result.put("maxBytes", maxBytes);
+        return result;
+    }
+
+    // ========== Size estimation ==========
+
+    /**
+     * Rough heap footprint (object headers + fields + UTF-16 strings)
+     */
+    static long estimateBytes(Object value) {
+        if (value == null) {
+            return 16;
+        }
+        if (value instanceof Optional<?> optional) {
+            return 16 + optional.map(CatalogCacheService::estimateBytes).orElse(0L);
+        }
+        if (value instanceof Collection<?> collection) {
+            long bytes = 40 + collection.size() * 8L;
+            for (Object item : collection) {
+                bytes += estimateBytes(item);
+            }
+            return bytes;
+        }
+        if (value instanceof Product product) {
+            // Category is shared between products, count only its reference
+            return 160
+                    + stringBytes(product.getName())
+                    + stringBytes(product.getDetail())
+                    + stringBytes(product.getImage())
+                    + (product.getStock() != null ? 48 : 0);
+        }
+        if (value instanceof Category category) {
+            return 120 + stringBytes(category.getName()) + stringBytes(category.getImage());
+        }
+        return 64;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 40 + value.length() * 2L;
+    }
+}
@@ -19,24 +19,37 @@ public class CategoryService {
     @Autowired
     private FileStorageService fileStorageService;
     
+    @Autowired
+    private CatalogCacheService catalogCache;
+    
+    @Autowired
+    private ProductSearchService productSearchService;
+    
+    @Autowired
+    private ProductSuggestService productSuggestService;
+    
     // Get all categories
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return catalogCache.get(CatalogCacheService.categoryListKey("all"),
+                () -> categoryRepository.findAll());
     }
     
     // Get all categories ordered by name
     public List<Category> getAllCategoriesOrderedByName() {
-        return categoryRepository.findAllByOrderByNameAsc();
+        return catalogCache.get(CatalogCacheService.categoryListKey("name"),
+                () -> categoryRepository.findAllByOrderByNameAsc());
     }
     
     // Get all categories ordered by creation date
     public List<Category> getAllCategoriesOrderedByDate() {
-        return categoryRepository.findAllByOrderByCreatedAtDesc();
+        return catalogCache.get(CatalogCacheService.categoryListKey("date"),
+                () -> categoryRepository.findAllByOrderByCreatedAtDesc());
     }
     
     // Get category by ID
     public Optional<Category> getCategoryById(Integer id) {
-        return categoryRepository.findById(id);
+        return catalogCache.get(CatalogCacheService.categoryKey(id),
+                () -> categoryRepository.findById(id));
     }
     
     // Get category by name
@@ -58,7 +71,10 @@ public class CategoryService {
         if (categoryRepository.existsByName(category.getName())) {
             throw new RuntimeException("Category with name '" + category.getName() + "' already exists");
         }
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        catalogCache.invalidateCategory(savedCategory.getId());
+        productSuggestService.indexCategory(savedCategory);
+        return savedCategory;
     }
     
     // Update category
@@ -76,7 +92,11 @@ public class CategoryService {
         category.setName(categoryDetails.getName());
         category.setImage(categoryDetails.getImage());
         
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        catalogCache.invalidateCategory(id);
+        productSearchService.reindexCategory(id);
+        productSuggestService.indexCategory(savedCategory);
+        return savedCategory;
     }
     
     // Delete category
@@ -98,6 +118,8 @@ public class CategoryService {
         }
         
         categoryRepository.delete(category);
+        catalogCache.invalidateCategory(id);
+        productSuggestService.removeCategory(id);
     }
     
     // Check if category exists
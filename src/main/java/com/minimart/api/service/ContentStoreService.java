@@ -0,0 +1,277 @@
+package com.minimart.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.minimart.api.model.FileAlias;
+import com.minimart.api.model.FileBlob;
+import com.minimart.api.repository.FileAliasRepository;
+import com.minimart.api.repository.FileBlobRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed storage behind FileStorageService (file.storage.content-addressed).
+ *
+ * Bytes are stored once per SHA-256 under uploads/blobs/{first 2 hex}/{sha256}.{ext}
+ * (file_blob, reference counted). Every upload still gets its usual
+ * uploads/{folder}/{uuid}.{ext} path, but only as a file_alias row pointing at
+ * the blob, so URLs look and work exactly as before. Deleting an upload drops
+ * its alias; the blob goes when its last alias does.
+ *
+ * Paths without an alias (files stored before this mode) resolve to themselves.
+ * Reference changes for one hash are serialized in-process (lock striping),
+ * which is enough for the single API instance this runs as.
+ */
+@Service
+public class ContentStoreService {
+
+    /**
+     * Where an upload's bytes ended up, and whether they were new
+     */
+    public record Stored(Path blob, boolean created) {
+    }
+
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private FileBlobRepository blobRepository;
+
+    @Autowired
+    private FileAliasRepository aliasRepository;
+
+    @Autowired
+    private FileETagService fileETagService;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private HotImageCache hotImageCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${file.storage.content-addressed:true}")
+    private boolean enabled;
+
+    @Value("${file.upload.blobs:uploads/blobs}")
+    private String blobDir;
+
+    @Value("${file.storage.alias-cache-entries:50000}")
+    private long aliasCacheEntries;
+
+    private Path blobRoot;
+    private Path workingDir;
+    private TransactionTemplate transactionTemplate;
+
+    // Upload path -> blob path (empty = no alias, serve the path itself)
+    private Cache<String, Optional<Path>> aliases;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        blobRoot = Paths.get(blobDir).toAbsolutePath().normalize();
+        workingDir = Paths.get("").toAbsolutePath();
+        // Reference changes commit on their own, while the hash's stripe lock is held
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        aliases = Caffeine.newBuilder()
+                .maximumSize(aliasCacheEntries)
+                .build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        if (enabled) {
+            System.out.println("✅ Content-addressed file storage: " + blobRoot);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * File holding the bytes of an upload path (the blob if aliased, else the path itself)
+     */
+    public Path resolve(Path uploadPath) {
+        if (!enabled) {
+            return uploadPath;
+        }
+        return aliases.get(key(uploadPath), key -> aliasRepository.findBlobByPath(key)
+                        .map(blob -> blobPath(blob.getSha256(), blob.getExtension())))
+                .orElse(uploadPath);
+    }
+
+    /**
+     * Store an upload under uploadPath (as an alias), writing its bytes only if they are new
+     */
+    public Stored store(InputStream content, String extension, Path uploadPath) throws IOException {
+        Files.createDirectories(blobRoot);
+        Path temp = Files.createTempFile(blobRoot, "upload-", ".tmp");
+        try {
+            MessageDigest digest = FileETagService.newDigest();
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            byte[] sha = digest.digest();
+            String sha256 = HexFormat.of().formatHex(sha);
+            long size = Files.size(temp);
+            String key = key(uploadPath);
+
+            synchronized (lock(sha256)) {
+                FileBlob existing = blobRepository.findById(sha256).orElse(null);
+                Path blob = existing != null
+                        ? blobPath(sha256, existing.getExtension())
+                        : blobPath(sha256, extension.toLowerCase());
+
+                Boolean created = transactionTemplate.execute(status -> {
+                    boolean isNew = blobRepository.addReference(sha256) == 0;
+                    if (isNew) {
+                        blobRepository.save(new FileBlob(sha256, extension.toLowerCase(), size));
+                    }
+                    aliasRepository.save(new FileAlias(key, sha256));
+                    return isNew;
+                });
+
+                // Also repairs a blob row whose bytes went missing
+                if (Boolean.TRUE.equals(created) || !Files.exists(blob)) {
+                    Files.createDirectories(blob.getParent());
+                    Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    fileETagService.put(blob, sha);
+                } else {
+                    deduplicated.incrementAndGet();
+                    bytesSaved.addAndGet(size);
+                    System.out.println("♻️ Upload deduplicated: " + key + " -> " + blob.getFileName());
+                }
+                aliases.put(key, Optional.of(blob));
+                return new Stored(blob, Boolean.TRUE.equals(created));
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Drop the alias at uploadPath and the blob if that was its last reference.
+     * Inside a transaction this happens only once it commits, so a rollback
+     * never leaves rows pointing at deleted bytes.
+     * False if the path has no alias (a file stored before this mode).
+     */
+    public boolean release(Path uploadPath) {
+        if (!enabled) {
+            return false;
+        }
+        String key = key(uploadPath);
+        FileAlias alias = aliasRepository.findById(key).orElse(null);
+        if (alias == null) {
+            return false;
+        }
+
+        String sha256 = alias.getSha256();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseAlias(key, sha256);
+                }
+            });
+        } else {
+            releaseAlias(key, sha256);
+        }
+        return true;
+    }
+
+    private void releaseAlias(String key, String sha256) {
+        synchronized (lock(sha256)) {
+            FileBlob blob = blobRepository.findById(sha256).orElse(null);
+            Boolean lastReference = transactionTemplate.execute(status -> {
+                if (aliasRepository.existsById(key)) {
+                    aliasRepository.deleteById(key);
+                    blobRepository.removeReference(sha256);
+                }
+                return blobRepository.deleteIfUnreferenced(sha256) == 1;
+            });
+            aliases.invalidate(key);
+
+            if (Boolean.TRUE.equals(lastReference) && blob != null) {
+                Path blobFile = blobPath(sha256, blob.getExtension());
+                try {
+                    Files.deleteIfExists(blobFile);
+                    System.out.println("✅ Blob deleted (last reference): " + blobFile.getFileName());
+                } catch (IOException e) {
+                    System.err.println("❌ Error deleting blob " + blobFile + ": " + e.getMessage());
+                }
+                fileETagService.invalidate(blobFile);
+                imageVariantService.deleteVariants(blobFile);
+                hotImageCache.invalidate(blobFile);
+            }
+        }
+    }
+
+    /**
+     * Move a file stored before this mode into the blob store, keeping its path as an alias
+     */
+    public boolean adopt(Path legacyFile) throws IOException {
+        String key = key(legacyFile);
+        if (aliasRepository.existsById(key)) {
+            return false;
+        }
+
+        String name = legacyFile.getFileName().toString();
+        String extension = name.contains(".") ? name.substring(name.lastIndexOf('.') + 1) : "";
+        try (InputStream in = Files.newInputStream(legacyFile)) {
+            store(in, extension, legacyFile);
+        }
+        Files.delete(legacyFile);
+        imageVariantService.deleteVariants(legacyFile);
+        return true;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("deduplicatedUploads", deduplicated.get());
+        stats.put("bytesSaved", bytesSaved.get());
+        stats.put("aliasCacheEntries", aliases.estimatedSize());
+        return stats;
+    }
+
+    Path blobPath(String sha256, String extension) {
+        String name = extension.isEmpty() ? sha256 : sha256 + "." + extension;
+        return blobRoot.resolve(sha256.substring(0, 2)).resolve(name);
+    }
+
+    // Alias key: upload path relative to the working directory, '/' separated (uploads/category/x.png)
+    private String key(Path uploadPath) {
+        return workingDir.relativize(uploadPath.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    private Object lock(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+}
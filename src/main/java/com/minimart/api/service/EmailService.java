@@ -1,33 +1,27 @@
 package com.minimart.api.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+/**
+ * Builds the account emails and hands them to the mail queue; delivery
+ * (and retrying) happens in the background, see MailQueueService.
+ */
 @Service
 public class EmailService {
 
     @Autowired
-    private JavaMailSender mailSender;
-
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private MailQueueService mailQueueService;
 
+    /**
+     * Returns false only if the mail could not be queued
+     */
     public boolean sendOtpEmail(String toEmail, String otpCode) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Mini Mart - Your OTP Verification Code");
-            message.setText(buildOtpEmailBody(otpCode));
-
-            mailSender.send(message);
-            System.out.println("OTP email sent successfully to: " + toEmail);
+            mailQueueService.enqueue(toEmail, "Mini Mart - Your OTP Verification Code", buildOtpEmailBody(otpCode));
             return true;
         } catch (Exception e) {
-            System.err.println("Failed to send email to " + toEmail + ": " + e.getMessage());
+            System.err.println("Failed to queue email to " + toEmail + ": " + e.getMessage());
             e.printStackTrace();
             return false;
         }
@@ -35,17 +29,10 @@ public class EmailService {
 
     public boolean sendPasswordResetOtpEmail(String toEmail, String otpCode) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Mini Mart - Password Reset OTP");
-            message.setText(buildPasswordResetEmailBody(otpCode));
-
-            mailSender.send(message);
-            System.out.println("Password reset OTP email sent successfully to: " + toEmail);
+            mailQueueService.enqueue(toEmail, "Mini Mart - Password Reset OTP", buildPasswordResetEmailBody(otpCode));
             return true;
         } catch (Exception e) {
-            System.err.println("Failed to send password reset email to " + toEmail + ": " + e.getMessage());
+            System.err.println("Failed to queue password reset email to " + toEmail + ": " + e.getMessage());
             e.printStackTrace();
             return false;
         }
@@ -70,4 +57,4 @@ public class EmailService {
                 "Best regards,\n" +
                 "Mini Mart Team";
     }
-}
\ No newline at end of file
+}
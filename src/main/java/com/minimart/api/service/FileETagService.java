@@ -0,0 +1,115 @@
+package com.minimart.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Strong ETags for uploaded files: the first 128 bits of the SHA-256 of the content.
+ *
+ * Hashes are cached per absolute path together with the size and mtime they
+ * were computed for, so a conditional GET is answered from one stat without
+ * opening the file. FileStorageService primes the entry while storing an
+ * upload and drops it on delete.
+ */
+@Service
+public class FileETagService {
+
+    private record Entry(String etag, long size, long lastModified) {
+    }
+
+    @Value("${file.etag.cache-entries:20000}")
+    private long maxEntries;
+
+    private Cache<Path, Entry> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * ETag (quoted) of a file with the given size and mtime, hashing it only on a cache miss
+     */
+    public String getETag(Path file, long size, long lastModified) throws IOException {
+        Entry entry = cache.getIfPresent(file);
+        if (entry != null && entry.size() == size && entry.lastModified() == lastModified) {
+            return entry.etag();
+        }
+
+        MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        String etag = toETag(digest.digest());
+        cache.put(file, new Entry(etag, size, lastModified));
+        return etag;
+    }
+
+    /**
+     * Same as getETag, hashing the given contents (already read) on a cache miss
+     */
+    public String getETag(Path file, long size, long lastModified, byte[] content) {
+        Entry entry = cache.getIfPresent(file);
+        if (entry != null && entry.size() == size && entry.lastModified() == lastModified) {
+            return entry.etag();
+        }
+        String etag = toETag(newDigest().digest(content));
+        cache.put(file, new Entry(etag, size, lastModified));
+        return etag;
+    }
+
+    /**
+     * Remember the hash of a file that was just written
+     */
+    public void put(Path file, byte[] sha256) {
+        try {
+            cache.put(file, new Entry(toETag(sha256), Files.size(file),
+                    Files.getLastModifiedTime(file).toMillis()));
+        } catch (IOException e) {
+            cache.invalidate(file);
+        }
+    }
+
+    public void invalidate(Path file) {
+        cache.invalidate(file);
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", cache.estimatedSize());
+        stats.put("hitRate", cache.stats().hitRate());
+        return stats;
+    }
+
+    private static String toETag(byte[] sha256) {
+        return "\"" + HexFormat.of().formatHex(sha256, 0, 16) + "\"";
+    }
+}
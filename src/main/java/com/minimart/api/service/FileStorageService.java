@@ -4,18 +4,25 @@ import com.minimart.api.config.FileStorageProperties;
 import com.minimart.api.exception.FileStorageException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 public class FileStorageService {
@@ -38,6 +45,26 @@ public class FileStorageService {
     @Value("${file.upload.advertising:uploads/advertising}")
     private String advertisingUploadDir;
     
+    @Autowired
+    private FileETagService fileETagService;
+    
+    @Autowired
+    private ImageVariantService imageVariantService;
+    
+    @Autowired
+    private HotImageCache hotImageCache;
+    
+    @Autowired
+    private ContentStoreService contentStoreService;
+    
+    @Value("${file.storage.migrate-legacy:false}")
+    private boolean migrateLegacy;
+    
+    // Product images are keyed by file name only, so products can change category without touching files
+    public static final String PRODUCT_IMAGE_URL = "/api/files/product/";
+    
+    private static final String LEGACY_PRODUCT_IMAGE_URL = "/api/files/products/";
+    
     private static final List<String> ALLOWED_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "gif", "webp");
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
 
@@ -101,7 +128,12 @@ public class FileStorageService {
 
             // Copy file to storage location
             Path targetLocation = uploadPath.resolve(newFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            Path written = writeUpload(file, fileExtension, targetLocation);
+            
+            // Payment screenshots are private and never shown in lists: no resized copies
+            if (written != null && !"payment".equalsIgnoreCase(directoryType)) {
+                imageVariantService.generateAsync(written);
+            }
 
             System.out.println("✅ File stored successfully: " + targetLocation);
             return newFileName;
@@ -112,7 +144,7 @@ public class FileStorageService {
     }
 
     /**
-     * Store uploaded file in category subfolder (for products)
+     * Store uploaded file in category subfolder (older product image layout, see storeProductImage)
      * Saves to: uploads/products/{categoryName}/{filename}
      * @param file - the file to upload
      * @param categoryName - category name to create subfolder
@@ -157,7 +189,10 @@ public class FileStorageService {
 
             // Copy file to storage location
             Path targetLocation = uploadPath.resolve(newFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            Path written = writeUpload(file, fileExtension, targetLocation);
+            if (written != null) {
+                imageVariantService.generateAsync(written);
+            }
 
             System.out.println("✅ File stored successfully in category folder: " + targetLocation);
             return newFileName;
@@ -181,7 +216,15 @@ public class FileStorageService {
         try {
             Path uploadPath = getUploadPath(directoryType);
             Path filePath = uploadPath.resolve(fileName).normalize();
+            if (contentStoreService.release(filePath)) {
+                System.out.println("✅ File deleted: " + filePath);
+                return;
+            }
+            
             boolean deleted = Files.deleteIfExists(filePath);
+            fileETagService.invalidate(filePath);
+            imageVariantService.deleteVariants(filePath);
+            hotImageCache.invalidate(filePath);
             
             if (deleted) {
                 System.out.println("✅ File deleted: " + filePath);
@@ -209,7 +252,15 @@ public class FileStorageService {
                     .normalize();
                     
             Path filePath = uploadPath.resolve(fileName).normalize();
+            if (contentStoreService.release(filePath)) {
+                System.out.println("✅ File deleted from category folder: " + filePath);
+                return;
+            }
+            
             boolean deleted = Files.deleteIfExists(filePath);
+            fileETagService.invalidate(filePath);
+            imageVariantService.deleteVariants(filePath);
+            hotImageCache.invalidate(filePath);
             
             if (deleted) {
                 System.out.println("✅ File deleted from category folder: " + filePath);
@@ -231,6 +282,84 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Store a product image under its category-independent key
+     * Saves to: uploads/products/{filename}, served at PRODUCT_IMAGE_URL + filename
+     * @return image URL (relative)
+     */
+    public String storeProductImage(MultipartFile file) {
+        return PRODUCT_IMAGE_URL + storeFile(file, "product");
+    }
+    
+    /**
+     * Delete a product image by its URL.
+     * Older images (/api/files/products/{category}/{filename}) are found in the folder
+     * named in the URL, not the product's current category.
+     */
+    public void deleteProductImage(String imageUrl) {
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            return;
+        }
+        
+        int start = imageUrl.indexOf(PRODUCT_IMAGE_URL);
+        if (start >= 0) {
+            deleteFile(imageUrl.substring(start + PRODUCT_IMAGE_URL.length()), "product");
+            return;
+        }
+        
+        start = imageUrl.indexOf(LEGACY_PRODUCT_IMAGE_URL);
+        String[] parts = start >= 0
+                ? imageUrl.substring(start + LEGACY_PRODUCT_IMAGE_URL.length()).split("/")
+                : new String[0];
+        if (parts.length == 2 && !parts[0].isEmpty() && !parts[1].isEmpty()) {
+            deleteFileInCategoryFolder(parts[1], parts[0]);
+        } else {
+            System.out.println("⚠️ Not a product image URL: " + imageUrl);
+        }
+    }
+
+    /**
+     * Path of a file served at /api/files/{folder}/{filename}.
+     * Known types map to their configured directory, anything else to uploads/{folder}.
+     * Returns null if the name tries to escape the folder.
+     */
+    public Path resolveServedFile(String folder, String fileName) {
+        Path base = getUploadPath(folder);
+        if (base.equals(fileStorageLocation)) {
+            base = fileStorageLocation.resolve(folder).normalize();
+            if (!base.startsWith(fileStorageLocation)) {
+                return null;
+            }
+        }
+        return stored(resolveInside(base, fileName));
+    }
+
+    /**
+     * Path of a file served at /api/files/products/{category}/{filename} (null if invalid)
+     */
+    public Path resolveProductFile(String categoryFolder, String fileName) {
+        Path productRoot = Paths.get(productUploadDir).toAbsolutePath().normalize();
+        Path base = productRoot.resolve(categoryFolder).normalize();
+        return base.startsWith(productRoot) ? stored(resolveInside(base, fileName)) : null;
+    }
+
+    /**
+     * File holding the bytes of an upload stored with storeFile(file, directoryType)
+     */
+    public Path resolveStoredFile(String directoryType, String fileName) {
+        return contentStoreService.resolve(getUploadPath(directoryType).resolve(fileName).normalize());
+    }
+
+    // Deduplicated uploads live in the blob store under an alias
+    private Path stored(Path uploadPath) {
+        return uploadPath == null ? null : contentStoreService.resolve(uploadPath);
+    }
+
+    private Path resolveInside(Path base, String fileName) {
+        Path filePath = base.resolve(fileName).normalize();
+        return filePath.getParent() != null && filePath.getParent().equals(base) ? filePath : null;
+    }
+
     /**
      * Get file storage location for specific directory type
      */
@@ -277,6 +406,72 @@ public class FileStorageService {
         return Paths.get(uploadDir).toAbsolutePath().normalize();
     }
 
+    /**
+     * Copy the upload to disk, hashing it on the way so its ETag is known before the first GET.
+     * Returns the file now holding the bytes, or null when content-addressed storage
+     * already had them (nothing new to post-process).
+     */
+    private Path writeUpload(MultipartFile file, String fileExtension, Path targetLocation) throws IOException {
+        if (contentStoreService.isEnabled()) {
+            ContentStoreService.Stored stored = contentStoreService.store(
+                    file.getInputStream(), fileExtension, targetLocation);
+            return stored.created() ? stored.blob() : null;
+        }
+        
+        MessageDigest digest = FileETagService.newDigest();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+        }
+        fileETagService.put(targetLocation, digest.digest());
+        hotImageCache.invalidate(targetLocation);
+        return targetLocation;
+    }
+
+    /**
+     * file.storage.migrate-legacy: move files stored before content-addressed mode
+     * into the blob store (duplicates collapse), keeping their URLs as aliases
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyFiles() {
+        if (!migrateLegacy || !contentStoreService.isEnabled()) {
+            return;
+        }
+        
+        List<Path> folders = new ArrayList<>();
+        folders.add(fileStorageLocation);
+        for (String type : List.of("profile", "category", "product", "payment", "advertising")) {
+            folders.add(getUploadPath(type));
+        }
+        Path productRoot = Paths.get(productUploadDir).toAbsolutePath().normalize();
+        try (Stream<Path> categories = Files.list(productRoot)) {
+            categories.filter(Files::isDirectory)
+                    .filter(dir -> !dir.getFileName().toString().startsWith("."))
+                    .forEach(folders::add);
+        } catch (IOException e) {
+            // No product images yet
+        }
+        
+        int migrated = 0;
+        for (Path folder : folders) {
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(folder)) {
+                files = listing.filter(Files::isRegularFile).toList();
+            } catch (IOException e) {
+                continue;
+            }
+            for (Path file : files) {
+                try {
+                    if (contentStoreService.adopt(file)) {
+                        migrated++;
+                    }
+                } catch (IOException e) {
+                    System.err.println("⚠️ Could not migrate " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("✅ Migrated " + migrated + " legacy upload(s) to content-addressed storage");
+    }
+
     /**
      * Sanitize folder name (replace special characters)
      */
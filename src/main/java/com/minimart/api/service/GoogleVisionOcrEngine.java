@@ -0,0 +1,145 @@
+package com.minimart.api.service;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.vision.v1.*;
+import com.google.protobuf.ByteString;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Google Cloud Vision TEXT_DETECTION (ocr.engine=google).
+ *
+ * The client is created on first use, so the app starts (and serves
+ * everything else) without credentials or network access to Google.
+ * Screenshots go through the ScreenshotPreprocessor (when given) before upload.
+ */
+public class GoogleVisionOcrEngine implements OcrEngine, Closeable {
+
+    // Vision limit on images per batchAnnotateImages request
+    public static final int MAX_BATCH_SIZE = 16;
+
+    private final String credentialsPath;
+
+    // null = send the upload as is
+    private final ScreenshotPreprocessor preprocessor;
+
+    private volatile ImageAnnotatorClient visionClient;
+
+    public GoogleVisionOcrEngine(String credentialsPath) {
+        this(credentialsPath, null);
+    }
+
+    public GoogleVisionOcrEngine(String credentialsPath, ScreenshotPreprocessor preprocessor) {
+        this.credentialsPath = credentialsPath;
+        this.preprocessor = preprocessor;
+    }
+
+    @Override
+    public String extractText(File imageFile) throws IOException {
+        Result result = extractTexts(List.of(imageFile)).get(0);
+        if (result.error() != null) {
+            throw result.error();
+        }
+        return result.text();
+    }
+
+    /**
+     * One batchAnnotateImages call for all files (Vision accepts up to MAX_BATCH_SIZE images)
+     */
+    @Override
+    public List<Result> extractTexts(List<File> imageFiles) throws IOException {
+        if (imageFiles.size() > MAX_BATCH_SIZE) {
+            throw new IOException("Google Vision accepts at most " + MAX_BATCH_SIZE + " images per call");
+        }
+
+        List<AnnotateImageRequest> requests = new ArrayList<>(imageFiles.size());
+        for (File imageFile : imageFiles) {
+            System.out.println("📄 Reading image with Google Cloud Vision: " + imageFile.getName()
+                    + " (" + imageFile.length() + " bytes)");
+            requests.add(AnnotateImageRequest.newBuilder()
+                    .addFeatures(Feature.newBuilder().setType(Feature.Type.TEXT_DETECTION).build())
+                    .setImage(Image.newBuilder().setContent(readImage(imageFile)).build())
+                    .build());
+        }
+
+        BatchAnnotateImagesResponse response = client().batchAnnotateImages(requests);
+
+        // Responses come back in request order
+        List<Result> results = new ArrayList<>(imageFiles.size());
+        for (AnnotateImageResponse res : response.getResponsesList()) {
+            if (res.hasError()) {
+                results.add(new Result(null, new IOException("Google Vision API Error: " + res.getError().getMessage())));
+            } else if (res.getTextAnnotationsCount() > 0) {
+                // The first EntityAnnotation contains the entire detected text
+                results.add(new Result(res.getTextAnnotations(0).getDescription().trim(), null));
+            } else {
+                results.add(new Result("", null));
+            }
+        }
+        if (results.size() != imageFiles.size()) {
+            throw new IOException("Google Vision returned " + results.size() + " responses for "
+                    + imageFiles.size() + " images");
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        if (visionClient != null) {
+            visionClient.close();
+            System.out.println("✅ Google Cloud Vision client closed");
+        }
+    }
+
+    private ByteString readImage(File imageFile) throws IOException {
+        if (preprocessor != null) {
+            return ByteString.copyFrom(preprocessor.process(Files.readAllBytes(imageFile.toPath())));
+        }
+        try (InputStream in = new FileInputStream(imageFile)) {
+            return ByteString.readFrom(in);
+        }
+    }
+
+    private ImageAnnotatorClient client() throws IOException {
+        ImageAnnotatorClient client = visionClient;
+        if (client != null) {
+            return client;
+        }
+        synchronized (this) {
+            if (visionClient == null) {
+                visionClient = createClient();
+            }
+            return visionClient;
+        }
+    }
+
+    private ImageAnnotatorClient createClient() throws IOException {
+        System.out.println("🔧 Initializing Google Cloud Vision (credentials: " + credentialsPath + ")");
+
+        File credentialsFile = new File(credentialsPath);
+        if (!credentialsFile.exists()) {
+            throw new IOException("Credentials file not found: " + credentialsPath);
+        }
+
+        GoogleCredentials credentials;
+        try (InputStream in = new FileInputStream(credentialsFile)) {
+            credentials = GoogleCredentials.fromStream(in)
+                    .createScoped(List.of("https://www.googleapis.com/auth/cloud-vision"));
+        }
+
+        ImageAnnotatorSettings settings = ImageAnnotatorSettings.newBuilder()
+                .setCredentialsProvider(() -> credentials)
+                .build();
+
+        ImageAnnotatorClient client = ImageAnnotatorClient.create(settings);
+        System.out.println("✅ Google Cloud Vision initialized successfully!");
+        return client;
+    }
+}
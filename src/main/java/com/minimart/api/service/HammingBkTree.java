@@ -0,0 +1,110 @@
+package com.minimart.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * BK-tree over 64-bit perceptual hashes (Hamming distance).
+ *
+ * Each child edge is labelled with its distance to the parent, and the
+ * triangle inequality prunes every subtree outside [d - radius, d + radius].
+ * A radius-6 lookup touches a small fraction of the nodes even with hundreds
+ * of thousands of hashes.
+ */
+public class HammingBkTree {
+
+    /**
+     * One stored hash within the searched radius
+     */
+    public record Match(long hash, long id, int distance) {
+    }
+
+    private static final class Node {
+        final long hash;
+        final long id;
+        // Indexed by distance to this node (0..64)
+        Node[] children;
+
+        Node(long hash, long id) {
+            this.hash = hash;
+            this.id = id;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void add(long hash, long id) {
+        lock.writeLock().lock();
+        try {
+            size++;
+            if (root == null) {
+                root = new Node(hash, id);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (node.children == null) {
+                    node.children = new Node[65];
+                }
+                Node child = node.children[distance];
+                if (child == null) {
+                    node.children[distance] = new Node(hash, id);
+                    return;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * All stored hashes within maxDistance, closest first
+     */
+    public List<Match> search(long hash, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (root == null) {
+                return matches;
+            }
+            List<Node> pending = new ArrayList<>();
+            pending.add(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.remove(pending.size() - 1);
+                int distance = PerceptualHash.distance(hash, node.hash);
+                if (distance <= maxDistance) {
+                    matches.add(new Match(node.hash, node.id, distance));
+                }
+                if (node.children == null) {
+                    continue;
+                }
+                int from = Math.max(0, distance - maxDistance);
+                int to = Math.min(64, distance + maxDistance);
+                for (int d = from; d <= to; d++) {
+                    if (node.children[d] != null) {
+                        pending.add(node.children[d]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort((a, b) -> Integer.compare(a.distance(), b.distance()));
+        return matches;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
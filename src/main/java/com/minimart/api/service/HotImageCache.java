@@ -0,0 +1,125 @@
+package com.minimart.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contents of the images every home screen loads (ad banners, category icons),
+ * held in memory so a hit touches neither the disk nor the file system metadata.
+ *
+ * Caffeine (W-TinyLFU) bounded by total bytes; single files above
+ * file.hot-cache.max-entry-bytes are never cached. Keyed by original path plus
+ * variant width (0 = original). FileStorageService invalidates on upload and
+ * delete; the TTL only covers files changed outside the API.
+ */
+@Service
+public class HotImageCache {
+
+    /**
+     * Cached file: bytes plus the validators sent with them
+     */
+    public record Entry(byte[] content, long lastModified, String etag) {
+    }
+
+    private record Key(Path original, int width) {
+    }
+
+    // Rough per-entry overhead (key, record, array header) added to the weight
+    private static final int ENTRY_OVERHEAD = 256;
+
+    @Autowired
+    private FileETagService fileETagService;
+
+    @Value("${file.hot-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${file.hot-cache.max-entry-bytes:1048576}")
+    private long maxEntryBytes;
+
+    @Value("${file.hot-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private Cache<Key, Entry> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry entry) -> entry.content().length + ENTRY_OVERHEAD)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        System.out.println("✅ Hot image cache ready (max " + maxBytes + " bytes)");
+    }
+
+    /**
+     * Cached contents of original (width 0) or one of its variants, or null
+     */
+    public Entry get(Path original, int width) {
+        return cache.getIfPresent(new Key(original, width));
+    }
+
+    /**
+     * Read file (the original or the variant chosen for width) into the cache.
+     * Null when it does not exist or is too large to cache.
+     */
+    public Entry load(Path original, int width, Path file) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            return null;
+        }
+        if (!attributes.isRegularFile() || attributes.size() > maxEntryBytes) {
+            return null;
+        }
+
+        byte[] content = Files.readAllBytes(file);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Entry entry = new Entry(content, lastModified,
+                fileETagService.getETag(file, content.length, lastModified, content));
+        cache.put(new Key(original, width), entry);
+        return entry;
+    }
+
+    /**
+     * Drop an original and all its variants
+     */
+    public void invalidate(Path original) {
+        cache.invalidate(new Key(original, 0));
+        for (int width : ImageVariantService.WIDTHS) {
+            cache.invalidate(new Key(original, width));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        cache.cleanUp();  // apply pending evictions so residentBytes is current
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new HashMap<>();
+        map.put("entries", cache.estimatedSize());
+        map.put("residentBytes", cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        map.put("maxBytes", maxBytes);
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRatio", stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        return map;
+    }
+}
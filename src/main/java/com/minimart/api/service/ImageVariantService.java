@@ -0,0 +1,265 @@
+package com.minimart.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.imgscalr.Scalr;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Downscaled copies of uploaded images at fixed widths, served via ?w=.
+ *
+ * Variants live next to the original under .variants/{width}/{filename}.
+ * They are generated in the background right after an upload, and on demand
+ * (then kept on disk) for files uploaded before this existed. A requested
+ * width is rounded up to the next fixed width; originals that are already
+ * narrower are served as is, never upscaled. GIF (may be animated) and WebP
+ * (no ImageIO writer) always fall back to the original.
+ *
+ * Originals found too narrow are remembered with their mtime, so repeat
+ * requests for them cost one stat instead of a header read each time.
+ */
+@Service
+public class ImageVariantService {
+
+    public static final int[] WIDTHS = {128, 256, 512, 1024};
+
+    private static final String VARIANT_DIR = ".variants";
+    private static final float JPEG_QUALITY = 0.82f;
+    private static final long MAX_NARROW_ENTRIES = 10_000;
+
+    // Width of an original as of its mtime; a changed file no longer matches
+    private record Narrow(long lastModified, int width) {
+    }
+
+    @Autowired
+    private FileETagService fileETagService;
+
+    @Value("${file.variants.enabled:true}")
+    private boolean enabled;
+
+    private final ExecutorService generator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-variants");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Cache<Path, Narrow> narrowOriginals = Caffeine.newBuilder()
+            .maximumSize(MAX_NARROW_ENTRIES)
+            .build();
+
+    @PreDestroy
+    public void shutdown() {
+        generator.shutdownNow();
+    }
+
+    /**
+     * File to serve for ?w={width}: the matching variant (generated if missing) or the original
+     */
+    public Path resolve(Path original, int width) {
+        int target = snapWidth(width);
+        if (!enabled || target < 0 || formatOf(original) == null) {
+            return original;
+        }
+
+        if (isKnownNarrow(original, target)) {
+            return original;
+        }
+
+        Path variant = variantPath(original, target);
+        if (Files.exists(variant)) {
+            return variant;
+        }
+        if (!Files.isRegularFile(original)) {
+            return original;  // caller answers 404
+        }
+        try {
+            return generate(original, target) ? variant : original;
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not create " + target + "px variant of " + original.getFileName()
+                    + ": " + e.getMessage());
+            return original;
+        }
+    }
+
+    /**
+     * Create all variants of a fresh upload off the request thread
+     */
+    public void generateAsync(Path original) {
+        if (!enabled || formatOf(original) == null) {
+            return;
+        }
+        generator.execute(() -> {
+            for (int width : WIDTHS) {
+                try {
+                    if (!generate(original, width)) {
+                        break;  // original is narrower than this and every larger width
+                    }
+                } catch (IOException e) {
+                    System.err.println("⚠️ Variant generation failed for " + original.getFileName()
+                            + ": " + e.getMessage());
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove the variants of a deleted original
+     */
+    public void deleteVariants(Path original) {
+        for (int width : WIDTHS) {
+            Path variant = variantPath(original, width);
+            try {
+                Files.deleteIfExists(variant);
+            } catch (IOException e) {
+                System.err.println("⚠️ Failed to delete variant " + variant + ": " + e.getMessage());
+            }
+            fileETagService.invalidate(variant);
+        }
+        narrowOriginals.invalidate(original);
+
+        // Leave no empty .variants folders behind (lets empty category folders be removed)
+        Path variantRoot = original.resolveSibling(VARIANT_DIR);
+        for (int width : WIDTHS) {
+            deleteIfEmpty(variantRoot.resolve(String.valueOf(width)));
+        }
+        deleteIfEmpty(variantRoot);
+    }
+
+    private boolean isKnownNarrow(Path original, int width) {
+        Narrow narrow = narrowOriginals.getIfPresent(original);
+        if (narrow == null || narrow.width() > width) {
+            return false;
+        }
+        try {
+            if (Files.getLastModifiedTime(original).toMillis() == narrow.lastModified()) {
+                return true;
+            }
+        } catch (IOException e) {
+            // Gone: let the normal path answer
+        }
+        narrowOriginals.invalidate(original);
+        return false;
+    }
+
+    private static void deleteIfEmpty(Path dir) {
+        try {
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            // Not empty: other originals still have variants here
+        }
+    }
+
+    /**
+     * Smallest fixed width >= requested, or -1 when the request is wider than all of them
+     */
+    public static int snapWidth(int requested) {
+        for (int width : WIDTHS) {
+            if (requested <= width) {
+                return width;
+            }
+        }
+        return -1;
+    }
+
+    static Path variantPath(Path original, int width) {
+        return original.resolveSibling(VARIANT_DIR).resolve(String.valueOf(width)).resolve(original.getFileName());
+    }
+
+    /**
+     * Write the variant. False (nothing written) when the original is not wider than width.
+     */
+    boolean generate(Path original, int width) throws IOException {
+        long lastModified = Files.getLastModifiedTime(original).toMillis();
+        int originalWidth = imageWidth(original);
+        if (originalWidth <= width) {
+            narrowOriginals.put(original, new Narrow(lastModified, originalWidth));
+            return false;
+        }
+
+        BufferedImage source = ImageIO.read(original.toFile());
+        if (source == null) {
+            return false;
+        }
+        BufferedImage scaled = Scalr.resize(source, Scalr.Method.QUALITY, Scalr.Mode.FIT_TO_WIDTH, width);
+
+        Path variant = variantPath(original, width);
+        Files.createDirectories(variant.getParent());
+        Path temp = Files.createTempFile(variant.getParent(), "variant-", ".tmp");
+        try {
+            write(scaled, formatOf(original), temp);
+            // Concurrent generators race harmlessly: both write identical bytes, last move wins
+            Files.move(temp, variant, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    // Header-only read: no pixel decoding just to learn the width
+    private static int imageWidth(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return 0;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return reader.getWidth(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        if (!"jpeg".equals(format)) {
+            ImageIO.write(image, format, target.toFile());
+            return;
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // ImageIO format for files we can re-encode, null otherwise
+    private static String formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+            return "jpeg";
+        }
+        if (name.endsWith(".png")) {
+            return "png";
+        }
+        return null;
+    }
+}
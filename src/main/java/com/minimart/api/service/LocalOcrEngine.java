@@ -0,0 +1,41 @@
+package com.minimart.api.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Offline OCR stand-in for development and tests (ocr.engine=local).
+ *
+ * Deterministic: returns the contents of a "<image>.txt" sidecar next to the
+ * screenshot if there is one, otherwise the file itself when it is plain UTF-8
+ * text (so a test can simply upload the receipt text as the "screenshot").
+ * Anything else reads as "no text".
+ */
+public class LocalOcrEngine implements OcrEngine {
+
+    @Override
+    public String extractText(File imageFile) throws IOException {
+        File sidecar = new File(imageFile.getPath() + ".txt");
+        byte[] bytes = Files.readAllBytes(sidecar.exists() ? sidecar.toPath() : imageFile.toPath());
+
+        String text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes))
+                    .toString()
+                    .trim();
+        } catch (CharacterCodingException e) {
+            text = "";
+        }
+
+        // Binary image without a fixture: nothing readable
+        return text.indexOf('\0') >= 0 ? "" : text;
+    }
+}
@@ -0,0 +1,225 @@
+package com.minimart.api.service;
+
+import com.minimart.api.model.OutboundMail;
+import com.minimart.api.repository.OutboundMailRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound email as a background job.
+ *
+ * enqueue() only persists the mail and schedules it, so request threads never
+ * wait on SMTP. A small sender pool delivers it; a failed attempt is retried
+ * with exponential backoff (with jitter) until max-attempts, then marked
+ * failed. Bodies are cleared once a mail is sent or given up, so OTP codes do
+ * not stay in the table. Mails still queued or in flight at shutdown are
+ * resumed on startup.
+ */
+@Service
+public class MailQueueService {
+
+    @Autowired
+    private OutboundMailRepository outboundMailRepository;
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${mail.queue.workers:2}")
+    private int workers;
+
+    @Value("${mail.queue.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${mail.queue.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    @Value("${mail.queue.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(workers, runnable -> {
+            Thread thread = new Thread(runnable, "mail-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        System.out.println("✅ Mail queue: " + workers + " sender(s), up to " + maxAttempts + " attempts");
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Delayed retries are not waited for; they are resumed from the table on next start
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Pick up mails that were queued or being sent when the app last stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnsentMail() {
+        int interrupted = outboundMailRepository.requeueInterrupted(LocalDateTime.now());
+        List<OutboundMail> pending = outboundMailRepository.findByStatusOrderByIdAsc(OutboundMail.QUEUED);
+        for (OutboundMail mail : pending) {
+            schedule(mail.getId(), mail.getNextAttemptAt());
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("🔁 Resumed " + pending.size() + " queued email(s) (" + interrupted + " interrupted)");
+        }
+    }
+
+    /**
+     * Persist a mail and hand it to the sender pool. Returns the queued mail's id.
+     */
+    public Long enqueue(String toEmail, String subject, String body) {
+        OutboundMail mail = outboundMailRepository.save(new OutboundMail(toEmail, subject, body));
+        enqueued.incrementAndGet();
+
+        // Inside a transaction the row is only visible to the sender after commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(mail.getId(), null);
+                }
+            });
+        } else {
+            schedule(mail.getId(), null);
+        }
+        System.out.println("📥 Email " + mail.getId() + " queued for " + toEmail);
+        return mail.getId();
+    }
+
+    /**
+     * One send attempt; schedules the next one on failure
+     */
+    void deliver(Long mailId) {
+        if (outboundMailRepository.claim(mailId, LocalDateTime.now()) == 0) {
+            return;
+        }
+        OutboundMail mail = outboundMailRepository.findById(mailId).orElse(null);
+        if (mail == null) {
+            return;
+        }
+
+        try {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(mail.getToEmail());
+            message.setSubject(mail.getSubject());
+            message.setText(mail.getBody());
+            mailSender.send(message);
+        } catch (MailException e) {
+            retryOrFail(mail, e);
+            return;
+        }
+
+        // Sent: a failure from here on must not queue the mail (and its OTP) a second time
+        mail.setStatus(OutboundMail.SENT);
+        mail.setBody(null);
+        mail.setLastError(null);
+        mail.setUpdatedAt(LocalDateTime.now());
+        mail.setSentAt(mail.getUpdatedAt());
+        outboundMailRepository.save(mail);
+        sent.incrementAndGet();
+        System.out.println("📧 Email " + mailId + " sent to " + mail.getToEmail()
+                + " (attempt " + mail.getAttempts() + ")");
+    }
+
+    private void retryOrFail(OutboundMail mail, MailException e) {
+        Long mailId = mail.getId();
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        mail.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        mail.setUpdatedAt(LocalDateTime.now());
+
+        if (mail.getAttempts() >= maxAttempts) {
+            // Given up: the body (an OTP code) is not kept
+            mail.setStatus(OutboundMail.FAILED);
+            mail.setBody(null);
+            outboundMailRepository.save(mail);
+            failed.incrementAndGet();
+            System.err.println("❌ Email " + mailId + " to " + mail.getToEmail() + " failed after "
+                    + mail.getAttempts() + " attempts: " + error);
+            return;
+        }
+
+        LocalDateTime nextAttempt = LocalDateTime.now().plus(Duration.ofMillis(backoffMs(mail.getAttempts())));
+        mail.setStatus(OutboundMail.QUEUED);
+        mail.setNextAttemptAt(nextAttempt);
+        outboundMailRepository.save(mail);
+        retried.incrementAndGet();
+        System.err.println("⚠️ Email " + mailId + " attempt " + mail.getAttempts() + " failed, retry at "
+                + nextAttempt + ": " + error);
+        schedule(mailId, nextAttempt);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> byStatus = new HashMap<>();
+        for (Object[] row : outboundMailRepository.countByStatus()) {
+            byStatus.put((String) row[0], row[1]);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("byStatus", byStatus);
+        stats.put("enqueued", enqueued.get());
+        stats.put("sent", sent.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        stats.put("scheduled", executor.getQueue().size());
+        stats.put("sending", executor.getActiveCount());
+        return stats;
+    }
+
+    // initial * 2^(attempt-1), capped, with +-20% jitter so retries after an outage spread out
+    long backoffMs(int attempt) {
+        int shift = Math.min(Math.max(attempt - 1, 0), 30);
+        long delay = Math.min(maxBackoffMs, initialBackoffMs << shift);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Math.max(0, (long) (delay * jitter));
+    }
+
+    private void schedule(Long mailId, LocalDateTime at) {
+        long delayMs = at == null ? 0 : Math.max(0, Duration.between(LocalDateTime.now(), at).toMillis());
+        try {
+            executor.schedule(() -> deliver(mailId), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the row stays queued and is resumed on next start
+            System.out.println("⚠️ Mail queue stopped, email " + mailId + " waits for next restart");
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.minimart.api.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Coalesces concurrent extractText calls into delegate.extractTexts batches.
+ *
+ * A dispatcher thread takes the first waiting request, then keeps collecting
+ * until maxBatchSize requests are queued or maxWaitMs has passed since the
+ * first one, and hands the batch to one of maxConcurrentBatches sender
+ * threads. Each caller blocks on its own future. Under light load a request
+ * waits at most maxWaitMs extra; at peak one remote call serves many uploads.
+ *
+ * Callers are bounded here, since the engine below only guards the batch
+ * calls: at most maxQueued requests wait (more fail fast with IOException),
+ * and each caller gives up after callerDeadlineMs, leaving its batch if it
+ * has not been sent yet.
+ */
+public class MicroBatchingOcrEngine implements OcrEngine, Closeable {
+
+    private record Pending(File imageFile, CompletableFuture<String> result, long enqueuedNanos) {
+    }
+
+    private final OcrEngine delegate;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final int maxQueued;
+    private final long callerDeadlineMs;
+
+    private final LinkedBlockingQueue<Pending> queue;
+    private final Thread dispatcher;
+    private final ExecutorService senders;
+    // One permit per sender thread: requests wait in the bounded queue, not in the senders' backlog
+    private final Semaphore senderSlots;
+    private volatile boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong images = new AtomicLong();
+    private final AtomicLong batchFailures = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final Histogram batchSizes = new Histogram(1, 2, 4, 8, 16, 32);
+    private final Histogram queueWaitMs = new Histogram(1, 5, 10, 25, 50, 100, 250, 1000);
+
+    public MicroBatchingOcrEngine(OcrEngine delegate, int maxBatchSize, long maxWaitMs, int maxConcurrentBatches,
+                                  int maxQueued, long callerDeadlineMs) {
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.maxQueued = maxQueued;
+        this.callerDeadlineMs = callerDeadlineMs;
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+
+        this.senderSlots = new Semaphore(maxConcurrentBatches);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(maxConcurrentBatches, runnable -> {
+            Thread thread = new Thread(runnable, "ocr-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.dispatcher = new Thread(this::dispatchLoop, "ocr-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public String extractText(File imageFile) throws IOException {
+        if (closed) {
+            throw new IOException("OCR dispatcher is shut down");
+        }
+
+        Pending pending = new Pending(imageFile, new CompletableFuture<>(), System.nanoTime());
+        if (!queue.offer(pending)) {
+            rejected.incrementAndGet();
+            throw new IOException("OCR busy (" + maxQueued + " requests queued), try again shortly");
+        }
+        try {
+            return pending.result().get(callerDeadlineMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+        } catch (CancellationException e) {
+            throw new IOException("OCR request cancelled", e);
+        } catch (TimeoutException e) {
+            // Drop it from the next batch if it has not been sent yet
+            abandon(pending);
+            timeouts.incrementAndGet();
+            throw new IOException("OCR timed out after " + callerDeadlineMs + "ms");
+        } catch (InterruptedException e) {
+            abandon(pending);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for OCR batch", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("batches", batches.get());
+        stats.put("images", images.get());
+        stats.put("batchFailures", batchFailures.get());
+        stats.put("rejected", rejected.get());
+        stats.put("timeouts", timeouts.get());
+        stats.put("queued", queue.size());
+        stats.put("maxQueued", maxQueued);
+        stats.put("callerDeadlineMs", callerDeadlineMs);
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+        stats.put("batchSize", batchSizes.toMap());
+        stats.put("queueWaitMs", queueWaitMs.toMap());
+        return stats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        failAll(drain(), new IOException("OCR dispatcher is shut down"));
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    // ========== dispatcher ==========
+
+    private void dispatchLoop() {
+        while (!closed) {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            try {
+                senderSlots.acquire();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                Pending first = queue.take();
+                batch.add(first);
+                long flushAt = first.enqueuedNanos() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = flushAt - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                failAll(batch, new IOException("OCR dispatcher is shut down"));
+                return;
+            }
+
+            try {
+                senders.execute(() -> {
+                    try {
+                        send(batch);
+                    } finally {
+                        senderSlots.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                senderSlots.release();
+                failAll(batch, new IOException("OCR dispatcher is shut down"));
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        // Callers that timed out while queued are not worth a remote image slot
+        long now = System.nanoTime();
+        List<Pending> live = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (!pending.result().isDone()) {
+                live.add(pending);
+                queueWaitMs.record(TimeUnit.NANOSECONDS.toMillis(now - pending.enqueuedNanos()));
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        batches.incrementAndGet();
+        images.addAndGet(live.size());
+        batchSizes.record(live.size());
+
+        List<File> files = new ArrayList<>(live.size());
+        for (Pending pending : live) {
+            files.add(pending.imageFile());
+        }
+
+        List<Result> results;
+        try {
+            results = delegate.extractTexts(files);
+        } catch (IOException e) {
+            batchFailures.incrementAndGet();
+            failAll(live, e);
+            return;
+        } catch (RuntimeException e) {
+            batchFailures.incrementAndGet();
+            failAll(live, new IOException(e.getMessage(), e));
+            return;
+        }
+
+        for (int i = 0; i < live.size(); i++) {
+            Result result = results.get(i);
+            if (result.error() != null) {
+                live.get(i).result().completeExceptionally(result.error());
+            } else {
+                live.get(i).result().complete(result.text());
+            }
+        }
+    }
+
+    private void abandon(Pending pending) {
+        pending.result().cancel(false);
+        queue.remove(pending);
+    }
+
+    private List<Pending> drain() {
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        return left;
+    }
+
+    private static void failAll(List<Pending> batch, IOException error) {
+        for (Pending pending : batch) {
+            pending.result().completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Counts per bucket: value <= bound for each upper bound, plus one overflow bucket
+     */
+    static class Histogram {
+
+        private final long[] bounds;
+        private final AtomicLongArray counts;
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+
+        Histogram(long... bounds) {
+            this.bounds = bounds;
+            this.counts = new AtomicLongArray(bounds.length + 1);
+        }
+
+        void record(long value) {
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            total.incrementAndGet();
+            sum.addAndGet(value);
+        }
+
+        long count(int bucket) {
+            return counts.get(bucket);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < bounds.length; i++) {
+                buckets.put("le_" + bounds[i], counts.get(i));
+            }
+            buckets.put("gt_" + bounds[bounds.length - 1], counts.get(bounds.length));
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", total.get());
+            map.put("mean", total.get() == 0 ? 0.0 : (double) sum.get() / total.get());
+            map.put("buckets", buckets);
+            return map;
+        }
+    }
+}
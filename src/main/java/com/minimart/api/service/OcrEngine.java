@@ -0,0 +1,40 @@
+package com.minimart.api.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns a payment screenshot into raw text
+ */
+public interface OcrEngine {
+
+    /**
+     * Text of one image in a batch, or the error for that image only
+     */
+    record Result(String text, IOException error) {
+    }
+
+    /**
+     * Full text found in the image ("" if none). Throws only when the engine
+     * itself failed, which is what the circuit breaker counts.
+     */
+    String extractText(File imageFile) throws IOException;
+
+    /**
+     * Several images in one engine call, results in the same order. Throws when
+     * the whole call failed. Engines without a batch API read them one by one.
+     */
+    default List<Result> extractTexts(List<File> imageFiles) throws IOException {
+        List<Result> results = new ArrayList<>(imageFiles.size());
+        for (File imageFile : imageFiles) {
+            try {
+                results.add(new Result(extractText(imageFile), null));
+            } catch (IOException e) {
+                results.add(new Result(null, e));
+            }
+        }
+        return results;
+    }
+}
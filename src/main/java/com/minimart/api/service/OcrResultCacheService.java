@@ -0,0 +1,169 @@
+package com.minimart.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.minimart.api.model.OcrResult;
+import com.minimart.api.repository.OcrResultRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OCR results keyed by SHA-256 of the screenshot bytes, so re-uploading the
+ * exact same image never pays for another remote OCR call.
+ *
+ * Two levels: a small in-memory Caffeine cache (microsecond hits) in front of
+ * the ocr_result table (survives restarts). The table is kept to
+ * ocr.cache.max-entries rows by dropping the least recently used ones.
+ */
+@Service
+public class OcrResultCacheService {
+
+    // Longer OCR output is not worth caching (and would not fit the column)
+    static final int MAX_TEXT_LENGTH = 10000;
+
+    // How often (in inserts) the table size is checked
+    private static final int EVICTION_CHECK_INTERVAL = 100;
+
+    /**
+     * Cached OCR text plus its parsed receipt
+     */
+    public record CachedOcr(String text, ReceiptParser.Receipt receipt) {
+    }
+
+    @Autowired
+    private OcrResultRepository ocrResultRepository;
+
+    @Value("${ocr.cache.memory-entries:2000}")
+    private long memoryEntries;
+
+    @Value("${ocr.cache.max-entries:50000}")
+    private int maxEntries;
+
+    private Cache<String, CachedOcr> memory;
+
+    private final AtomicInteger insertsSinceCheck = new AtomicInteger();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        memory = Caffeine.newBuilder()
+                .maximumSize(memoryEntries)
+                .build();
+    }
+
+    /**
+     * Hex SHA-256 of the given bytes
+     */
+    public static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Cached result for a content hash, or null
+     */
+    public CachedOcr get(String hash) {
+        if (hash == null) {
+            return null;
+        }
+
+        // Memory hits skip the last_used_at write; such hot entries only age in the table
+        CachedOcr cached = memory.getIfPresent(hash);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+
+        OcrResult row = ocrResultRepository.findById(hash).orElse(null);
+        if (row == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        databaseHits.incrementAndGet();
+        ocrResultRepository.recordHit(hash, LocalDateTime.now());
+        cached = new CachedOcr(row.getExtractedText(), new ReceiptParser.Receipt(
+                row.getBank(), row.getAmount(), row.getCurrency(), row.getTransactionId(),
+                row.getReference(), row.getTransactionDate(),
+                row.getConfidence() != null ? row.getConfidence() : 0));
+        memory.put(hash, cached);
+        return cached;
+    }
+
+    /**
+     * Remember a successful OCR result
+     */
+    public void put(String hash, String text, ReceiptParser.Receipt receipt) {
+        if (hash == null || text == null || text.length() > MAX_TEXT_LENGTH) {
+            return;
+        }
+
+        OcrResult row = new OcrResult(hash, text);
+        row.setBank(receipt.bank());
+        row.setAmount(receipt.amount());
+        row.setCurrency(receipt.currency());
+        row.setTransactionId(receipt.transactionId());
+        row.setReference(receipt.reference());
+        row.setTransactionDate(receipt.transactionDate());
+        row.setConfidence(receipt.confidence());
+        try {
+            ocrResultRepository.save(row);
+        } catch (DataIntegrityViolationException e) {
+            // Same screenshot processed concurrently: the other job's row is just as good
+        }
+        memory.put(hash, new CachedOcr(text, receipt));
+
+        if (insertsSinceCheck.incrementAndGet() >= EVICTION_CHECK_INTERVAL) {
+            insertsSinceCheck.set(0);
+            evictOverflow();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("memoryEntries", memory.estimatedSize());
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("databaseHits", databaseHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evicted", evicted.get());
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    /**
+     * Drop least recently used rows beyond ocr.cache.max-entries
+     */
+    synchronized void evictOverflow() {
+        long excess = ocrResultRepository.count() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+
+        List<String> oldest = ocrResultRepository.findLeastRecentlyUsed(
+                PageRequest.of(0, (int) Math.min(excess, 10_000)));
+        ocrResultRepository.deleteAllByIdInBatch(oldest);
+        memory.invalidateAll(oldest);
+        evicted.addAndGet(oldest.size());
+        System.out.println("🧹 OCR cache: evicted " + oldest.size() + " least recently used result(s)");
+    }
+}
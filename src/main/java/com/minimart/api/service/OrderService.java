@@ -11,14 +11,25 @@ import com.minimart.api.repository.PaymentRepository;
 import com.minimart.api.repository.ProductRepository;
 import com.minimart.api.repository.StockRepository;
 import com.minimart.api.dto.OrderDTO;
+import com.minimart.api.dto.OrderCursor;
+import com.minimart.api.dto.OrderFilter;
 import com.minimart.api.dto.OrderSummaryDTO;
 import com.minimart.api.dto.PaymentDTO;
 import com.minimart.api.dto.OrderDetailDTO;
+import com.minimart.api.exception.InsufficientStockException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -27,11 +38,6 @@ import java.util.ArrayList;
 import com.minimart.api.dto.PendingOrderDTO;
 import com.minimart.api.repository.UserRepository;
 import com.minimart.api.model.User;
-import org.springframework.web.multipart.MultipartFile;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.io.File;
-import java.io.IOException;
 @Service
 public class OrderService {
     
@@ -53,6 +59,29 @@ public class OrderService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CatalogCacheService catalogCache;
+    
+    @Autowired
+    private ProductSuggestService productSuggestService;
+    
+    @Autowired
+    private ScreenshotDuplicateService duplicateService;
+    
+    @Value("${orders.count-cache.ttl-seconds:30}")
+    private long countCacheTtlSeconds;
+    
+    // Total count per admin listing filter (COUNT(*) is the expensive part of a page)
+    private Cache<String, Long> orderCounts;
+    
+    @PostConstruct
+    public void initOrderCounts() {
+        orderCounts = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(countCacheTtlSeconds))
+                .build();
+    }
+    
 	/**
 	 * Create order ONLY (no payment yet)
 	 * User will upload payment screenshot later
@@ -91,6 +120,7 @@ public class OrderService {
 	        order.setStatus("pending");
 	        order.setAddressId(addressId);
 	        order = orderRepository.save(order);
+	        invalidateOrderCounts();
 	        
 	        // 3. Create Order Details
 	        for (Map<String, Object> item : items) {
@@ -143,33 +173,24 @@ public class OrderService {
             Payment payment = paymentRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
             
+            claimPendingOrder(orderId, "paid");
+            
             payment.setStatus("paid");
             payment.setPayDate(LocalDateTime.now());
             paymentRepository.save(payment);
             
-            order.setStatus("paid");
-            orderRepository.save(order);
-            
-            List<OrderDetail> orderDetails = orderDetailRepository.findByOrder(order);
+            deductStock(order);
             
-            for (OrderDetail detail : orderDetails) {
-                Integer productId = detail.getProductId();
-                
-                Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
-                
-                Stock stock = product.getStock();
-                if (stock == null) {
-                    throw new RuntimeException("Stock not found for product: " + product.getName());
-                }
-                
-                int newQty = stock.getQty() - detail.getQty();
-                if (newQty < 0) {
-                    throw new RuntimeException("Insufficient stock for product: " + product.getName());
-                }
-                
-                stock.setQty(newQty);
-                stockRepository.save(stock);
+            // Screenshot held for review and approved: later copies of it are caught too
+            Long dHash = payment.getScreenshotDhash();
+            if (dHash != null) {
+                Long paymentId = payment.getId();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        duplicateService.add(dHash, paymentId);
+                    }
+                });
             }
             
             Map<String, Object> response = new HashMap<>();
@@ -184,6 +205,9 @@ public class OrderService {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", "Error confirming payment: " + e.getMessage());
+            if (e instanceof InsufficientStockException shortage) {
+                response.put("shortfalls", shortage.getShortfalls());
+            }
             return response;
         }
     }
@@ -211,6 +235,7 @@ public class OrderService {
             
             order.setStatus("failed");
             orderRepository.save(order);
+            invalidateOrderCounts();
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -255,33 +280,14 @@ public class OrderService {
             
             // Handle payment success
             if ("success".equalsIgnoreCase(paymentStatus) || "paid".equalsIgnoreCase(paymentStatus)) {
+                claimPendingOrder(orderId, "paid");
+                
                 payment.setStatus("paid");
                 payment.setPayDate(LocalDateTime.now());
                 paymentRepository.save(payment);
                 
-                order.setStatus("paid");
-                orderRepository.save(order);
-                
                 // Deduct stock
-                List<OrderDetail> orderDetails = orderDetailRepository.findByOrder(order);
-                for (OrderDetail detail : orderDetails) {
-                    Integer productId = detail.getProductId();
-                    Product product = productRepository.findById(productId)
-                        .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
-                    
-                    Stock stock = product.getStock();
-                    if (stock == null) {
-                        throw new RuntimeException("Stock not found for product: " + product.getName());
-                    }
-                    
-                    int newQty = stock.getQty() - detail.getQty();
-                    if (newQty < 0) {
-                        throw new RuntimeException("Insufficient stock for product: " + product.getName());
-                    }
-                    
-                    stock.setQty(newQty);
-                    stockRepository.save(stock);
-                }
+                deductStock(order);
                 
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", true);
@@ -299,6 +305,7 @@ public class OrderService {
                 
                 order.setStatus("failed");
                 orderRepository.save(order);
+                invalidateOrderCounts();
                 
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", true);
@@ -318,6 +325,9 @@ public class OrderService {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", "Error updating payment status: " + e.getMessage());
+            if (e instanceof InsufficientStockException shortage) {
+                response.put("shortfalls", shortage.getShortfalls());
+            }
             return response;
         }
     }
@@ -360,29 +370,10 @@ public class OrderService {
     }
     
     /**
-     * Get user orders as summary (lightweight for list view)
+     * Get user orders as summary (lightweight for list view, one query)
      */
     public List<OrderSummaryDTO> getUserOrdersSummary(Long userId) {
-        List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        List<OrderSummaryDTO> summaries = new ArrayList<>();
-        
-        for (Order order : orders) {
-            int itemCount = orderDetailRepository.findByOrder(order).size();
-            Payment payment = paymentRepository.findByOrderId(order.getId()).orElse(null);
-            LocalDateTime payDate = payment != null ? payment.getPayDate() : null;
-            summaries.add(new OrderSummaryDTO(
-                order.getId(),
-                order.getUserId(),
-                order.getStatus(),
-                order.getAmount(),
-                order.getCreatedAt(),
-                itemCount,
-                order.getAddressId(),
-                payDate
-            ));
-        }
-        
-        return summaries;
+        return orderRepository.findSummariesByUserId(userId);
     }
     
     /**
@@ -462,6 +453,7 @@ public class OrderService {
             
             order.setStatus("failed");
             orderRepository.save(order);
+            invalidateOrderCounts();
             
             Payment payment = paymentRepository.findByOrderId(orderId).orElse(null);
             if (payment != null) {
@@ -482,267 +474,188 @@ public class OrderService {
         }
     }
     /**
-     * Get pending orders with minimal data (for admin dashboard)
+     * One keyset page of order summaries for the admin listing (newest first)
+     */
+    @Transactional(readOnly = true)
+    public List<OrderSummaryDTO> getOrdersPage(OrderFilter filter, OrderCursor after, int limit) {
+        return orderRepository.findSummaryPage(filter, after, limit);
+    }
+    
+    /**
+     * One keyset page of pending orders for the admin dashboard (newest first)
+     */
+    @Transactional(readOnly = true)
+    public List<PendingOrderDTO> getPendingOrdersPage(OrderFilter filter, OrderCursor after, int limit) {
+        return orderRepository.findPendingSummaryPage(filter, after, limit);
+    }
+    
+    /**
+     * Total orders matching a filter. Cached per filter for a few seconds and
+     * dropped whenever an order is created or changes status, so paging through
+     * a listing does not re-run COUNT(*) for every page.
+     */
+    public long countOrders(OrderFilter filter) {
+        return orderCounts.get(filter.cacheKey(), key -> orderRepository.countByFilter(filter));
+    }
+    
+    private void invalidateOrderCounts() {
+        orderCounts.invalidateAll();
+    }
+    
+    /**
+     * Get pending orders with minimal data (for admin dashboard, one query)
      */
     public List<PendingOrderDTO> getPendingOrdersSummary() {
-        List<Order> orders = orderRepository.findByStatus("pending");
-        List<PendingOrderDTO> summaries = new ArrayList<>();
-        
-        for (Order order : orders) {
-            // Get user info
-            User user = userRepository.findById(order.getUserId()).orElse(null);
-            String userName = user != null ? user.getUserName() : "Unknown";
-            String userEmail = user != null ? user.getEmail() : "Unknown";
-            
-            // Get payment method
-            Payment payment = paymentRepository.findByOrderId(order.getId()).orElse(null);
-            String paymentMethod = payment != null ? payment.getPaymentMethod() : "N/A";
-            
-            // Count items
-            int itemCount = orderDetailRepository.findByOrder(order).size();
-            
-            summaries.add(new PendingOrderDTO(
-                order.getId(),
-                order.getUserId(),
-                userName,
-                userEmail,
-                order.getAmount(),
-                paymentMethod,
-                order.getCreatedAt(),
-                itemCount
-            ));
-        }
-        
-        return summaries;
+        return orderRepository.findPendingSummariesByStatus("pending");
     }
     @Autowired
     private OCRService ocrService;
 
-    @Autowired
-    private FileStorageService fileStorageService;
-
     /**
-     * Upload payment screenshot and verify automatically
-     * This is where Payment record is created!
+     * Apply an OCR-read payment screenshot to its order (called by the
+     * verification worker once OCR is done, so this transaction is short).
+     * Returns success=false without changing anything when the screenshot is
+     * not acceptable; throws (rolling back) if the order can't be paid.
      */
     @Transactional
-    public Map<String, Object> uploadPaymentScreenshot(
-            Long userId,
+    public Map<String, Object> confirmScreenshotPayment(
             Long orderId,
-            MultipartFile screenshot
+            String screenshotPath,
+            String screenshotHash,
+            Long screenshotDhash,
+            ReceiptParser.Receipt receipt
     ) {
-        String fileName = null;
-        String screenshotPath = null;
+        String transactionId = receipt.transactionId();
+        LocalDateTime transactionDate = receipt.transactionDate();
         
-        try {
-            // 1. Get order and verify ownership
-            Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-            
-            if (!order.getUserId().equals(userId)) {
-                throw new RuntimeException("Access denied. This order doesn't belong to you.");
-            }
-            
-            // 2. Check order status
-            if (!"pending".equals(order.getStatus())) {
-                throw new RuntimeException("Order is not pending. Current status: " + order.getStatus());
-            }
-            
-            // 3. Check if payment already exists
-            Payment payment = paymentRepository.findByOrderId(orderId).orElse(null);
-            
-            // ✅ Create payment record if doesn't exist!
-            if (payment == null) {
-                payment = new Payment();
-                payment.setOrderId(orderId);
-                payment.setUserId(userId);
-                payment.setAmount(order.getAmount());
-                payment.setPaymentMethod("Bank Transfer");  // Default
-                payment.setCurrency("USD");  // Default
-                payment.setStatus("pending");
-                payment = paymentRepository.save(payment);
-            }
-            
-            // 4. Save screenshot file
-            fileName = fileStorageService.storeFile(screenshot, "payment");
-            screenshotPath = "/api/files/payments/" + fileName;
-            
-            System.out.println("✅ Screenshot uploaded: " + fileName);
-            
-            // 5. Get the actual file location
-            Path uploadPath = fileStorageService.getFileStorageLocation("payment");
-            File imageFile = uploadPath.resolve(fileName).toFile();
-            
-            System.out.println("📁 Looking for file at: " + imageFile.getAbsolutePath());
-            System.out.println("📂 File exists: " + imageFile.exists());
-            
-            // 6. Extract text from screenshot using OCR
-            String extractedText;
-            try {
-                extractedText = ocrService.extractText(imageFile);
-            } catch (IOException e) {
-                System.err.println("❌ OCR failed: " + e.getMessage());
-                fileStorageService.deleteFile(fileName, "payment");
-                System.out.println("🗑️ Deleted uploaded file due to OCR failure");
-                throw new RuntimeException("OCR failed: " + e.getMessage());
-            }
-            
-            // 7. Extract Transaction ID
-            String transactionId = ocrService.extractTransactionId(extractedText);
-            
-            if (transactionId == null || transactionId.trim().isEmpty()) {
-                fileStorageService.deleteFile(fileName, "payment");
-                System.out.println("🗑️ Deleted uploaded file - no Transaction ID found");
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "Could not find Transaction ID in screenshot. Please upload a clear payment screenshot.");
-                response.put("orderId", orderId);
-                response.put("status", "pending");
-                return response;
-            }
-            
-            System.out.println("✅ Transaction ID extracted: " + transactionId);
-            
-            // 8. Check if Transaction ID already used
-            if (paymentRepository.existsByTransactionId(transactionId)) {
-                fileStorageService.deleteFile(fileName, "payment");
-                System.out.println("❌ Duplicate transaction detected: " + transactionId);
-                System.out.println("🗑️ Deleted uploaded file - duplicate transaction");
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "This payment screenshot has already been used. Transaction ID: " + transactionId);
-                response.put("orderId", orderId);
-                response.put("status", "pending");
-                response.put("transactionId", transactionId);
-                return response;
-            }
-            
-            // 9. Extract Transaction Date
-            LocalDateTime transactionDate = ocrService.extractTransactionDate(extractedText);
-            
-            if (transactionDate != null) {
-                System.out.println("✅ Transaction Date extracted: " + transactionDate);
-            } else {
-                System.out.println("⚠️ Could not extract Transaction Date (will continue anyway)");
-            }
-            
-            // 10. Verify amount
-            boolean amountMatches = ocrService.verifyPayment(extractedText, order.getAmount());
-            
-            if (!amountMatches) {
-                System.out.println("❌ Amount verification failed - deleting file");
-                fileStorageService.deleteFile(fileName, "payment");
-                System.out.println("🗑️ Deleted uploaded file due to amount mismatch");
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "Amount in screenshot doesn't match order amount. Expected: $" + order.getAmount() + ". Please upload correct payment screenshot.");
-                response.put("orderId", orderId);
-                response.put("status", "pending");
-                response.put("transactionId", transactionId);
-                return response;
-            }
-            
-            System.out.println("✅ Amount verification successful!");
-            
-            // 11. Save transaction details & confirm payment
-            payment.setScreenshotPath(screenshotPath);
-            payment.setTransactionId(transactionId);
-            payment.setTransactionDate(transactionDate);
-            payment.setStatus("paid");
-            payment.setPayDate(LocalDateTime.now());
-            paymentRepository.save(payment);
-            
-            order.setStatus("paid");
-            orderRepository.save(order);
-            
-            System.out.println("✅ Payment status updated to PAID");
-            
-            // 12. Deduct stock
-            List<OrderDetail> orderDetails = orderDetailRepository.findByOrder(order);
-            for (OrderDetail detail : orderDetails) {
-                Integer productId = detail.getProductId();
-                Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + productId));
-                
-                Stock stock = product.getStock();
-                if (stock == null) {
-                    throw new RuntimeException("Stock not found for product: " + product.getName());
-                }
-                
-                int newQty = stock.getQty() - detail.getQty();
-                if (newQty < 0) {
-                    throw new RuntimeException("Insufficient stock for product: " + product.getName());
-                }
-                
-                stock.setQty(newQty);
-                stockRepository.save(stock);
-            }
-            
-            System.out.println("✅ Stock deducted successfully");
-            
-            // 13. Success!
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Payment verified and confirmed automatically!");
-            response.put("orderId", orderId);
-            response.put("status", "paid");
-            response.put("transactionId", transactionId);
-            response.put("transactionDate", transactionDate != null ? transactionDate.toString() : "N/A");
-            response.put("extractedText", extractedText);
-            
-            System.out.println("🎉 Payment verification successful!");
-            
+        Map<String, Object> response = new HashMap<>();
+        response.put("orderId", orderId);
+        response.put("transactionId", transactionId);
+        
+        Order order = orderRepository.findById(orderId)
+            .orElseThrow(() -> new RuntimeException("Order not found"));
+        
+        if (!"pending".equals(order.getStatus())) {
+            response.put("success", false);
+            response.put("message", "Order is not pending. Current status: " + order.getStatus());
             return response;
-            
-        } catch (Exception e) {
-            // Any error - delete uploaded file if it exists!
-            if (fileName != null) {
-                try {
-                    fileStorageService.deleteFile(fileName, "payment");
-                    System.out.println("🗑️ Deleted uploaded file due to error: " + e.getMessage());
-                } catch (Exception deleteError) {
-                    System.err.println("⚠️ Failed to delete file: " + deleteError.getMessage());
-                }
-            }
-            
-            Map<String, Object> response = new HashMap<>();
+        }
+        
+        // Check if Transaction ID already used
+        if (paymentRepository.existsByTransactionId(transactionId)) {
+            System.out.println("❌ Duplicate transaction detected: " + transactionId);
             response.put("success", false);
-            response.put("message", "Error processing screenshot: " + e.getMessage());
-            e.printStackTrace();
+            response.put("message", "This payment screenshot has already been used. Transaction ID: " + transactionId);
             return response;
         }
+        
+        // Verify amount
+        if (!ocrService.verifyPayment(receipt, order.getAmount())) {
+            response.put("success", false);
+            response.put("message", "Amount in screenshot doesn't match order amount. Expected: $" + order.getAmount() + ". Please upload correct payment screenshot.");
+            return response;
+        }
+        
+        // Save transaction details & confirm payment
+        claimPendingOrder(orderId, "paid");
+        
+        Payment payment = paymentRepository.findByOrderId(orderId)
+            .orElseThrow(() -> new RuntimeException("Payment not found for this order"));
+        payment.setScreenshotPath(screenshotPath);
+        payment.setScreenshotHash(screenshotHash);
+        payment.setScreenshotDhash(screenshotDhash);
+        payment.setTransactionId(transactionId);
+        payment.setTransactionDate(transactionDate);
+        payment.setStatus("paid");
+        payment.setPayDate(LocalDateTime.now());
+        paymentRepository.save(payment);
+        
+        System.out.println("✅ Payment status updated to PAID");
+        
+        deductStock(order);
+        
+        response.put("success", true);
+        response.put("message", "Payment verified and confirmed automatically!");
+        response.put("paymentId", payment.getId());
+        response.put("status", "paid");
+        response.put("transactionDate", transactionDate != null ? transactionDate.toString() : "N/A");
+        return response;
     }
 	
 	/**
-	 * Get all orders summary (for admin dashboard)
+	 * Get all orders summary (for admin dashboard, one query)
 	 */
 	public List<OrderSummaryDTO> getAllOrdersSummary() {
-	    // ✅ Use the corrected method
-	    List<Order> orders = orderRepository.findAllByOrderByCreatedAtDesc();
-	    List<OrderSummaryDTO> summaries = new ArrayList<>();
-	    
-	    for (Order order : orders) {
-	        int itemCount = orderDetailRepository.findByOrder(order).size();
-	        Payment payment = paymentRepository.findByOrderId(order.getId()).orElse(null);
-	        LocalDateTime payDate = payment != null ? payment.getPayDate() : null;
-	        summaries.add(new OrderSummaryDTO(
-	            order.getId(),
-	            order.getUserId(),
-	            order.getStatus(),
-	            order.getAmount(),
-	            order.getCreatedAt(),
-	            itemCount,
-	            order.getAddressId(),
-	            payDate
-	        ));
-	    }
-	    
-	    return summaries;
+	    return orderRepository.findAllSummaries();
 	}
 	
+    /**
+     * Atomically move an order out of "pending" (compare-and-set on status).
+     * Two admins / callbacks confirming the same order: only one gets past here.
+     */
+    private void claimPendingOrder(Long orderId, String newStatus) {
+        if (orderRepository.updateStatusIfCurrent(orderId, "pending", newStatus) == 0) {
+            throw new RuntimeException("Order is no longer pending");
+        }
+        invalidateOrderCounts();
+    }
+    
+    /**
+     * Deduct stock for every line of the order with one batched conditional update
+     * (one round trip). It clears the persistence context, so entities loaded
+     * before it are detached; reload what is needed afterwards.
+     * If any product falls short nothing is deducted (transaction rolled back) and
+     * InsufficientStockException lists every short product, not just the first.
+     */
+    private void deductStock(Order order) {
+        Map<Integer, Integer> qtyByProduct = new HashMap<>();
+        for (OrderDetail detail : orderDetailRepository.findByOrder(order)) {
+            qtyByProduct.merge(detail.getProductId(), detail.getQty(), Integer::sum);
+        }
+        
+        List<Integer> shortIds = stockRepository.deductAll(qtyByProduct);
+        
+        if (!shortIds.isEmpty()) {
+            // Callers catch and return an error map, so roll back explicitly
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            
+            Map<Integer, Integer> available = new HashMap<>();
+            for (Stock stock : stockRepository.findByProductIdIn(shortIds)) {
+                available.put(stock.getProduct().getId(), stock.getQty());
+            }
+            Map<Integer, String> names = new HashMap<>();
+            for (Product product : productRepository.findAllById(shortIds)) {
+                names.put(product.getId(), product.getName());
+            }
+            
+            List<Map<String, Object>> shortfalls = new ArrayList<>();
+            StringBuilder message = new StringBuilder("Insufficient stock for: ");
+            for (Integer productId : shortIds) {
+                Map<String, Object> shortfall = new HashMap<>();
+                shortfall.put("productId", productId);
+                shortfall.put("productName", names.getOrDefault(productId, "Unknown Product"));
+                shortfall.put("requested", qtyByProduct.get(productId));
+                shortfall.put("available", available.getOrDefault(productId, 0));
+                shortfalls.add(shortfall);
+                
+                if (shortfalls.size() > 1) {
+                    message.append(", ");
+                }
+                message.append(shortfall.get("productName"))
+                        .append(" (requested ").append(shortfall.get("requested"))
+                        .append(", available ").append(shortfall.get("available")).append(")");
+            }
+            
+            System.err.println("❌ " + message);
+            throw new InsufficientStockException(message.toString(), shortfalls);
+        }
+        
+        for (Product product : productRepository.findAllById(qtyByProduct.keySet())) {
+            catalogCache.invalidateProduct(product.getId(), product.getCategory().getId());
+            productSuggestService.recordSale(product, qtyByProduct.get(product.getId()));
+        }
+    }
+    
 	/**
 	 * Convert Payment entity to PaymentDTO
 	 */
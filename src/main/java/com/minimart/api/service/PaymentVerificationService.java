@@ -0,0 +1,352 @@
+package com.minimart.api.service;
+
+import com.minimart.api.exception.InsufficientStockException;
+import com.minimart.api.model.Order;
+import com.minimart.api.model.Payment;
+import com.minimart.api.model.PaymentVerification;
+import com.minimart.api.repository.OrderRepository;
+import com.minimart.api.repository.PaymentRepository;
+import com.minimart.api.repository.PaymentVerificationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Payment screenshot verification as a background job.
+ *
+ * The upload request only stores the file and persists a job row; OCR runs on
+ * a bounded worker pool with no transaction (and no DB connection) held. Only
+ * the final "apply result to order" step is a short transaction.
+ *
+ * Before any OCR, an upload whose exact bytes already paid an order is
+ * rejected, and one that merely looks like a paid screenshot is held for
+ * admin review (status "review"), so neither costs a remote OCR call.
+ */
+@Service
+public class PaymentVerificationService {
+
+    private static final List<String> ACTIVE = List.of(PaymentVerification.QUEUED, PaymentVerification.PROCESSING);
+
+    @Autowired
+    private PaymentVerificationRepository verificationRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OCRService ocrService;
+
+    @Autowired
+    private OcrResultCacheService ocrResultCache;
+
+    @Autowired
+    private ScreenshotDuplicateService duplicateService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${payment.verification.workers:4}")
+    private int workers;
+
+    @Value("${payment.verification.queue-capacity:100}")
+    private int queueCapacity;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-verify-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        System.out.println("✅ Payment verification pool: " + workers + " workers, queue " + queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Pick up jobs that were queued or running when the app last stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        List<PaymentVerification> pending = verificationRepository.findByStatusInOrderByIdAsc(ACTIVE);
+        for (PaymentVerification job : pending) {
+            try {
+                executor.execute(() -> process(job.getId()));
+            } catch (RejectedExecutionException e) {
+                System.out.println("⚠️ Verification queue full, job " + job.getId() + " waits for next restart");
+                break;
+            }
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("🔁 Resumed " + pending.size() + " payment verification job(s)");
+        }
+    }
+
+    /**
+     * Accept a screenshot: validate the order, store the file, persist a job and queue it.
+     * Throws RejectedExecutionException when the worker queue is full.
+     */
+    public Map<String, Object> submit(Long userId, Long orderId, MultipartFile screenshot) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("orderId", orderId);
+
+        Order order = orderRepository.findById(orderId).orElse(null);
+        String problem = null;
+        if (order == null) {
+            problem = "Order not found";
+        } else if (!order.getUserId().equals(userId)) {
+            problem = "Access denied. This order doesn't belong to you.";
+        } else if (!"pending".equals(order.getStatus())) {
+            problem = "Order is not pending. Current status: " + order.getStatus();
+        } else if (verificationRepository.existsByOrderIdAndStatusIn(orderId, ACTIVE)) {
+            problem = "A screenshot for this order is already being verified";
+        }
+        if (problem != null) {
+            response.put("success", false);
+            response.put("message", problem);
+            return response;
+        }
+
+        String contentHash;
+        try {
+            contentHash = OcrResultCacheService.sha256(screenshot.getBytes());
+        } catch (IOException e) {
+            response.put("success", false);
+            response.put("message", "Could not read uploaded screenshot");
+            return response;
+        }
+
+        String fileName = fileStorageService.storeFile(screenshot, "payment");
+        String screenshotPath = "/api/files/payments/" + fileName;
+        System.out.println("✅ Screenshot uploaded: " + fileName);
+
+        PaymentVerification job = transactionTemplate.execute(status -> {
+            // Payment record is created on first upload
+            if (paymentRepository.findByOrderId(orderId).isEmpty()) {
+                Payment payment = new Payment();
+                payment.setOrderId(orderId);
+                payment.setUserId(userId);
+                payment.setAmount(order.getAmount());
+                payment.setPaymentMethod("Bank Transfer");  // Default
+                payment.setCurrency("USD");  // Default
+                payment.setStatus("pending");
+                paymentRepository.save(payment);
+            }
+            PaymentVerification created = new PaymentVerification(orderId, userId, fileName, screenshotPath);
+            created.setContentHash(contentHash);
+            return verificationRepository.save(created);
+        });
+
+        try {
+            executor.execute(() -> process(job.getId()));
+        } catch (RejectedExecutionException e) {
+            finish(job, PaymentVerification.FAILED, "Verification queue is full, please try again shortly");
+            throw e;
+        }
+
+        System.out.println("📥 Verification job " + job.getId() + " queued for order " + orderId);
+
+        response.put("success", true);
+        response.put("message", "Screenshot received. Verification in progress.");
+        response.put("verification", toMap(job));
+        return response;
+    }
+
+    /**
+     * Latest verification job of an order (null if none)
+     */
+    public PaymentVerification getLatest(Long orderId) {
+        return verificationRepository.findFirstByOrderIdOrderByIdDesc(orderId).orElse(null);
+    }
+
+    /**
+     * Run one job: OCR outside any transaction, then apply the result in a short one
+     */
+    void process(Long jobId) {
+        PaymentVerification job = verificationRepository.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+
+        job.setStatus(PaymentVerification.PROCESSING);
+        job.setAttempts(job.getAttempts() == null ? 1 : job.getAttempts() + 1);
+        job.setUpdatedAt(LocalDateTime.now());
+        verificationRepository.save(job);
+
+        long start = System.currentTimeMillis();
+        try {
+            File imageFile = fileStorageService.resolveStoredFile("payment", job.getFileName()).toFile();
+
+            // Exact bytes of a screenshot that already paid for an order: reject before any OCR
+            if (job.getContentHash() != null && paymentRepository.findByScreenshotHash(job.getContentHash())
+                    .stream().anyMatch(payment -> "paid".equals(payment.getStatus()))) {
+                finish(job, PaymentVerification.REJECTED, "This payment screenshot has already been used.");
+                return;
+            }
+
+            // A near match (re-cropped / re-compressed copy, or just another receipt from the
+            // same bank app) is not decided automatically: hold it for an admin, with no OCR call
+            Long dHash = PerceptualHash.dHash(Files.readAllBytes(imageFile.toPath()));
+            job.setPerceptualHash(dHash);
+            if (dHash != null) {
+                HammingBkTree.Match nearMatch = duplicateService.findNearDuplicate(dHash);
+                if (nearMatch != null) {
+                    System.out.println("🔎 Job " + jobId + " screenshot resembles paid payment #" + nearMatch.id()
+                            + " (distance " + nearMatch.distance() + ")");
+                    holdForReview(job, nearMatch.id());
+                    return;
+                }
+            }
+
+            // Same bytes seen before: reuse the OCR result instead of another remote call
+            OcrResultCacheService.CachedOcr cached = ocrResultCache.get(job.getContentHash());
+            ReceiptParser.Receipt receipt;
+            if (cached != null) {
+                System.out.println("⚡ OCR cache hit for job " + jobId);
+                receipt = cached.receipt();
+            } else {
+                String extractedText;
+                try {
+                    extractedText = ocrService.extractText(imageFile);
+                } catch (IOException e) {
+                    System.err.println("❌ OCR failed for job " + jobId + ": " + e.getMessage());
+                    finish(job, PaymentVerification.FAILED, "OCR failed: " + e.getMessage());
+                    return;
+                }
+
+                receipt = ocrService.parseReceipt(extractedText);
+                ocrResultCache.put(job.getContentHash(), extractedText, receipt);
+            }
+
+            String transactionId = receipt.transactionId();
+            if (transactionId == null) {
+                finish(job, PaymentVerification.REJECTED,
+                        "Could not find Transaction ID in screenshot. Please upload a clear payment screenshot.");
+                return;
+            }
+
+            // Order update and job result commit together
+            Map<String, Object> result = transactionTemplate.execute(status -> {
+                Map<String, Object> applied = orderService.confirmScreenshotPayment(
+                        job.getOrderId(), job.getScreenshotPath(), job.getContentHash(), dHash, receipt);
+                job.setTransactionId(transactionId);
+                if (Boolean.TRUE.equals(applied.get("success"))) {
+                    markFinished(job, PaymentVerification.VERIFIED, (String) applied.get("message"));
+                    verificationRepository.save(job);
+                }
+                return applied;
+            });
+
+            if (!Boolean.TRUE.equals(result.get("success"))) {
+                finish(job, PaymentVerification.REJECTED, (String) result.get("message"));
+                return;
+            }
+            if (dHash != null) {
+                duplicateService.add(dHash, (Long) result.get("paymentId"));
+            }
+
+            System.out.println("🎉 Verification job " + jobId + " verified in "
+                    + (System.currentTimeMillis() - start) + "ms");
+
+        } catch (InsufficientStockException e) {
+            finish(job, PaymentVerification.REJECTED, e.getMessage());
+        } catch (Exception e) {
+            System.err.println("❌ Verification job " + jobId + " failed: " + e.getMessage());
+            e.printStackTrace();
+            finish(job, PaymentVerification.FAILED, "Error processing screenshot: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> toMap(PaymentVerification job) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("jobId", job.getId());
+        data.put("orderId", job.getOrderId());
+        data.put("status", job.getStatus());
+        data.put("message", job.getMessage());
+        data.put("transactionId", job.getTransactionId());
+        data.put("attempts", job.getAttempts());
+        data.put("createdAt", job.getCreatedAt());
+        data.put("updatedAt", job.getUpdatedAt());
+        data.put("finishedAt", job.getFinishedAt());
+        return data;
+    }
+
+    // Keep the screenshot and attach it to the payment so the admin sees it when confirming or rejecting
+    private void holdForReview(PaymentVerification job, Long similarPaymentId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            paymentRepository.findByOrderId(job.getOrderId()).ifPresent(payment -> {
+                payment.setScreenshotPath(job.getScreenshotPath());
+                payment.setScreenshotHash(job.getContentHash());
+                payment.setScreenshotDhash(job.getPerceptualHash());
+                paymentRepository.save(payment);
+            });
+            markFinished(job, PaymentVerification.REVIEW,
+                    "Screenshot looks like an already used payment. An admin will review it.");
+            verificationRepository.save(job);
+        });
+        System.out.println("🕵️ Verification job " + job.getId() + " held for admin review (similar to payment #"
+                + similarPaymentId + ")");
+    }
+
+    // Rejected / failed: record the outcome and drop the unused screenshot
+    private void finish(PaymentVerification job, String status, String message) {
+        markFinished(job, status, message);
+        verificationRepository.save(job);
+
+        try {
+            fileStorageService.deleteFile(job.getFileName(), "payment");
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to delete file: " + e.getMessage());
+        }
+        System.out.println("❌ Verification job " + job.getId() + " " + status + ": " + message);
+    }
+
+    private void markFinished(PaymentVerification job, String status, String message) {
+        job.setStatus(status);
+        job.setMessage(message);
+        job.setUpdatedAt(LocalDateTime.now());
+        job.setFinishedAt(job.getUpdatedAt());
+    }
+}
@@ -0,0 +1,71 @@
+package com.minimart.api.service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * 64-bit difference hash (dHash) of an image.
+ *
+ * The image is reduced to a 9x8 grid of average luminance and each bit says
+ * whether a cell is brighter than its right neighbour. Re-compressing,
+ * resizing or slightly re-cropping a screenshot changes only a few bits, so
+ * near-duplicates are within a small Hamming distance of each other.
+ */
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * dHash of encoded image bytes, or null if they are not a readable image
+     */
+    public static Long dHash(byte[] imageBytes) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
+            return image != null ? dHash(image) : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public static long dHash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long[] sums = new long[WIDTH * HEIGHT];
+        int[] counts = new int[WIDTH * HEIGHT];
+
+        // Box-average luminance per grid cell, one row of pixels at a time
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellRow = (int) ((long) y * HEIGHT / height) * WIDTH;
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x];
+                int luma = (299 * ((rgb >> 16) & 0xFF) + 587 * ((rgb >> 8) & 0xFF) + 114 * (rgb & 0xFF)) / 1000;
+                int cell = cellRow + (int) ((long) x * WIDTH / width);
+                sums[cell] += luma;
+                counts[cell]++;
+            }
+        }
+
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                int left = y * WIDTH + x;
+                double leftAvg = counts[left] == 0 ? 0 : (double) sums[left] / counts[left];
+                double rightAvg = counts[left + 1] == 0 ? 0 : (double) sums[left + 1] / counts[left + 1];
+                hash = (hash << 1) | (leftAvg > rightAvg ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
@@ -0,0 +1,441 @@
+package com.minimart.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product name / detail / category name.
+ *
+ * - Terms live in a sorted map so every query token also matches as a prefix
+ *   ("coc" finds "coca", "cocoa"), which keeps search-as-you-type working.
+ * - Ranking is BM25 with field boosts (name > category > detail).
+ * - Multi-word queries are AND: every token must match.
+ *
+ * Postings are primitive arrays over internal document slots and scores are
+ * accumulated in per-thread arrays, so a query allocates almost nothing.
+ *
+ * Plain class (no Spring) so it can be benchmarked and tested on its own.
+ * Reads share a read lock; index/remove take the write lock.
+ */
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{M}\\p{N}]+");
+
+    private static final float NAME_BOOST = 3.0f;
+    private static final float CATEGORY_BOOST = 1.5f;
+    private static final float DETAIL_BOOST = 1.0f;
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Prefix matches rank below exact term matches
+    private static final double PREFIX_WEIGHT = 0.7;
+
+    // Upper bound of dictionary terms a single short prefix may expand to
+    private static final int MAX_PREFIX_TERMS = 512;
+
+    // Longer queries are truncated
+    private static final int MAX_QUERY_TOKENS = 16;
+
+    // term -> postings (document slot + boosted term frequency)
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+
+    // productId <-> document slot
+    private final Map<Integer, Integer> slotByProduct = new HashMap<>();
+    private int[] productBySlot = new int[1024];
+    private float[] slotLength = new float[1024];
+    private String[][] slotTerms = new String[1024][];
+
+    private int slotCount;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+
+    private double totalLength;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * One page of ranked product ids plus the total number of matches
+     */
+    public record Hits(int total, List<Integer> productIds) {}
+
+    /**
+     * Add or replace a product in the index
+     */
+    public void index(Integer productId, String name, String detail, String categoryName) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = addField(termFrequencies, name, NAME_BOOST)
+                + addField(termFrequencies, categoryName, CATEGORY_BOOST)
+                + addField(termFrequencies, detail, DETAIL_BOOST);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+
+            int slot = allocateSlot();
+            slotByProduct.put(productId, slot);
+            productBySlot[slot] = productId;
+            slotLength[slot] = length;
+            slotTerms[slot] = termFrequencies.keySet().toArray(new String[0]);
+            totalLength += length;
+
+            for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new PostingList())
+                        .add(slot, entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index (no-op if unknown)
+     */
+    public void remove(Integer productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            slotByProduct.clear();
+            Arrays.fill(slotTerms, null);
+            slotCount = 0;
+            freeCount = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked search. offset/limit page over the ranked hits.
+     */
+    public Hits search(String query, int offset, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.size() > MAX_QUERY_TOKENS) {
+            tokens = tokens.subList(0, MAX_QUERY_TOKENS);
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must be >= 0");
+        }
+        if (tokens.isEmpty() || limit <= 0) {
+            return new Hits(0, Collections.emptyList());
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = slotByProduct.size();
+            if (docCount == 0) {
+                return new Hits(0, Collections.emptyList());
+            }
+
+            Scratch s = scratch.get();
+            s.ensureCapacity(slotCount);
+            double avgLength = Math.max(1.0, totalLength / docCount);
+            int candidateCount = 0;
+
+            try {
+                for (int t = 0; t < tokens.size(); t++) {
+                    int touched = scoreToken(tokens.get(t), t, s, docCount, avgLength);
+
+                    // Fold this token's best score into the running total (AND semantics)
+                    for (int k = 0; k < touched; k++) {
+                        int slot = s.touched[k];
+                        s.total[slot] += s.best[slot];
+                        s.matched[slot] = (short) (t + 1);
+                        s.best[slot] = 0f;
+                    }
+
+                    if (t == 0) {
+                        // Later tokens can only narrow the first token's set
+                        System.arraycopy(s.touched, 0, s.candidates, 0, touched);
+                        candidateCount = touched;
+                    }
+
+                    if (touched == 0) {
+                        return new Hits(0, Collections.emptyList());
+                    }
+                }
+
+                return topK(s, candidateCount, tokens.size(), offset, limit);
+            } finally {
+                // Reset accumulators for the next query on this thread
+                for (int k = 0; k < candidateCount; k++) {
+                    int slot = s.candidates[k];
+                    s.total[slot] = 0f;
+                    s.matched[slot] = 0;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lowercase and split on anything that is not a letter, mark or digit
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String token : TOKEN_SPLIT.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // ========== internals ==========
+
+    private float addField(Map<String, Float> termFrequencies, String text, float boost) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            termFrequencies.merge(token, boost, Float::sum);
+        }
+        return tokens.size() * boost;
+    }
+
+    /**
+     * Score every document matching the token (exact term or prefix).
+     * For t > 0 only documents that matched all previous tokens are scored.
+     * Returns how many slots were written to scratch.touched / scratch.best.
+     */
+    private int scoreToken(String token, int t, Scratch s, int docCount, double avgLength) {
+        int touched = 0;
+        int expanded = 0;
+        double lengthBase = K1 * (1 - B);
+        double lengthNorm = K1 * B / avgLength;
+
+        // Every term starting with the token: [token, token + MAX_VALUE char)
+        for (Map.Entry<String, PostingList> entry
+                : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+
+            if (++expanded > MAX_PREFIX_TERMS) {
+                break;
+            }
+
+            PostingList list = entry.getValue();
+            double matchWeight = entry.getKey().equals(token) ? 1.0 : PREFIX_WEIGHT;
+            double idf = Math.log(1 + (docCount - list.size + 0.5) / (list.size + 0.5));
+            double weight = matchWeight * idf * (K1 + 1);
+
+            for (int i = 0; i < list.size; i++) {
+                int slot = list.slots[i];
+                if (s.matched[slot] != t) {
+                    continue;
+                }
+
+                double tf = list.frequencies[i];
+                float score = (float) (weight * tf / (tf + lengthBase + lengthNorm * slotLength[slot]));
+
+                // Best matching term per token counts, not the sum of all expansions
+                if (s.best[slot] == 0f) {
+                    s.touched[touched++] = slot;
+                }
+                if (score > s.best[slot]) {
+                    s.best[slot] = score;
+                }
+            }
+        }
+
+        return touched;
+    }
+
+    private Hits topK(Scratch s, int candidateCount, int tokenCount, int offset, int limit) {
+        // Min-heap of the best (offset + limit) slots: worst hit on top
+        int[] heap = new int[(int) Math.min((long) offset + limit, candidateCount)];
+        int heapSize = 0;
+        int total = 0;
+
+        for (int k = 0; k < candidateCount; k++) {
+            int slot = s.candidates[k];
+            if (s.matched[slot] != tokenCount) {
+                continue;
+            }
+            total++;
+
+            if (heapSize < heap.length) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++, s.total);
+            } else if (heap.length > 0 && ranksAbove(slot, heap[0], s.total)) {
+                heap[0] = slot;
+                siftDown(heap, heapSize, s.total);
+            }
+        }
+
+        // Drain from worst to best
+        int[] ranked = new int[heapSize];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, s.total);
+        }
+
+        List<Integer> page = new ArrayList<>(Math.max(0, ranked.length - offset));
+        for (int i = offset; i < ranked.length; i++) {
+            page.add(productBySlot[ranked[i]]);
+        }
+        return new Hits(total, page);
+    }
+
+    // Higher score first, then lower product id for a stable order
+    private boolean ranksAbove(int a, int b, float[] scores) {
+        if (scores[a] != scores[b]) {
+            return scores[a] > scores[b];
+        }
+        return productBySlot[a] < productBySlot[b];
+    }
+
+    private void siftUp(int[] heap, int i, float[] scores) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksAbove(heap[parent], heap[i], scores)) {
+                break;
+            }
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, float[] scores) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int worst = right < size && ranksAbove(heap[left], heap[right], scores) ? right : left;
+            if (!ranksAbove(heap[i], heap[worst], scores)) {
+                break;
+            }
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == productBySlot.length) {
+            int capacity = slotCount * 2;
+            productBySlot = Arrays.copyOf(productBySlot, capacity);
+            slotLength = Arrays.copyOf(slotLength, capacity);
+            slotTerms = Arrays.copyOf(slotTerms, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void removeLocked(Integer productId) {
+        Integer slot = slotByProduct.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        for (String term : slotTerms[slot]) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(slot);
+                if (list.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= slotLength[slot];
+        slotTerms[slot] = null;
+
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Unordered posting list; removal swaps in the last entry
+     */
+    private static final class PostingList {
+        int[] slots = new int[4];
+        float[] frequencies = new float[4];
+        int size;
+
+        void add(int slot, float frequency) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            slots[size] = slot;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    frequencies[i] = frequencies[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-thread score accumulators, indexed by document slot
+     */
+    private static final class Scratch {
+        float[] total = new float[0];
+        float[] best = new float[0];
+        short[] matched = new short[0];
+        int[] touched = new int[0];
+        int[] candidates = new int[0];
+
+        void ensureCapacity(int slots) {
+            if (total.length < slots) {
+                int capacity = Math.max(slots, total.length * 2);
+                total = Arrays.copyOf(total, capacity);
+                best = Arrays.copyOf(best, capacity);
+                matched = Arrays.copyOf(matched, capacity);
+                touched = Arrays.copyOf(touched, capacity);
+                candidates = Arrays.copyOf(candidates, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.minimart.api.service;
+
+import com.minimart.api.dto.ProductCursor;
+import com.minimart.api.model.Product;
+import com.minimart.api.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Product search served from an in-memory inverted index instead of
+ * LIKE '%keyword%' table scans.
+ *
+ * The index is built from the database on first use and then kept current by
+ * ProductService / CategoryService mutations (applied after commit).
+ */
+@Service
+public class ProductSearchService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogCacheService catalogCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    private volatile boolean built = false;
+
+    /**
+     * Ranked search, one page at a time
+     */
+    public Page<Product> search(String keyword, int page, int size) {
+        ensureBuilt();
+
+        ProductSearchIndex.Hits hits = index.search(keyword, pageOffset(page, size), size);
+
+        // Products come from the catalog cache (usually no DB hit)
+        List<Product> products = new ArrayList<>(hits.productIds().size());
+        for (Integer productId : hits.productIds()) {
+            Optional<Product> product = catalogCache.get(CatalogCacheService.productKey(productId),
+                    () -> productRepository.findById(productId));
+            product.ifPresent(products::add);
+        }
+
+        return new PageImpl<>(products, PageRequest.of(page, size), hits.total());
+    }
+
+    /**
+     * First row of a page. page * size can overflow int for huge page numbers;
+     * any offset past Integer.MAX_VALUE is past the last hit anyway (empty page).
+     */
+    static int pageOffset(int page, int size) {
+        return (int) Math.min((long) page * size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Index (or re-index) a product once the current transaction commits
+     */
+    public void indexProduct(Product product) {
+        Integer productId = product.getId();
+        String name = product.getName();
+        String detail = product.getDetail();
+        String categoryName = product.getCategory() != null ? product.getCategory().getName() : null;
+
+        afterCommit(() -> index.index(productId, name, detail, categoryName));
+    }
+
+    /**
+     * Remove a product once the current transaction commits
+     */
+    public void removeProduct(Integer productId) {
+        afterCommit(() -> index.remove(productId));
+    }
+
+    /**
+     * Category renamed: its products carry the category name as a search field
+     */
+    public void reindexCategory(Integer categoryId) {
+        afterCommit(() -> {
+            for (Product product : productRepository.findByCategoryId(categoryId)) {
+                index.index(product.getId(), product.getName(), product.getDetail(),
+                        product.getCategory().getName());
+            }
+        });
+    }
+
+    /**
+     * Drop and rebuild the whole index from the database
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        index.clear();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Product> products = productRepository.streamPage(ProductCursor.Sort.ID, null, null, null)) {
+                products.forEach(product -> {
+                    index.index(product.getId(), product.getName(),
+                            product.getDetail(), product.getCategory().getName());
+                    entityManager.detach(product);
+                });
+            }
+        });
+
+        built = true;
+        System.out.println("✅ Product search index built: " + index.size() + " products in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.minimart.api.service;
 
+import com.minimart.api.dto.ProductCursor;
 import com.minimart.api.model.Product;
 import com.minimart.api.model.Stock;
 import com.minimart.api.model.Category;
 import com.minimart.api.repository.ProductRepository;
 import com.minimart.api.repository.StockRepository;
 import com.minimart.api.repository.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -30,50 +38,113 @@ public class ProductService {
     @Autowired
     private FileStorageService fileStorageService;
     
+    @Autowired
+    private CatalogCacheService catalogCache;
+    
+    @Autowired
+    private ProductSearchService productSearchService;
+    
+    @Autowired
+    private ProductSuggestService productSuggestService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     // Get all products
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return catalogCache.get(CatalogCacheService.productListKey(null, "all"),
+                () -> productRepository.findAll());
     }
     
     // Get all products ordered by name
     public List<Product> getAllProductsOrderedByName() {
-        return productRepository.findAllByOrderByNameAsc();
+        return catalogCache.get(CatalogCacheService.productListKey(null, "name"),
+                () -> productRepository.findAllByOrderByNameAsc());
     }
     
     // Get all products ordered by price
     public List<Product> getAllProductsOrderedByPrice(String direction) {
         if ("desc".equalsIgnoreCase(direction)) {
-            return productRepository.findAllByOrderByPriceDesc();
+            return catalogCache.get(CatalogCacheService.productListKey(null, "price_desc"),
+                    () -> productRepository.findAllByOrderByPriceDesc());
         }
-        return productRepository.findAllByOrderByPriceAsc();
+        return catalogCache.get(CatalogCacheService.productListKey(null, "price_asc"),
+                () -> productRepository.findAllByOrderByPriceAsc());
     }
     
     // Get all products ordered by creation date
     public List<Product> getAllProductsOrderedByDate() {
-        return productRepository.findAllByOrderByCreatedAtDesc();
+        return catalogCache.get(CatalogCacheService.productListKey(null, "date"),
+                () -> productRepository.findAllByOrderByCreatedAtDesc());
+    }
+    
+    /**
+     * Stream one keyset page of products to the sink as rows are read.
+     * Each product is detached after it is handed over, so heap use stays flat
+     * no matter how large the page (or the whole catalog when limit is null) is.
+     * Returns the cursor of the last product sent, or null if nothing was sent.
+     * Bounded pages (limit != null) are served from the catalog cache.
+     */
+    @Transactional(readOnly = true)
+    public ProductCursor streamProducts(ProductCursor.Sort sort, ProductCursor after,
+                                        Integer categoryId, Integer limit, Consumer<Product> sink) {
+        ProductCursor last = null;
+        
+        if (limit != null) {
+            String pageKey = CatalogCacheService.productListKey(categoryId,
+                    "page:" + sort + ":" + (after != null ? after.encode() : "") + ":" + limit);
+            
+            List<Product> page = catalogCache.get(pageKey, () -> {
+                try (Stream<Product> products = productRepository.streamPage(sort, after, categoryId, limit)) {
+                    return products.toList();
+                }
+            });
+            
+            for (Product product : page) {
+                sink.accept(product);
+                last = ProductCursor.of(sort, product);
+            }
+            return last;
+        }
+        
+        try (Stream<Product> products = productRepository.streamPage(sort, after, categoryId, limit)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                sink.accept(product);
+                last = ProductCursor.of(sort, product);
+                entityManager.detach(product);
+            }
+        }
+        
+        return last;
     }
     
     // Get product by ID
     public Optional<Product> getProductById(Integer id) {
-        return productRepository.findById(id);
+        return catalogCache.get(CatalogCacheService.productKey(id),
+                () -> productRepository.findById(id));
     }
     
     // Get products by category
     public List<Product> getProductsByCategory(Integer categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+        return catalogCache.get(CatalogCacheService.productListKey(categoryId, "all"),
+                () -> productRepository.findByCategoryId(categoryId));
     }
     
     // Get products by category ordered by name
     public List<Product> getProductsByCategoryOrderedByName(Integer categoryId) {
-        return productRepository.findByCategoryIdOrderByNameAsc(categoryId);
+        return catalogCache.get(CatalogCacheService.productListKey(categoryId, "name"),
+                () -> productRepository.findByCategoryIdOrderByNameAsc(categoryId));
     }
     
-    // Search products
-    public List<Product> searchProducts(String keyword) {
+    // Search products (ranked, paged, served from the in-memory search index)
+    public Page<Product> searchProducts(String keyword, int page, int size) {
         if (keyword == null || keyword.trim().isEmpty()) {
-            return getAllProducts();
+            List<Product> all = getAllProducts();
+            int from = Math.min(ProductSearchService.pageOffset(page, size), all.size());
+            int to = Math.min(from + size, all.size());
+            return new PageImpl<>(all.subList(from, to), PageRequest.of(page, size), all.size());
         }
-        return productRepository.searchProducts(keyword.trim());
+        return productSearchService.search(keyword.trim(), page, size);
     }
     
     // Get products with low stock
@@ -109,7 +180,11 @@ public class ProductService {
         product.setStock(stock);
         
         // Save product (stock will be saved automatically due to cascade)
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        catalogCache.invalidateProduct(savedProduct.getId(), category.getId());
+        productSearchService.indexProduct(savedProduct);
+        productSuggestService.indexProduct(savedProduct);
+        return savedProduct;
     }
     
     // Update product with stock
@@ -120,6 +195,8 @@ public class ProductService {
         // Validate product details
         validateProduct(productDetails);
         
+        Integer oldCategoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        
         // Check if category exists
         Category category = categoryRepository.findById(productDetails.getCategory().getId())
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + productDetails.getCategory().getId()));
@@ -149,7 +226,11 @@ public class ProductService {
             }
         }
         
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        catalogCache.invalidateProduct(id, oldCategoryId, category.getId());
+        productSearchService.indexProduct(savedProduct);
+        productSuggestService.indexProduct(savedProduct);
+        return savedProduct;
     }
     
     // Delete product
@@ -159,21 +240,20 @@ public class ProductService {
         
         // Delete image file if exists
         if (product.getImage() != null && !product.getImage().isEmpty()) {
-            String filename = extractFilenameFromUrl(product.getImage());
-            String categoryName = product.getCategory().getName();
-            
-            if (filename != null && !filename.isEmpty()) {
-                try {
-                    fileStorageService.deleteFileInCategoryFolder(filename, categoryName);
-                    System.out.println("🗑️ Deleted product image: " + filename);
-                } catch (Exception e) {
-                    System.err.println("⚠️ Failed to delete product image: " + e.getMessage());
-                }
+            try {
+                // Located by its URL, which does not change with the category
+                fileStorageService.deleteProductImage(product.getImage());
+                System.out.println("🗑️ Deleted product image: " + product.getImage());
+            } catch (Exception e) {
+                System.err.println("⚠️ Failed to delete product image: " + e.getMessage());
             }
         }
         
         productRepository.delete(product);
         // Stock will be deleted automatically due to cascade = CascadeType.ALL
+        catalogCache.invalidateProduct(id, product.getCategory().getId());
+        productSearchService.removeProduct(id);
+        productSuggestService.removeProduct(id);
     }
     
     // Check if product exists
@@ -210,7 +290,9 @@ public class ProductService {
             stock.setQty(stock.getQty() + quantity);
         }
         
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        catalogCache.invalidateProduct(productId, product.getCategory().getId());
+        return savedProduct;
     }
     
     // Remove stock (decrease stock quantity)
@@ -233,7 +315,9 @@ public class ProductService {
         }
         
         stock.setQty(newQty);
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        catalogCache.invalidateProduct(productId, product.getCategory().getId());
+        return savedProduct;
     }
     
     // Set stock (replace stock quantity)
@@ -253,7 +337,9 @@ public class ProductService {
             stock.setQty(quantity);
         }
         
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        catalogCache.invalidateProduct(productId, product.getCategory().getId());
+        return savedProduct;
     }
     
     // Validate product
@@ -270,18 +356,4 @@ public class ProductService {
             throw new RuntimeException("Product category is required");
         }
     }
-    
-    // Extract filename from URL
-    private String extractFilenameFromUrl(String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) {
-            return null;
-        }
-        
-        int lastSlashIndex = imageUrl.lastIndexOf('/');
-        if (lastSlashIndex != -1 && lastSlashIndex < imageUrl.length() - 1) {
-            return imageUrl.substring(lastSlashIndex + 1);
-        }
-        
-        return null;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,297 @@
+package com.minimart.api.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix trie over product and category names for search-as-you-type.
+ *
+ * Every word start of a name is a key ("Coca Cola 330ml" is reachable from
+ * "coca...", "cola..." and "330ml..."). Each node caches its top completions
+ * by popularity, so a lookup is one walk down the trie plus a copy of at most
+ * MAX_RESULTS entries, independent of catalog size.
+ *
+ * Reads share a read lock; put/remove take the write lock.
+ */
+public class ProductSuggestIndex {
+
+    public static final int MAX_RESULTS = 10;
+
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    // Most popular first, then shorter, then alphabetical
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingLong(Suggestion::popularity).reversed()
+            .thenComparingInt(suggestion -> suggestion.text().length())
+            .thenComparing(Suggestion::text)
+            .thenComparing(Suggestion::key);
+
+    /**
+     * One completion. type is "product" or "category".
+     */
+    public record Suggestion(String type, Integer id, String text, long popularity) {
+        String key() {
+            return type + ":" + id;
+        }
+    }
+
+    private static final class Node {
+        Map<Character, Node> children;
+        List<Suggestion> endingHere;
+        Suggestion[] top = NONE;
+    }
+
+    private final Node root = new Node();
+
+    // "product:12" -> current entry
+    private final Map<String, Suggestion> entries = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Add or replace an entry
+     */
+    public void put(String type, Integer id, String text, long popularity) {
+        lock.writeLock().lock();
+        try {
+            putLocked(type, id, text, popularity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Raise popularity of an existing entry (e.g. units sold). Cheaper than put:
+     * a higher score can only move the entry up, so no node needs a full recompute.
+     */
+    public void addPopularity(String type, Integer id, long delta) {
+        lock.writeLock().lock();
+        try {
+            addPopularityLocked(type, id, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove an entry (no-op if unknown)
+     */
+    public void remove(String type, Integer id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(type, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top completions for a prefix, most popular first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < normalized.length() && node != null; i++) {
+                node = node.children == null ? null : node.children.get(normalized.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+
+            Suggestion[] top = node.top;
+            return Arrays.asList(Arrays.copyOf(top, Math.min(limit, top.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Current popularity of an entry (0 if unknown)
+     */
+    public long popularity(String type, Integer id) {
+        lock.readLock().lock();
+        try {
+            Suggestion suggestion = entries.get(type + ":" + id);
+            return suggestion != null ? suggestion.popularity() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lowercased tokens joined by single spaces (same tokenizer as product search)
+     */
+    static String normalize(String text) {
+        return String.join(" ", ProductSearchIndex.tokenize(text));
+    }
+
+    // ========== internals ==========
+
+    private void putLocked(String type, Integer id, String text, long popularity) {
+        removeLocked(type, id);
+        Suggestion suggestion = new Suggestion(type, id, text, popularity);
+        List<String> keys = keys(text);
+        if (keys.isEmpty()) {
+            return;
+        }
+        entries.put(suggestion.key(), suggestion);
+
+        for (String key : keys) {
+            Node node = root;
+            offer(node, suggestion, null);
+            for (int i = 0; i < key.length(); i++) {
+                if (node.children == null) {
+                    node.children = new HashMap<>(4);
+                }
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                offer(node, suggestion, null);
+            }
+            if (node.endingHere == null) {
+                node.endingHere = new ArrayList<>(1);
+            }
+            node.endingHere.add(suggestion);
+        }
+    }
+
+    private void addPopularityLocked(String type, Integer id, long delta) {
+        Suggestion old = entries.get(type + ":" + id);
+        if (old == null || delta == 0) {
+            return;
+        }
+        if (delta < 0) {
+            putLocked(type, id, old.text(), old.popularity() + delta);
+            return;
+        }
+
+        Suggestion updated = new Suggestion(type, id, old.text(), old.popularity() + delta);
+        entries.put(updated.key(), updated);
+
+        for (String key : keys(old.text())) {
+            Node node = root;
+            offer(node, updated, old);
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.get(key.charAt(i));
+                offer(node, updated, old);
+            }
+            node.endingHere.replaceAll(existing -> existing.key().equals(updated.key()) ? updated : existing);
+        }
+    }
+
+    private void removeLocked(String type, Integer id) {
+        Suggestion old = entries.remove(type + ":" + id);
+        if (old == null) {
+            return;
+        }
+
+        for (String key : keys(old.text())) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < key.length(); i++) {
+                path[i + 1] = path[i].children.get(key.charAt(i));
+            }
+
+            Node last = path[key.length()];
+            last.endingHere.removeIf(existing -> existing.key().equals(old.key()));
+
+            // Recompute cached tops bottom-up and prune empty branches
+            for (int i = key.length(); i >= 0; i--) {
+                Node node = path[i];
+                recompute(node);
+                if (i > 0 && node.top.length == 0) {
+                    path[i - 1].children.remove(key.charAt(i - 1));
+                }
+            }
+        }
+    }
+
+    // One key per word start: "coca cola 330ml", "cola 330ml", "330ml"
+    private static List<String> keys(String text) {
+        List<String> tokens = ProductSearchIndex.tokenize(text);
+        List<String> keys = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            keys.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return keys;
+    }
+
+    /**
+     * Merge one entry into a node's cached top (replacing the previous version of it)
+     */
+    private void offer(Node node, Suggestion suggestion, Suggestion previous) {
+        Suggestion[] top = node.top;
+        String key = suggestion.key();
+
+        int existing = -1;
+        for (int i = 0; i < top.length; i++) {
+            if (top[i].key().equals(key)) {
+                existing = i;
+                break;
+            }
+        }
+
+        if (existing < 0 && top.length == MAX_RESULTS
+                && RANKING.compare(suggestion, top[top.length - 1]) >= 0) {
+            return;
+        }
+        if (existing >= 0 && top[existing] != previous && RANKING.compare(suggestion, top[existing]) >= 0) {
+            // Same entry already present via another word of its name
+            return;
+        }
+
+        List<Suggestion> merged = new ArrayList<>(top.length + 1);
+        for (int i = 0; i < top.length; i++) {
+            if (i != existing) {
+                merged.add(top[i]);
+            }
+        }
+        merged.add(suggestion);
+        merged.sort(RANKING);
+        if (merged.size() > MAX_RESULTS) {
+            merged = merged.subList(0, MAX_RESULTS);
+        }
+        node.top = merged.toArray(NONE);
+    }
+
+    private void recompute(Node node) {
+        Map<String, Suggestion> candidates = new LinkedHashMap<>();
+        if (node.endingHere != null) {
+            node.endingHere.forEach(suggestion -> candidates.put(suggestion.key(), suggestion));
+        }
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                for (Suggestion suggestion : child.top) {
+                    candidates.put(suggestion.key(), suggestion);
+                }
+            }
+        }
+
+        List<Suggestion> merged = new ArrayList<>(candidates.values());
+        merged.sort(RANKING);
+        if (merged.size() > MAX_RESULTS) {
+            merged = merged.subList(0, MAX_RESULTS);
+        }
+        node.top = merged.toArray(NONE);
+    }
+}
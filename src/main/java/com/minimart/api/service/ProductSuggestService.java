@@ -0,0 +1,224 @@
+package com.minimart.api.service;
+
+import com.minimart.api.dto.ProductCursor;
+import com.minimart.api.model.Category;
+import com.minimart.api.model.Product;
+import com.minimart.api.repository.CategoryRepository;
+import com.minimart.api.repository.OrderDetailRepository;
+import com.minimart.api.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Search-as-you-type completions over product and category names.
+ *
+ * Popularity is units sold on paid orders (a category scores the sum of its
+ * products). The trie is built from the database on first use, then kept
+ * current by product / category mutations and sales (applied after commit).
+ * Changes committed while a build is reading the database are queued and
+ * replayed on the new trie before it is swapped in.
+ */
+@Service
+public class ProductSuggestService {
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_CATEGORY = "category";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Guards index swaps, productCategories and buildBacklog
+    private final Object updateLock = new Object();
+
+    private volatile ProductSuggestIndex index;
+
+    // Category whose score each indexed product's sales count towards
+    private Map<Integer, Integer> productCategories = new HashMap<>();
+
+    // Non-null while rebuild() runs: updates committed meanwhile, replayed on the fresh index
+    private List<BiConsumer<ProductSuggestIndex, Map<Integer, Integer>>> buildBacklog;
+
+    /**
+     * Top completions for a prefix, most popular first
+     */
+    public List<ProductSuggestIndex.Suggestion> suggest(String prefix, int limit) {
+        return ensureBuilt().suggest(prefix, limit);
+    }
+
+    public void indexProduct(Product product) {
+        Integer productId = product.getId();
+        String name = product.getName();
+        Integer categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+
+        afterCommit(() -> apply((current, categories) -> {
+            long units = current.popularity(TYPE_PRODUCT, productId);
+            current.put(TYPE_PRODUCT, productId, name, units);
+            if (categoryId == null) {
+                return;
+            }
+            // Moved to another category: its sales move along
+            Integer previous = categories.put(productId, categoryId);
+            if (previous != null && !previous.equals(categoryId)) {
+                current.addPopularity(TYPE_CATEGORY, previous, -units);
+                current.addPopularity(TYPE_CATEGORY, categoryId, units);
+            }
+        }));
+    }
+
+    public void removeProduct(Integer productId) {
+        afterCommit(() -> apply((current, categories) -> {
+            Integer categoryId = categories.remove(productId);
+            if (categoryId != null) {
+                current.addPopularity(TYPE_CATEGORY, categoryId, -current.popularity(TYPE_PRODUCT, productId));
+            }
+            current.remove(TYPE_PRODUCT, productId);
+        }));
+    }
+
+    public void indexCategory(Category category) {
+        Integer categoryId = category.getId();
+        String name = category.getName();
+
+        afterCommit(() -> apply((current, categories) ->
+                current.put(TYPE_CATEGORY, categoryId, name, current.popularity(TYPE_CATEGORY, categoryId))));
+    }
+
+    public void removeCategory(Integer categoryId) {
+        afterCommit(() -> apply((current, categories) -> current.remove(TYPE_CATEGORY, categoryId)));
+    }
+
+    /**
+     * Units of a product were sold (order paid)
+     */
+    public void recordSale(Product product, int qty) {
+        Integer productId = product.getId();
+        Integer saleCategoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+
+        afterCommit(() -> apply((current, categories) -> {
+            current.addPopularity(TYPE_PRODUCT, productId, qty);
+            Integer categoryId = categories.getOrDefault(productId, saleCategoryId);
+            if (categoryId != null) {
+                current.addPopularity(TYPE_CATEGORY, categoryId, qty);
+            }
+        }));
+    }
+
+    /**
+     * Build a fresh trie from the database and swap it in
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        ProductSuggestIndex fresh = new ProductSuggestIndex();
+        Map<Integer, Integer> freshCategories = new HashMap<>();
+
+        synchronized (updateLock) {
+            buildBacklog = new ArrayList<>();
+        }
+        try {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                Map<Integer, Long> sold = new HashMap<>();
+                for (Object[] row : orderDetailRepository.sumPaidQtyByProduct()) {
+                    sold.put((Integer) row[0], ((Number) row[1]).longValue());
+                }
+
+                Map<Integer, Long> soldByCategory = new HashMap<>();
+                try (Stream<Product> products = productRepository.streamPage(ProductCursor.Sort.ID, null, null, null)) {
+                    products.forEach(product -> {
+                        long units = sold.getOrDefault(product.getId(), 0L);
+                        Integer categoryId = product.getCategory().getId();
+                        fresh.put(TYPE_PRODUCT, product.getId(), product.getName(), units);
+                        freshCategories.put(product.getId(), categoryId);
+                        soldByCategory.merge(categoryId, units, Long::sum);
+                        entityManager.detach(product);
+                    });
+                }
+
+                for (Category category : categoryRepository.findAll()) {
+                    fresh.put(TYPE_CATEGORY, category.getId(), category.getName(),
+                            soldByCategory.getOrDefault(category.getId(), 0L));
+                }
+            });
+
+            // Changes committed while the database was being read would otherwise be lost
+            synchronized (updateLock) {
+                for (BiConsumer<ProductSuggestIndex, Map<Integer, Integer>> update : buildBacklog) {
+                    update.accept(fresh, freshCategories);
+                }
+                productCategories = freshCategories;
+                index = fresh;
+            }
+        } finally {
+            synchronized (updateLock) {
+                buildBacklog = null;
+            }
+        }
+
+        System.out.println("✅ Product suggest index built: " + fresh.size() + " entries in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private ProductSuggestIndex ensureBuilt() {
+        ProductSuggestIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    rebuild();
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    // Apply to the live index (if built) and to the one being built (if any)
+    private void apply(BiConsumer<ProductSuggestIndex, Map<Integer, Integer>> update) {
+        synchronized (updateLock) {
+            if (buildBacklog != null) {
+                buildBacklog.add(update);
+            }
+            if (index != null) {
+                update.accept(index, productCategories);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
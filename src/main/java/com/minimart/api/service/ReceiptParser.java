@@ -0,0 +1,318 @@
+package com.minimart.api.service;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bank transfer receipt parser for OCR text.
+ *
+ * One precompiled pattern recognises every token we care about (bank name,
+ * labelled IDs, amounts, dates, bare numbers); the text is scanned once and
+ * each hit is ranked. The detected bank's template decides which ID label
+ * wins and how numeric dates are read. Stateless and thread-safe.
+ */
+public class ReceiptParser {
+
+    public static final String UNKNOWN_BANK = "UNKNOWN";
+
+    private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("999999.99");
+
+    private static final int MAX_LABELLED_IDS = 8;
+
+    // Amount label must be this close (chars) before the number to count
+    private static final int LABEL_REACH = 40;
+
+    private static final String MONTH = "(?:jan|feb|mar|apr|may|jun|jul|aug|sep|oct|nov|dec)[a-z]*\\.?";
+    private static final String NUMBER = "[\\d,]+(?:\\.\\d{1,2})?";
+
+    // Tokens only start at a word start: the lookbehind rejects mid-word positions before any alternative is tried
+    private static final Pattern TOKENS = Pattern.compile("(?<![\\p{Alnum},.])(?:" + String.join("|",
+            "(?<bank>\\bABA\\b|\\bACLEDA\\b|\\bWing\\b|\\bBakong\\b|\\bCanadia\\b|\\bPrince\\b)",
+            "(?<idLabel>Tax\\s*ID|Trx\\.?\\s*ID|TRX\\s*ID|Transaction\\s*(?:ID|No\\.?|Number)|Txn\\.?\\s*ID"
+                    + "|Reference\\s*(?:No\\.?|Number)?|Ref\\.?(?:\\s*No\\.?)?)"
+                    + "\\s*[:#]?\\s*(?<id>[A-Z0-9]{5,20})\\b",
+            "(?<amountLabel>\\bAmount\\b|\\bTotal\\b|You\\s+received|\\bReceived\\b|Transfer\\s+amount)",
+            "(?<cur1>US\\$|USD|\\$|KHR|៛)\\s*(?<amt1>-?" + NUMBER + ")",
+            "(?<amt2>-?" + NUMBER + ")\\s*(?<cur2>USD|\\$|KHR|៛)",
+            // Oct 19, 2025 | 4:01PM
+            "(?<mon>" + MONTH + ")\\s+(?<day>\\d{1,2}),?\\s+(?<year>\\d{4})"
+                    + "(?:\\s*[|,]?\\s*(?<hour>\\d{1,2}):(?<min>\\d{2})\\s*(?<ampm>AM|PM)?)?",
+            // 19 Oct 2025 16:01
+            "(?<day2>\\d{1,2})\\s+(?<mon2>" + MONTH + ")\\s+(?<year2>\\d{4})"
+                    + "(?:\\s*[|,]?\\s*(?<hour2>\\d{1,2}):(?<min2>\\d{2})\\s*(?<ampm2>AM|PM)?)?",
+            // 19/10/2025 16:01 (day/month order depends on the bank)
+            "(?<n1>\\d{1,2})[/-](?<n2>\\d{1,2})[/-](?<n3>\\d{4})(?:\\s+(?<hour3>\\d{1,2}):(?<min3>\\d{2}))?",
+            // 2025-10-19
+            "(?<iy>\\d{4})[/-](?<im>\\d{2})[/-](?<id3>\\d{2})",
+            "\\b(?<code>[A-Z]{2}\\d{10,15})\\b",
+            "\\b(?<bare>\\d{10,15})\\b",
+            "(?<dec>\\d[\\d,]*\\.\\d{2})\\b"
+    ) + ")", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Bank-specific reading rules: label preference for the transaction ID
+     * (earlier = preferred) and whether 01/02/2025 means 1 Feb (day first).
+     */
+    record BankTemplate(String bank, List<String> idLabels, boolean dayFirst) {
+    }
+
+    static final List<BankTemplate> TEMPLATES = List.of(
+            new BankTemplate("ABA", List.of("trxid", "taxid", "transactionid", "reference"), true),
+            new BankTemplate("ACLEDA", List.of("transactionid", "transactionno", "txnid", "reference", "referenceno"), true),
+            new BankTemplate("WING", List.of("transactionid", "txnid", "taxid", "reference"), true),
+            new BankTemplate("BAKONG", List.of("transactionid", "reference", "referenceno"), true)
+    );
+
+    private static final BankTemplate GENERIC =
+            new BankTemplate(UNKNOWN_BANK, List.of("taxid", "trxid", "transactionid", "txnid", "transactionno", "reference", "ref"), true);
+
+    /**
+     * Parse result. Any field may be null; confidence is 0..1 and reflects how
+     * much of the receipt matched a known layout (label + currency + bank).
+     */
+    public record Receipt(String bank, BigDecimal amount, String currency, String transactionId,
+                          String reference, LocalDateTime transactionDate, double confidence) {
+    }
+
+    public Receipt parse(String text) {
+        if (text == null || text.isBlank()) {
+            return new Receipt(UNKNOWN_BANK, null, null, null, null, null, 0);
+        }
+
+        String bank = null;
+
+        // Amount: rank 3 labelled + currency, 2 currency, 1 labelled bare decimal, 0 bare decimal
+        BigDecimal amount = null;
+        String currency = null;
+        int amountRank = -1;
+        int amountLabelEnd = -1;
+
+        // Labelled IDs, resolved against the bank template after the scan
+        String[] labelledIds = new String[MAX_LABELLED_IDS];
+        String[] labelsSeen = new String[labelledIds.length];
+        int labelledCount = 0;
+        String reference = null;
+        String bareId = null;
+        String codeId = null;
+
+        LocalDateTime date = null;
+        boolean dateHasTime = false;
+        int[] numericDate = null;
+
+        Matcher m = TOKENS.matcher(text);
+        while (m.find()) {
+            if (m.start("bank") >= 0) {
+                if (bank == null) {
+                    bank = m.group("bank").toUpperCase(Locale.ROOT);
+                }
+            } else if (m.start("idLabel") >= 0) {
+                String label = normalizeLabel(m.group("idLabel"));
+                String id = m.group("id").toUpperCase(Locale.ROOT);
+                if (label.startsWith("ref") && reference == null) {
+                    reference = id;
+                }
+                if (labelledCount < labelledIds.length && hasDigit(id)) {
+                    labelsSeen[labelledCount] = label;
+                    labelledIds[labelledCount++] = id;
+                }
+            } else if (m.start("amountLabel") >= 0) {
+                amountLabelEnd = m.end();
+            } else if (m.start("amt1") >= 0 || m.start("amt2") >= 0) {
+                boolean first = m.start("amt1") >= 0;
+                BigDecimal value = toAmount(m.group(first ? "amt1" : "amt2"));
+                if (value != null) {
+                    int rank = labelled(amountLabelEnd, m.start()) ? 3 : 2;
+                    if (rank > amountRank) {
+                        amount = value;
+                        currency = currencyCode(m.group(first ? "cur1" : "cur2"));
+                        amountRank = rank;
+                    }
+                }
+            } else if (m.start("dec") >= 0) {
+                BigDecimal value = toAmount(m.group("dec"));
+                if (value != null) {
+                    int rank = labelled(amountLabelEnd, m.start()) ? 1 : 0;
+                    if (rank > amountRank) {
+                        amount = value;
+                        currency = null;
+                        amountRank = rank;
+                    }
+                }
+            } else if (m.start("mon") >= 0 || m.start("mon2") >= 0) {
+                boolean first = m.start("mon") >= 0;
+                boolean hasTime = m.start(first ? "hour" : "hour2") >= 0;
+                if (date == null || (hasTime && !dateHasTime)) {
+                    LocalDateTime parsed = toDate(
+                            Integer.parseInt(m.group(first ? "year" : "year2")),
+                            month(m.group(first ? "mon" : "mon2")),
+                            Integer.parseInt(m.group(first ? "day" : "day2")),
+                            m.group(first ? "hour" : "hour2"),
+                            m.group(first ? "min" : "min2"),
+                            m.group(first ? "ampm" : "ampm2"));
+                    if (parsed != null) {
+                        date = parsed;
+                        dateHasTime = hasTime;
+                    }
+                }
+            } else if (m.start("n1") >= 0) {
+                if (date == null && numericDate == null) {
+                    // Resolved once the bank (and so the day/month order) is known
+                    numericDate = new int[]{
+                            Integer.parseInt(m.group("n1")), Integer.parseInt(m.group("n2")),
+                            Integer.parseInt(m.group("n3")),
+                            m.start("hour3") >= 0 ? Integer.parseInt(m.group("hour3")) : -1,
+                            m.start("min3") >= 0 ? Integer.parseInt(m.group("min3")) : 0};
+                }
+            } else if (m.start("iy") >= 0) {
+                if (date == null) {
+                    date = toDate(Integer.parseInt(m.group("iy")), Integer.parseInt(m.group("im")),
+                            Integer.parseInt(m.group("id3")), null, null, null);
+                }
+            } else if (m.start("code") >= 0) {
+                if (codeId == null) {
+                    codeId = m.group("code").toUpperCase(Locale.ROOT);
+                }
+            } else if (m.start("bare") >= 0) {
+                if (bareId == null) {
+                    bareId = m.group("bare");
+                }
+            }
+        }
+
+        BankTemplate template = template(bank);
+
+        if (date == null && numericDate != null) {
+            int day = template.dayFirst() ? numericDate[0] : numericDate[1];
+            int month = template.dayFirst() ? numericDate[1] : numericDate[0];
+            date = toDate(numericDate[2], month, day,
+                    numericDate[3] >= 0 ? String.valueOf(numericDate[3]) : null,
+                    String.valueOf(numericDate[4]), null);
+            dateHasTime = date != null && numericDate[3] >= 0;
+        }
+
+        // Transaction ID: template's label order, then any label, then bare number / code
+        String transactionId = null;
+        double idScore = 0;
+        for (int p = 0; p < template.idLabels().size() && transactionId == null; p++) {
+            for (int i = 0; i < labelledCount; i++) {
+                if (labelsSeen[i].equals(template.idLabels().get(p))) {
+                    transactionId = labelledIds[i];
+                    idScore = 0.35;
+                    break;
+                }
+            }
+        }
+        if (transactionId == null && labelledCount > 0) {
+            transactionId = labelledIds[0];
+            idScore = 0.25;
+        }
+        if (transactionId == null && bareId != null) {
+            transactionId = bareId;
+            idScore = 0.1;
+        }
+        if (transactionId == null && codeId != null) {
+            transactionId = codeId;
+            idScore = 0.1;
+        }
+
+        double confidence = idScore
+                + (bank != null ? 0.15 : 0)
+                + (amountRank == 3 ? 0.3 : amountRank == 2 ? 0.25 : amountRank == 1 ? 0.15 : amountRank == 0 ? 0.05 : 0)
+                + (date == null ? 0 : dateHasTime ? 0.2 : 0.15);
+
+        return new Receipt(template.bank(), amount, currency, transactionId, reference, date,
+                Math.min(1.0, Math.round(confidence * 100) / 100.0));
+    }
+
+    // ========== helpers ==========
+
+    private static BankTemplate template(String bank) {
+        if (bank != null) {
+            for (BankTemplate template : TEMPLATES) {
+                if (template.bank().equals(bank)) {
+                    return template;
+                }
+            }
+            return new BankTemplate(bank, GENERIC.idLabels(), GENERIC.dayFirst());
+        }
+        return GENERIC;
+    }
+
+    // "Trx. ID" -> "trxid", "Reference No." -> "referenceno"
+    private static String normalizeLabel(String label) {
+        StringBuilder normalized = new StringBuilder(label.length());
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (Character.isLetter(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString().replace("number", "no");
+    }
+
+    private static boolean hasDigit(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isDigit(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean labelled(int labelEnd, int amountStart) {
+        return labelEnd >= 0 && amountStart >= labelEnd && amountStart - labelEnd <= LABEL_REACH;
+    }
+
+    private static BigDecimal toAmount(String raw) {
+        try {
+            BigDecimal value = new BigDecimal(raw.replace(",", "").replace("-", ""));
+            return value.compareTo(MIN_AMOUNT) >= 0 && value.compareTo(MAX_AMOUNT) <= 0 ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String currencyCode(String symbol) {
+        return switch (symbol.toUpperCase(Locale.ROOT)) {
+            case "KHR", "៛" -> "KHR";
+            default -> "USD";
+        };
+    }
+
+    private static int month(String name) {
+        return switch (name.substring(0, 3).toLowerCase(Locale.ROOT)) {
+            case "jan" -> 1;
+            case "feb" -> 2;
+            case "mar" -> 3;
+            case "apr" -> 4;
+            case "may" -> 5;
+            case "jun" -> 6;
+            case "jul" -> 7;
+            case "aug" -> 8;
+            case "sep" -> 9;
+            case "oct" -> 10;
+            case "nov" -> 11;
+            default -> 12;
+        };
+    }
+
+    private static LocalDateTime toDate(int year, int month, int day, String hour, String minute, String ampm) {
+        try {
+            int h = hour != null ? Integer.parseInt(hour) : 0;
+            int min = minute != null && hour != null ? Integer.parseInt(minute) : 0;
+            if (ampm != null) {
+                boolean pm = ampm.equalsIgnoreCase("PM");
+                h = h % 12 + (pm ? 12 : 0);
+            }
+            return LocalDateTime.of(year, month, day, h, min);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.minimart.api.service;
+
+import com.minimart.api.model.RefreshToken;
+import com.minimart.api.repository.RefreshTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Opaque refresh tokens with rotation.
+ *
+ * A refresh token is 256 random bits handed to the client once; the database
+ * keeps only its SHA-256. Every refresh marks the presented token as rotated
+ * and issues a new one in the same family. Presenting a rotated token again
+ * means it was copied, so the whole family is revoked and the user has to
+ * log in again.
+ *
+ * Rotated rows are kept until they expire (that is what catches reuse);
+ * expired and revoked rows are purged every prune interval.
+ */
+@Service
+public class RefreshTokenService {
+
+    /**
+     * Result of a successful rotation
+     */
+    public record Rotation(Long userId, String refreshToken) {
+    }
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${jwt.refresh-token-expiration:2592000000}")
+    private long refreshTokenExpiration;
+
+    @Value("${jwt.refresh-token-prune-interval-ms:3600000}")
+    private long pruneIntervalMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    private long nextPruneAt;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * New refresh token for a fresh login (starts a new family)
+     */
+    public String issue(Long userId) {
+        String refreshToken = issue(userId, UUID.randomUUID().toString());
+        pruneIfDue();
+        return refreshToken;
+    }
+
+    /**
+     * Exchange a refresh token for a new one. Throws if it is unknown, expired,
+     * revoked or already used (reuse revokes its whole family).
+     */
+    public Rotation rotate(String refreshToken) {
+        RefreshToken token = find(refreshToken);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Old token retired and new one saved together: if the save fails, the old one still works
+        Rotation rotation = transactionTemplate.execute(status -> {
+            if (refreshTokenRepository.markRotated(token.getTokenHash(), now) == 0) {
+                return null;
+            }
+            return new Rotation(token.getUserId(), issue(token.getUserId(), token.getFamilyId()));
+        });
+
+        if (rotation == null) {
+            if (token.getRotatedAt() != null && token.getRevokedAt() == null) {
+                refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+                System.out.println("⚠️ Refresh token reused, session revoked for user " + token.getUserId());
+            }
+            throw new RuntimeException("Refresh token is expired or revoked");
+        }
+        pruneIfDue();
+        return rotation;
+    }
+
+    /**
+     * Revoke the session a refresh token belongs to
+     */
+    public void revoke(String refreshToken) {
+        RefreshToken token = find(refreshToken);
+        refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now());
+    }
+
+    /**
+     * Revoke every session of a user (password reset, "log out everywhere")
+     */
+    public int revokeAllForUser(Long userId) {
+        return refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    /**
+     * Delete expired and revoked tokens; returns how many rows went
+     */
+    int purge() {
+        return refreshTokenRepository.deleteExpiredOrRevoked(LocalDateTime.now());
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] random = new byte[32];
+        RANDOM.nextBytes(random);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(refreshTokenExpiration));
+        refreshTokenRepository.save(new RefreshToken(hash(refreshToken), userId, familyId, expiresAt));
+        return refreshToken;
+    }
+
+    private synchronized void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextPruneAt) {
+            return;
+        }
+        nextPruneAt = now + pruneIntervalMs;
+
+        try {
+            int deleted = purge();
+            if (deleted > 0) {
+                System.out.println("🧹 Deleted " + deleted + " expired or revoked refresh token(s)");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not delete expired refresh tokens: " + e.getMessage());
+        }
+    }
+
+    private RefreshToken find(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new RuntimeException("Refresh token is required");
+        }
+        return refreshTokenRepository.findById(hash(refreshToken))
+                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(refreshToken.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
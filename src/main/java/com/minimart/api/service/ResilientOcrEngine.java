@@ -0,0 +1,235 @@
+package com.minimart.api.service;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Guards a remote OcrEngine:
+ * - bulkhead: at most maxInFlight calls at once, callers wait up to acquireTimeoutMs for a slot
+ * - deadline: each call is abandoned (and interrupted) after deadlineMs
+ * - circuit breaker: after failureThreshold consecutive failures, calls fail fast for
+ *   openMs, then one trial call decides whether to close again
+ *
+ * All rejections surface as IOException, same as a failed OCR call.
+ *
+ * Every remote call goes through the guard once, whether it carries one image
+ * or a whole batch (extractTexts). With micro-batching this engine therefore
+ * sits below MicroBatchingOcrEngine: a failed batch is one breaker failure,
+ * not one per waiting caller.
+ */
+public class ResilientOcrEngine implements OcrEngine, Closeable {
+
+    public static final String CLOSED = "closed";
+    public static final String OPEN = "open";
+    public static final String HALF_OPEN = "half_open";
+
+    private final OcrEngine delegate;
+    private final int maxInFlight;
+    private final long acquireTimeoutMs;
+    private final long deadlineMs;
+    private final int failureThreshold;
+    private final long openMs;
+    private final LongSupplier clock;
+
+    private final Semaphore bulkhead;
+    private final ExecutorService callers;
+
+    // Circuit breaker state (guarded by this)
+    private String state = CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private boolean closed;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+
+    public ResilientOcrEngine(OcrEngine delegate, int maxInFlight, long acquireTimeoutMs, long deadlineMs,
+                              int failureThreshold, long openMs) {
+        this(delegate, maxInFlight, acquireTimeoutMs, deadlineMs, failureThreshold, openMs, System::currentTimeMillis);
+    }
+
+    ResilientOcrEngine(OcrEngine delegate, int maxInFlight, long acquireTimeoutMs, long deadlineMs,
+                       int failureThreshold, long openMs, LongSupplier clock) {
+        this.delegate = delegate;
+        this.maxInFlight = maxInFlight;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.deadlineMs = deadlineMs;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+        this.clock = clock;
+        this.bulkhead = new Semaphore(maxInFlight, true);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.callers = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "ocr-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String extractText(File imageFile) throws IOException {
+        return guarded(() -> delegate.extractText(imageFile));
+    }
+
+    /**
+     * One guarded remote call for the whole batch (one breaker outcome)
+     */
+    @Override
+    public List<Result> extractTexts(List<File> imageFiles) throws IOException {
+        return guarded(() -> delegate.extractTexts(imageFiles));
+    }
+
+    private <T> T guarded(Callable<T> remoteCall) throws IOException {
+        boolean trial = beforeCall();
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseTrial(trial);
+            throw new IOException("Interrupted waiting for an OCR slot", e);
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            releaseTrial(trial);  // busy here says nothing about the remote side
+            throw new IOException("OCR busy (" + maxInFlight + " calls in flight), try again shortly");
+        }
+
+        calls.incrementAndGet();
+        Future<T> call = null;
+        try {
+            call = callers.submit(remoteCall);
+            T result = call.get(deadlineMs, TimeUnit.MILLISECONDS);
+            afterCall(trial, true);
+            return result;
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            timeouts.incrementAndGet();
+            afterCall(trial, false);
+            throw new IOException("OCR timed out after " + deadlineMs + "ms");
+        } catch (ExecutionException e) {
+            afterCall(trial, false);
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            afterCall(trial, false);
+            throw new IOException("Interrupted during OCR", e);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public OcrEngine getDelegate() {
+        return delegate;
+    }
+
+    public synchronized String getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", state);
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("inFlight", maxInFlight - bulkhead.availablePermits());
+        stats.put("calls", calls.get());
+        stats.put("failures", failures.get());
+        stats.put("timeouts", timeouts.get());
+        stats.put("rejected", rejected.get());
+        stats.put("shortCircuited", shortCircuited.get());
+        return stats;
+    }
+
+    // Idempotent: MicroBatchingOcrEngine closes its delegate too
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        callers.shutdownNow();
+        if (delegate instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    // ========== circuit breaker ==========
+
+    /**
+     * Fail fast while open. Returns true if this call is the half-open trial.
+     */
+    private synchronized boolean beforeCall() throws IOException {
+        if (OPEN.equals(state)) {
+            if (clock.getAsLong() - openedAt < openMs) {
+                shortCircuited.incrementAndGet();
+                throw new IOException("OCR temporarily unavailable (circuit open)");
+            }
+            state = HALF_OPEN;
+            System.out.println("🟡 OCR circuit half-open, sending trial call");
+        }
+        if (HALF_OPEN.equals(state)) {
+            if (trialInFlight) {
+                shortCircuited.incrementAndGet();
+                throw new IOException("OCR temporarily unavailable (circuit half-open)");
+            }
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void releaseTrial(boolean trial) {
+        if (trial) {
+            trialInFlight = false;
+        }
+    }
+
+    private synchronized void afterCall(boolean trial, boolean success) {
+        if (trial) {
+            trialInFlight = false;
+        }
+        if (success) {
+            if (!CLOSED.equals(state)) {
+                System.out.println("🟢 OCR circuit closed");
+            }
+            state = CLOSED;
+            consecutiveFailures = 0;
+            return;
+        }
+
+        failures.incrementAndGet();
+        consecutiveFailures++;
+        if (trial || consecutiveFailures >= failureThreshold) {
+            if (!OPEN.equals(state)) {
+                System.out.println("🔴 OCR circuit open after " + consecutiveFailures + " failure(s)");
+            }
+            state = OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+}
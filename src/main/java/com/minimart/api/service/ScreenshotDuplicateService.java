@@ -0,0 +1,69 @@
+package com.minimart.api.service;
+
+import com.minimart.api.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Finds paid screenshots that a new one resembles (re-cropped, re-compressed,
+ * resized copies). A match is only a suspicion: two genuine receipts from the
+ * same bank app are also within a few bits, so the caller holds the upload
+ * for admin review instead of rejecting it (and skips the OCR call).
+ *
+ * Paid screenshots' dHashes live in an in-memory BK-tree, built from the
+ * payment table on first use and extended as payments are verified.
+ */
+@Service
+public class ScreenshotDuplicateService {
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    // Max differing bits (of 64) still treated as a possible copy
+    @Value("${payment.duplicate.max-distance:6}")
+    private int maxDistance;
+
+    private volatile HammingBkTree tree;
+
+    /**
+     * Closest paid screenshot within payment.duplicate.max-distance, or null
+     */
+    public HammingBkTree.Match findNearDuplicate(long dHash) {
+        List<HammingBkTree.Match> matches = tree().search(dHash, maxDistance);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    /**
+     * Register a newly paid screenshot (call after the payment commits)
+     */
+    public void add(long dHash, Long paymentId) {
+        tree().add(dHash, paymentId);
+    }
+
+    public int size() {
+        return tree().size();
+    }
+
+    private HammingBkTree tree() {
+        HammingBkTree current = tree;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (tree == null) {
+                long start = System.currentTimeMillis();
+                HammingBkTree fresh = new HammingBkTree();
+                for (Object[] row : paymentRepository.findPaidScreenshotDhashes()) {
+                    fresh.add((Long) row[1], (Long) row[0]);
+                }
+                tree = fresh;
+                System.out.println("✅ Screenshot hash index built: " + fresh.size() + " paid screenshots in "
+                        + (System.currentTimeMillis() - start) + "ms");
+            }
+            return tree;
+        }
+    }
+}
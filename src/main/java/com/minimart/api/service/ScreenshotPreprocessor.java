@@ -0,0 +1,120 @@
+package com.minimart.api.service;
+
+import org.imgscalr.Scalr;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shrinks a payment screenshot before it is sent to a remote OCR engine:
+ * decode -> downscale to fit maxWidth x maxHeight (imgscalr) -> grayscale ->
+ * re-encode as PNG. Re-encoding drops EXIF and other metadata.
+ *
+ * Phone screenshots are far above the resolution text detection needs, so
+ * this cuts the upload payload and the OCR round trip. If the result is not
+ * smaller, or the bytes are not a decodable image, the original is sent.
+ */
+public class ScreenshotPreprocessor {
+
+    private final int maxWidth;
+    private final int maxHeight;
+
+    private final AtomicLong images = new AtomicLong();
+    private final AtomicLong keptOriginal = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+    private final AtomicLong resizeNanos = new AtomicLong();
+    private final AtomicLong grayscaleNanos = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+
+    public ScreenshotPreprocessor(int maxWidth, int maxHeight) {
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    /**
+     * OCR-ready bytes for an uploaded screenshot
+     */
+    public byte[] process(byte[] original) {
+        images.incrementAndGet();
+        bytesIn.addAndGet(original.length);
+
+        try {
+            long t0 = System.nanoTime();
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(original));
+            long t1 = System.nanoTime();
+            decodeNanos.addAndGet(t1 - t0);
+            if (image == null) {
+                return keep(original);
+            }
+
+            double scale = Math.min(1.0, Math.min((double) maxWidth / image.getWidth(),
+                    (double) maxHeight / image.getHeight()));
+            if (scale < 1.0) {
+                image = Scalr.resize(image, Scalr.Method.QUALITY, Scalr.Mode.FIT_EXACT,
+                        Math.max(1, (int) Math.round(image.getWidth() * scale)),
+                        Math.max(1, (int) Math.round(image.getHeight() * scale)));
+            }
+            long t2 = System.nanoTime();
+            resizeNanos.addAndGet(t2 - t1);
+
+            BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+            long t3 = System.nanoTime();
+            grayscaleNanos.addAndGet(t3 - t2);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(original.length / 2);
+            ImageIO.write(gray, "png", out);
+            encodeNanos.addAndGet(System.nanoTime() - t3);
+
+            if (out.size() >= original.length) {
+                return keep(original);
+            }
+
+            byte[] processed = out.toByteArray();
+            bytesOut.addAndGet(processed.length);
+            System.out.println("🗜️ Screenshot preprocessed: " + original.length + " -> " + processed.length
+                    + " bytes, " + gray.getWidth() + "x" + gray.getHeight() + " gray in "
+                    + (System.nanoTime() - t0) / 1_000_000 + "ms");
+            return processed;
+
+        } catch (IOException | RuntimeException e) {
+            System.out.println("⚠️ Screenshot preprocessing skipped: " + e.getMessage());
+            return keep(original);
+        }
+    }
+
+    /**
+     * Bytes saved and average time per stage (ms)
+     */
+    public Map<String, Object> getStats() {
+        long count = Math.max(1, images.get());
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("images", images.get());
+        stats.put("keptOriginal", keptOriginal.get());
+        stats.put("bytesIn", bytesIn.get());
+        stats.put("bytesOut", bytesOut.get());
+        stats.put("bytesSaved", bytesIn.get() - bytesOut.get());
+        stats.put("avgDecodeMs", decodeNanos.get() / count / 1e6);
+        stats.put("avgResizeMs", resizeNanos.get() / count / 1e6);
+        stats.put("avgGrayscaleMs", grayscaleNanos.get() / count / 1e6);
+        stats.put("avgEncodeMs", encodeNanos.get() / count / 1e6);
+        return stats;
+    }
+
+    private byte[] keep(byte[] original) {
+        keptOriginal.incrementAndGet();
+        bytesOut.addAndGet(original.length);
+        return original;
+    }
+}
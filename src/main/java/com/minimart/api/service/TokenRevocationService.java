@@ -0,0 +1,140 @@
+package com.minimart.api.service;
+
+import com.minimart.api.model.RevokedToken;
+import com.minimart.api.repository.RevokedTokenRepository;
+import com.minimart.api.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Access tokens revoked before they expire (logout), checked on every request
+ * without touching the database.
+ *
+ * A Bloom filter answers "not revoked" for almost every token; only its rare
+ * positives are confirmed against the exact jti -> expiry map. Entries are
+ * dropped once their token has expired anyway (access tokens are short-lived,
+ * so the set stays small), and the filter is rebuilt then. Revocations are
+ * also written to revoked_token so a restart does not forget them.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final int BLOOM_HASHES = 5;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.revocation.bloom-bits:1048576}")
+    private long bloomBits;
+
+    @Value("${jwt.revocation.prune-interval-ms:60000}")
+    private long pruneIntervalMs;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+    private volatile long nextPruneAt;
+
+    private final AtomicLong bloomPositives = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        bloom = new BloomFilter(bloomBits, BLOOM_HASHES);
+        nextPruneAt = System.currentTimeMillis() + pruneIntervalMs;
+        try {
+            for (RevokedToken token : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+                remember(token.getJti(), toMillis(token.getExpiresAt()));
+            }
+            System.out.println("✅ Token revocation list loaded: " + revoked.size() + " active");
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not load revoked tokens: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pure in-memory check, safe to call on every request
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !bloom.mightContain(jti)) {
+            return false;
+        }
+        bloomPositives.incrementAndGet();
+        Long expiresAt = revoked.get(jti);
+        if (expiresAt == null) {
+            falsePositives.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reject the token with this jti until it expires
+     */
+    public void revoke(String jti, long expiresAt) {
+        if (jti == null || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        remember(jti, expiresAt);
+        try {
+            revokedTokenRepository.save(new RevokedToken(jti, toLocalDateTime(expiresAt)));
+        } catch (Exception e) {
+            // Still revoked in memory; only a restart would forget it
+            System.err.println("⚠️ Could not persist revoked token: " + e.getMessage());
+        }
+        pruneIfDue();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("revoked", revoked.size());
+        stats.put("bloomBits", bloom.getBits());
+        stats.put("bloomPositives", bloomPositives.get());
+        stats.put("falsePositives", falsePositives.get());
+        return stats;
+    }
+
+    private void remember(String jti, long expiresAt) {
+        revoked.put(jti, expiresAt);
+        bloom.add(jti);
+    }
+
+    // Drop expired jtis and rebuild the filter without them (a Bloom filter cannot delete)
+    private synchronized void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        if (now < nextPruneAt) {
+            return;
+        }
+        nextPruneAt = now + pruneIntervalMs;
+
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        BloomFilter rebuilt = new BloomFilter(bloomBits, BLOOM_HASHES);
+        revoked.keySet().forEach(rebuilt::add);
+        bloom = rebuilt;
+        // A jti revoked while rebuilding is in the map but maybe not the new filter
+        revoked.keySet().forEach(rebuilt::add);
+
+        try {
+            revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        } catch (Exception e) {
+            System.err.println("⚠️ Could not delete expired revoked tokens: " + e.getMessage());
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -1,8 +1,10 @@
 package com.minimart.api.service;
 
 import com.minimart.api.dto.AuthResponse;
+import com.minimart.api.dto.AuthUser;
 import com.minimart.api.dto.ForgotPasswordRequest;
 import com.minimart.api.dto.LoginRequest;
+import com.minimart.api.dto.RefreshTokenRequest;
 import com.minimart.api.dto.RegisterRequest;
 import com.minimart.api.dto.ResendOtpRequest;
 import com.minimart.api.dto.ResetPasswordRequest;
@@ -42,6 +44,12 @@ public class UserService {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
             return new AuthResponse(false, "Email already exists");
@@ -157,12 +165,9 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
         
-        // Generate access token
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getUserId(), user.getRole());
-        
         UserDTO userDTO = convertToDTO(user);
         
-        return new AuthResponse(true, "Account verified successfully", userDTO, accessToken);
+        return issueTokens(user, userDTO, refreshTokenService.issue(user.getUserId()), "Account verified successfully");
     }
     
     public AuthResponse login(LoginRequest request) {
@@ -183,15 +188,63 @@ public class UserService {
             return new AuthResponse(false, "Account is not active. Please verify your OTP first.");
         }
         
-        // Generate access token
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getUserId(), user.getRole());
-        
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
         
         UserDTO userDTO = convertToDTO(user);
         
-        return new AuthResponse(true, "Login successful", userDTO, accessToken);
+        return issueTokens(user, userDTO, refreshTokenService.issue(user.getUserId()), "Login successful");
+    }
+    
+    /**
+     * New access token plus a rotated refresh token (the presented one stops working)
+     */
+    public AuthResponse refreshToken(RefreshTokenRequest request) {
+        RefreshTokenService.Rotation rotation;
+        try {
+            rotation = refreshTokenService.rotate(request.getRefreshToken());
+        } catch (RuntimeException e) {
+            return new AuthResponse(false, e.getMessage());
+        }
+        
+        Optional<User> userOptional = userRepository.findById(rotation.userId());
+        if (userOptional.isEmpty() || !"active".equals(userOptional.get().getStatus())) {
+            refreshTokenService.revokeAllForUser(rotation.userId());
+            return new AuthResponse(false, "Account is not active");
+        }
+        
+        User user = userOptional.get();
+        return issueTokens(user, convertToDTO(user), rotation.refreshToken(), "Token refreshed successfully");
+    }
+    
+    /**
+     * End one session: revoke its refresh token family and the access token in use
+     */
+    public AuthResponse logout(AuthUser currentUser, RefreshTokenRequest request) {
+        if (request != null && request.getRefreshToken() != null) {
+            try {
+                refreshTokenService.revoke(request.getRefreshToken());
+            } catch (RuntimeException e) {
+                // Unknown or already revoked: the access token is still revoked below
+            }
+        }
+        tokenRevocationService.revoke(currentUser.jti(), currentUser.expiresAt());
+        return new AuthResponse(true, "Logged out successfully");
+    }
+    
+    /**
+     * End every session of the current user
+     */
+    public AuthResponse logoutAll(AuthUser currentUser) {
+        int sessions = refreshTokenService.revokeAllForUser(currentUser.userId());
+        tokenRevocationService.revoke(currentUser.jti(), currentUser.expiresAt());
+        return new AuthResponse(true, "Logged out from " + sessions + " session(s)");
+    }
+    
+    private AuthResponse issueTokens(User user, UserDTO userDTO, String refreshToken, String message) {
+        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), user.getUserId(), user.getRole());
+        return new AuthResponse(true, message, userDTO, accessToken, refreshToken,
+                jwtUtil.getAccessTokenExpiration() / 1000);
     }
     
     public AuthResponse forgotPassword(ForgotPasswordRequest request) {
@@ -274,6 +327,9 @@ public class UserService {
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
         
+        // Sessions opened with the old password end (access tokens within minutes)
+        refreshTokenService.revokeAllForUser(user.getUserId());
+        
         return new AuthResponse(true, "Password has been reset successfully. You can now login with your new password.");
     }
     
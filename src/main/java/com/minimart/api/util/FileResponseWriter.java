@@ -0,0 +1,238 @@
+package com.minimart.api.util;
+
+import com.minimart.api.service.FileETagService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Writes a file to the HTTP response without copying it through the heap.
+ *
+ * - one stat (readAttributes) decides 404 vs. serve
+ * - strong ETag + Last-Modified; If-None-Match / If-Modified-Since answered
+ *   with 304 without opening the file once its ETag is cached
+ * - single byte range (Range / If-Range) answered with 206 or 416
+ * - in-memory contents (HotImageCache) get the same treatment without any disk access
+ * - large bodies use Tomcat sendfile when the connector supports it, otherwise
+ *   FileChannel.transferTo into the response channel
+ */
+@Component
+public class FileResponseWriter {
+
+    // Same threshold as Tomcat's DefaultServlet: below it sendfile costs more than it saves
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private FileETagService fileETagService;
+
+    /**
+     * Serve a file inline, or 404 if it does not exist
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response,
+                      Path file, String filename, String contentType) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            attributes = null;
+        }
+        if (attributes == null || !attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "File not found");
+            return;
+        }
+
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = fileETagService.getETag(file, length, lastModified);
+
+        long[] body = prepare(request, response, length, lastModified, etag, filename, contentType);
+        if (body == null) {
+            return;
+        }
+        long start = body[0];
+        long count = body[1];
+
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the bytes itself (sendfile) once this handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;  // file shrank underneath us
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Serve file contents already held in memory (same headers, validators and ranges as a file)
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response,
+                      byte[] content, long lastModified, String etag,
+                      String filename, String contentType) throws IOException {
+        long[] body = prepare(request, response, content.length, lastModified, etag, filename, contentType);
+        if (body != null) {
+            response.getOutputStream().write(content, (int) body[0], (int) body[1]);
+        }
+    }
+
+    /**
+     * Status and headers. Returns {start, count} of the body to send, or null
+     * when the response is already complete (304, 416, HEAD, empty file).
+     */
+    private long[] prepare(HttpServletRequest request, HttpServletResponse response, long length,
+                           long lastModified, String etag, String filename, String contentType) throws IOException {
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", "max-age=31536000");
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return null;
+        }
+
+        response.setContentType(contentType);
+        response.setHeader("Content-Disposition", "inline; filename=\"" + filename + "\"");
+        response.setHeader("Accept-Ranges", "bytes");
+
+        long start = 0;
+        long end = length - 1;
+
+        String range = request.getHeader("Range");
+        if (range != null && ifRangeMatches(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return null;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return null;
+        }
+        return new long[]{start, count};
+    }
+
+    /**
+     * If-None-Match wins over If-Modified-Since (RFC 9110 13.2.2)
+     */
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.equals("*") || stripWeak(candidate).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * If-Range: honour Range only if the validator still matches (strong ETag
+     * comparison, or a date no older than the file); otherwise send the whole file.
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return lastModified / 1000 <= request.getDateHeader("If-Range") / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /**
+     * Single "bytes=" range as {start, end}; {} to ignore the header (multiple or
+     * malformed ranges get the full file); null when unsatisfiable.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // Suffix: last N bytes
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                if (end < start) {
+                    return new long[0];
+                }
+                end = Math.min(end, length - 1);
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
@@ -1,18 +1,46 @@
 package com.minimart.api.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.minimart.api.dto.AuthUser;
+import com.minimart.api.service.TokenRevocationService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies HS256 access tokens.
+ *
+ * The signing key and parser are built once. authenticate() verifies a token
+ * a single time into an AuthUser and keeps the result in a small cache keyed
+ * by the SHA-256 of the token (never the token itself), so repeat requests
+ * with the same token skip the HMAC check and JSON parsing. Entries leave the
+ * cache when their token expires.
+ *
+ * Every access token carries a jti; revoked ones are rejected by an
+ * in-memory check (TokenRevocationService), cached or not.
+ */
 @Component
 public class JwtUtil {
 
@@ -22,16 +50,81 @@ public class JwtUtil {
     @Value("${jwt.access-token-expiration}")
     private Long accessTokenExpiration;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    // 0 disables the verified-token cache
+    @Value("${jwt.cache.max-entries:10000}")
+    private long cacheMaxEntries;
+
+    private Key signingKey;
+    private JwtParser parser;
+    private Cache<String, AuthUser> verified;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verified = cacheMaxEntries > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheMaxEntries)
+                        .expireAfter(new UntilTokenExpiry())
+                        .build()
+                : null;
+    }
+
+    /**
+     * Verified caller of a token (signature and expiry checked exactly once).
+     * Throws a JwtException (or IllegalArgumentException) for invalid or expired tokens.
+     */
+    public AuthUser authenticate(String token) {
+        AuthUser user = verified != null ? cachedOrParsed(token) : parseToken(token);
+        if (tokenRevocationService.isRevoked(user.jti())) {
+            throw new JwtException("JWT has been revoked");
+        }
+        return user;
+    }
+
+    private AuthUser cachedOrParsed(String token) {
+        String key = digest(token);
+        AuthUser user = verified.getIfPresent(key);
+        if (user != null) {
+            if (!user.isExpired(System.currentTimeMillis())) {
+                return user;
+            }
+            verified.invalidate(key);
+        }
+
+        user = parseToken(token);
+        verified.put(key, user);
+        return user;
+    }
+
+    /**
+     * Verify and parse a token without the cache
+     */
+    public AuthUser parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        Date expiration = claims.getExpiration();
+        if (expiration == null) {
+            throw new MalformedJwtException("JWT has no expiration");
+        }
+        return new AuthUser(
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("role", String.class),
+                claims.getId(),
+                expiration.getTime());
     }
 
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return authenticate(token).email();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return new Date(authenticate(token).expiresAt());
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -40,15 +133,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String generateAccessToken(String email, Long userId, String role) {
@@ -61,25 +146,60 @@ public class JwtUtil {
     private String createToken(Map<String, Object> claims, String subject, Long expiration) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    public long getAccessTokenExpiration() {
+        return accessTokenExpiration;
+    }
+
     public Boolean validateToken(String token, String email) {
-        final String extractedEmail = extractEmail(token);
-        return (extractedEmail.equals(email) && !isTokenExpired(token));
+        try {
+            return authenticate(token).email().equals(email);
+        } catch (RuntimeException e) {
+            return false;
+        }
     }
 
     public Long extractUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("userId", Long.class);
+        return authenticate(token).userId();
     }
 
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("role", String.class);
+        return authenticate(token).role();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Cached entries live until their token's exp claim
+    private static class UntilTokenExpiry implements Expiry<String, AuthUser> {
+
+        @Override
+        public long expireAfterCreate(String key, AuthUser user, long currentTime) {
+            long remainingMillis = Math.max(0, user.expiresAt() - System.currentTimeMillis());
+            return TimeUnit.MILLISECONDS.toNanos(remainingMillis);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, AuthUser user, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, AuthUser user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
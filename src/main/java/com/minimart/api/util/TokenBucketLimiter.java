@@ -0,0 +1,126 @@
+package com.minimart.api.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory token buckets, one per key (client IP, email, ...).
+ *
+ * Each key may burst up to capacity requests, then gets refillPerMinute more
+ * per minute. Buckets are spread over lock stripes so concurrent clients
+ * rarely contend; each stripe keeps at most maxKeys / stripes buckets and
+ * drops the least recently used one beyond that (a dropped bucket simply
+ * starts full again).
+ */
+public class TokenBucketLimiter {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Stripe[] stripes;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param capacity        burst size
+     * @param refillPerMinute tokens added back per minute
+     * @param stripes         lock stripes (rounded up to a power of two)
+     * @param maxKeys         buckets kept in memory across all stripes
+     */
+    public TokenBucketLimiter(int capacity, int refillPerMinute, int stripes, int maxKeys) {
+        if (capacity <= 0 || refillPerMinute <= 0 || stripes <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("capacity, refillPerMinute, stripes and maxKeys must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+
+        int count = Integer.highestOneBit(Math.min(stripes, 1 << 16) * 2 - 1);
+        int perStripe = Math.max(1, maxKeys / count);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Take one token for this key.
+     * Returns 0 if allowed, otherwise the nanoseconds until a token is available.
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long nowNanos) {
+        Stripe stripe = stripes[stripeIndex(key)];
+        long waitNanos;
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, nowNanos);
+                stripe.buckets.put(key, bucket);
+            } else {
+                double refilled = bucket.tokens + (nowNanos - bucket.updatedAt) * tokensPerNano;
+                bucket.tokens = Math.min(capacity, refilled);
+                bucket.updatedAt = nowNanos;
+            }
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                waitNanos = 0;
+            } else {
+                waitNanos = (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+            }
+        }
+
+        (waitNanos == 0 ? allowed : rejected).increment();
+        return waitNanos;
+    }
+
+    public Map<String, Object> getStats() {
+        int keys = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                keys += stripe.buckets.size();
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("trackedKeys", keys);
+        stats.put("capacity", (long) capacity);
+        stats.put("stripes", stripes.length);
+        return stats;
+    }
+
+    private int stripeIndex(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    private static class Bucket {
+        double tokens;
+        long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    // Access-ordered so the eldest entry is the least recently used key
+    private static class Stripe {
+        final LinkedHashMap<String, Bucket> buckets;
+
+        Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+}
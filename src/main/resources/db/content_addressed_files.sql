@@ -0,0 +1,17 @@
+-- Content-addressed upload storage: one blob per distinct SHA-256, reference counted,
+-- and the per-upload file paths (uploads/{folder}/{uuid}.{ext}) that point at it
+CREATE TABLE IF NOT EXISTS final.file_blob (
+    sha256      VARCHAR(64) PRIMARY KEY,
+    extension   VARCHAR(10) NOT NULL,
+    size        BIGINT NOT NULL,
+    ref_count   INTEGER NOT NULL,
+    created_at  TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS final.file_alias (
+    path        VARCHAR(500) PRIMARY KEY,
+    sha256      VARCHAR(64) NOT NULL REFERENCES final.file_blob (sha256),
+    created_at  TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_file_alias_sha256 ON final.file_alias (sha256);
@@ -0,0 +1,22 @@
+-- OCR result cache keyed by screenshot SHA-256, plus the hash on payments / verification jobs
+CREATE TABLE IF NOT EXISTS final.ocr_result (
+    content_hash     VARCHAR(64) PRIMARY KEY,
+    extracted_text   VARCHAR(10000) NOT NULL,
+    bank             VARCHAR(255),
+    amount           NUMERIC(14, 2),
+    currency         VARCHAR(3),
+    transaction_id   VARCHAR(255),
+    reference        VARCHAR(255),
+    transaction_date TIMESTAMP,
+    confidence       DOUBLE PRECISION,
+    hits             INTEGER DEFAULT 0,
+    created_at       TIMESTAMP,
+    last_used_at     TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_ocr_result_last_used ON final.ocr_result (last_used_at);
+
+ALTER TABLE final.payment ADD COLUMN IF NOT EXISTS screenshot_hash VARCHAR(64);
+CREATE INDEX IF NOT EXISTS idx_payment_screenshot_hash ON final.payment (screenshot_hash);
+
+ALTER TABLE final.payment_verification ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
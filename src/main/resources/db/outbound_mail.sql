@@ -0,0 +1,16 @@
+-- Outbound email queue (schema is managed by hand: spring.jpa.hibernate.ddl-auto=none)
+CREATE TABLE IF NOT EXISTS final.outbound_mail (
+    id              BIGSERIAL PRIMARY KEY,
+    to_email        VARCHAR(255) NOT NULL,
+    subject         VARCHAR(255) NOT NULL,
+    body            TEXT,
+    status          VARCHAR(20)  NOT NULL,
+    attempts        INTEGER      DEFAULT 0,
+    last_error      VARCHAR(500),
+    next_attempt_at TIMESTAMP,
+    created_at      TIMESTAMP,
+    updated_at      TIMESTAMP,
+    sent_at         TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbound_mail_status ON final.outbound_mail (status);
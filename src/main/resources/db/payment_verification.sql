@@ -0,0 +1,18 @@
+-- Screenshot verification jobs (schema is managed by hand: spring.jpa.hibernate.ddl-auto=none)
+CREATE TABLE IF NOT EXISTS final.payment_verification (
+    id              BIGSERIAL PRIMARY KEY,
+    order_id        BIGINT       NOT NULL,
+    user_id         BIGINT       NOT NULL,
+    file_name       VARCHAR(255) NOT NULL,
+    screenshot_path VARCHAR(255),
+    status          VARCHAR(20)  NOT NULL,
+    message         VARCHAR(500),
+    transaction_id  VARCHAR(255),
+    attempts        INTEGER      DEFAULT 0,
+    created_at      TIMESTAMP,
+    updated_at      TIMESTAMP,
+    finished_at     TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_verification_order ON final.payment_verification (order_id, id);
+CREATE INDEX IF NOT EXISTS idx_payment_verification_status ON final.payment_verification (status);
@@ -0,0 +1,19 @@
+-- Refresh tokens (SHA-256 of the token only) with rotation families,
+-- and access tokens revoked before expiry (loaded into memory at startup)
+CREATE TABLE IF NOT EXISTS final.refresh_token (
+    token_hash  VARCHAR(64) PRIMARY KEY,
+    user_id     BIGINT NOT NULL,
+    family_id   VARCHAR(36) NOT NULL,
+    expires_at  TIMESTAMP NOT NULL,
+    created_at  TIMESTAMP,
+    rotated_at  TIMESTAMP,
+    revoked_at  TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_token_family ON final.refresh_token (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_user ON final.refresh_token (user_id);
+
+CREATE TABLE IF NOT EXISTS final.revoked_token (
+    jti         VARCHAR(36) PRIMARY KEY,
+    expires_at  TIMESTAMP NOT NULL
+);
@@ -0,0 +1,3 @@
+-- Perceptual (dHash) fingerprint of payment screenshots for near-duplicate detection
+ALTER TABLE final.payment ADD COLUMN IF NOT EXISTS screenshot_dhash BIGINT;
+ALTER TABLE final.payment_verification ADD COLUMN IF NOT EXISTS perceptual_hash BIGINT;
@@ -0,0 +1,124 @@
+package com.minimart.api.benchmark;
+
+import com.minimart.api.config.JwtAuthenticationFilter;
+import com.minimart.api.repository.RevokedTokenRepository;
+import com.minimart.api.service.TokenRevocationService;
+import com.minimart.api.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of JwtAuthenticationFilter with a valid bearer token.
+ *
+ * cacheEntries=0 verifies the token on every request (one HS256 check with the
+ * precomputed key); the default size answers repeat tokens from the verified
+ * cache. legacy reproduces the previous filter: extractEmail, validateToken
+ * (two more parses), extractRole and extractUserId, each building a new
+ * parser and HMAC key.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.minimart.api.benchmark.JwtFilterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTTokenGenerationMustBeLongEnough123456789";
+
+    @Param({"0", "10000"})
+    public long cacheEntries;
+
+    private String token;
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private final FilterChain chain = (req, resp) -> { };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Empty revocation list: every request pays the Bloom filter miss, as in production
+        TokenRevocationService revocations = new TokenRevocationService();
+        ReflectionTestUtils.setField(revocations, "revokedTokenRepository", Mockito.mock(RevokedTokenRepository.class));
+        ReflectionTestUtils.setField(revocations, "bloomBits", 1L << 20);
+        ReflectionTestUtils.setField(revocations, "pruneIntervalMs", 60_000L);
+        revocations.init();
+
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "SECRET_KEY", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxEntries", cacheEntries);
+        ReflectionTestUtils.setField(jwtUtil, "tokenRevocationService", revocations);
+        jwtUtil.init();
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+
+        token = jwtUtil.generateAccessToken("customer@example.com", 1024L, "customer");
+        request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public Object filter() throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        String email = legacyClaims(token).getSubject();
+        boolean valid = legacyClaims(token).getSubject().equals(email)
+                && !legacyClaims(token).getExpiration().before(new Date());
+        blackhole.consume(valid);
+        blackhole.consume(legacyClaims(token).get("role", String.class));
+        blackhole.consume(legacyClaims(token).get("userId", Long.class));
+    }
+
+    // ========== previous JwtUtil.extractAllClaims ==========
+
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
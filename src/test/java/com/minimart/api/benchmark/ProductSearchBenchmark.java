@@ -0,0 +1,113 @@
+package com.minimart.api.benchmark;
+
+import com.minimart.api.service.ProductSearchIndex;
+import com.minimart.api.service.ProductSuggestIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product search at 100k products: inverted index vs. the old
+ * LOWER(name) LIKE '%kw%' OR LOWER(detail) LIKE '%kw%' query,
+ * plus the autocomplete trie lookup for the same keyword.
+ *
+ * The LIKE side is evaluated in memory with the same semantics, so it is a
+ * lower bound for the real query (PostgreSQL also pays the seq scan I/O and
+ * the network round trip).
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.minimart.api.benchmark.ProductSearchBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+    private static final String[] BRANDS = {"Coca", "Pepsi", "Angkor", "Cambodia", "Vital", "Oishi",
+            "Lays", "Pringles", "Nestle", "Milo", "Ovaltine", "Dutch", "Mama", "Yeo", "Sting"};
+    private static final String[] ITEMS = {"Cola", "Beer", "Water", "Juice", "Chips", "Noodles",
+            "Milk", "Coffee", "Tea", "Soda", "Snack", "Biscuit", "Candy", "Yogurt", "Bread"};
+    private static final String[] SIZES = {"330ml", "500ml", "1.5L", "Can", "Bottle", "Pack", "Family"};
+    private static final String[] CATEGORIES = {"Beverages", "Snacks", "Dairy", "Bakery", "Instant Food"};
+
+    @Param({"100000"})
+    public int productCount;
+
+    @Param({"cola", "milk tea", "pep"})
+    public String keyword;
+
+    private ProductSearchIndex index;
+    private ProductSuggestIndex suggestIndex;
+    private List<String[]> rows;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        index = new ProductSearchIndex();
+        suggestIndex = new ProductSuggestIndex();
+        rows = new ArrayList<>(productCount);
+
+        for (int id = 1; id <= productCount; id++) {
+            String name = BRANDS[random.nextInt(BRANDS.length)] + " "
+                    + ITEMS[random.nextInt(ITEMS.length)] + " "
+                    + SIZES[random.nextInt(SIZES.length)];
+            String detail = "Fresh " + ITEMS[random.nextInt(ITEMS.length)].toLowerCase(Locale.ROOT)
+                    + " imported by " + BRANDS[random.nextInt(BRANDS.length)] + " #" + id;
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+
+            index.index(id, name, detail, category);
+            suggestIndex.put("product", id, name, random.nextInt(1000));
+            rows.add(new String[]{name, detail});
+        }
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits invertedIndex() {
+        return index.search(keyword, 0, 20);
+    }
+
+    @Benchmark
+    public List<ProductSuggestIndex.Suggestion> suggest() {
+        return suggestIndex.suggest(keyword, ProductSuggestIndex.MAX_RESULTS);
+    }
+
+    @Benchmark
+    public List<Integer> likeScan() {
+        String kw = keyword.toLowerCase(Locale.ROOT);
+        List<Integer> hits = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String[] row = rows.get(i);
+            if (row[0].toLowerCase(Locale.ROOT).contains(kw) || row[1].toLowerCase(Locale.ROOT).contains(kw)) {
+                hits.add(i + 1);
+            }
+        }
+        return hits;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
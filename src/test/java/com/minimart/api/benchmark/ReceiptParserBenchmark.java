@@ -0,0 +1,135 @@
+package com.minimart.api.benchmark;
+
+import com.minimart.api.service.ReceiptParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Receipt parsing: single-pass ReceiptParser vs. the previous OCRService
+ * approach (Pattern.compile on every call, one scan per pattern, whole-text
+ * replaceAll before the ID search). The legacy side is reproduced below
+ * without its console logging, so it is a lower bound for the old code.
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test
+ *        -Dexec.mainClass=com.minimart.api.benchmark.ReceiptParserBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReceiptParserBenchmark {
+
+    @Param({"aba-transfer.txt", "acleda-toanchet.txt", "wing-received.txt", "generic-bare.txt"})
+    public String receipt;
+
+    private String text;
+    private ReceiptParser parser;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        try (InputStream in = ReceiptParserBenchmark.class.getResourceAsStream("/receipts/" + receipt)) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        parser = new ReceiptParser();
+    }
+
+    @Benchmark
+    public ReceiptParser.Receipt singlePass() {
+        return parser.parse(text);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        blackhole.consume(legacyAmount(text));
+        blackhole.consume(legacyTransactionId(text));
+        blackhole.consume(legacyDate(text));
+    }
+
+    // ========== previous OCRService logic (logging removed) ==========
+
+    private static BigDecimal legacyAmount(String text) {
+        String[] patterns = {
+                "(?:USD|\\$|US\\$)\\s*([\\d,]+\\.\\d{2})",
+                "([\\d,]+\\.\\d{2})\\s*(?:USD|\\$)",
+                "(?:Amount|Total|Received|You received)\\s*:?\\s*(?:USD|\\$)?\\s*([\\d,]+\\.\\d{2})",
+                "([\\d,]+\\.\\d{2})",
+        };
+        for (String patternStr : patterns) {
+            Matcher matcher = Pattern.compile(patternStr, Pattern.CASE_INSENSITIVE).matcher(text);
+            while (matcher.find()) {
+                BigDecimal amount = new BigDecimal(matcher.group(1).replace(",", ""));
+                if (amount.compareTo(new BigDecimal("0.01")) >= 0
+                        && amount.compareTo(new BigDecimal("999999.99")) <= 0) {
+                    return amount;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String legacyTransactionId(String text) {
+        String normalizedText = text.replaceAll("\\s+", " ");
+        String[] patterns = {
+                "(?:Tax\\s*ID|TaxID)\\s*:?\\s*([0-9]{10,15})",
+                "(?:Trx\\.?\\s*ID|Transaction\\s*ID|TRX\\s*ID)\\s*:?\\s*([0-9]{10,15})",
+                "(?:REF|Reference|Ref\\.)\\s*:?\\s*([A-Z0-9]{8,20})",
+                "\\b([0-9]{10,15})\\b",
+                "\\b([A-Z]{2}[0-9]{10,15})\\b",
+        };
+        for (String patternStr : patterns) {
+            Matcher matcher = Pattern.compile(patternStr, Pattern.CASE_INSENSITIVE).matcher(normalizedText);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    private static LocalDateTime legacyDate(String text) {
+        String[] patterns = {
+                "([A-Za-z]{3})\\s+(\\d{1,2}),?\\s+(\\d{4})\\s*[|]?\\s*(\\d{1,2}):(\\d{2})\\s*(AM|PM)?",
+                "([A-Za-z]{3})\\s+(\\d{1,2}),?\\s+(\\d{4})",
+                "(\\d{2})[/-](\\d{2})[/-](\\d{4})",
+                "(\\d{4})[/-](\\d{2})[/-](\\d{2})",
+        };
+        for (String patternStr : patterns) {
+            Matcher matcher = Pattern.compile(patternStr, Pattern.CASE_INSENSITIVE).matcher(text);
+            if (matcher.find()) {
+                // The old code built a string and ran DateTimeFormatter over it; the match is the dominant cost
+                return LocalDateTime.of(2025, 1, 1, 0, 0);
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReceiptParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
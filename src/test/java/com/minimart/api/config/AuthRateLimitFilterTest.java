@@ -0,0 +1,78 @@
+package com.minimart.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthRateLimitFilterTest {
+
+    private AuthRateLimitFilter filter;
+    private final List<String> forwardedBodies = new ArrayList<>();
+    private final FilterChain chain = (req, resp) ->
+            forwardedBodies.add(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+    @BeforeEach
+    void setUp() {
+        filter = new AuthRateLimitFilter();
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "ipCapacity", 10);
+        ReflectionTestUtils.setField(filter, "ipRefillPerMinute", 1);
+        ReflectionTestUtils.setField(filter, "emailCapacity", 2);
+        ReflectionTestUtils.setField(filter, "emailRefillPerMinute", 1);
+        ReflectionTestUtils.setField(filter, "stripes", 4);
+        ReflectionTestUtils.setField(filter, "maxKeys", 100);
+        filter.init();
+    }
+
+    @Test
+    void sameEmailFromManyAddressesIsLimited() throws Exception {
+        String body = "{\"email\":\"Dara@Example.com\",\"password\":\"guess\"}";
+
+        MockHttpServletResponse first = send("/api/users/login", "10.0.0.1", body);
+        MockHttpServletResponse second = send("/api/users/login", "10.0.0.2", body.replace("Dara", "dara"));
+        MockHttpServletResponse third = send("/api/users/login", "10.0.0.3", body);
+
+        assertEquals(200, first.getStatus());
+        assertEquals(200, second.getStatus());
+        // Controllers still see the body the filter already read
+        assertEquals(body, forwardedBodies.get(0));
+
+        assertEquals(429, third.getStatus());
+        assertNotNull(third.getHeader("Retry-After"));
+        assertTrue(Long.parseLong(third.getHeader("Retry-After")) >= 1);
+        assertTrue(third.getContentAsString().contains("Too many attempts"));
+        assertEquals(2, forwardedBodies.size());
+    }
+
+    @Test
+    void oneAddressIsLimitedAcrossEmailsButOtherPathsAreNot() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, send("/api/users/register", "10.0.0.9", "{\"email\":\"user" + i + "@example.com\"}").getStatus());
+        }
+        assertEquals(429, send("/api/users/reset-password", "10.0.0.9", "{\"email\":\"new@example.com\"}").getStatus());
+        assertEquals(200, send("/api/users/verify-otp", "10.0.0.9", "{\"email\":\"new@example.com\"}").getStatus());
+    }
+
+    private MockHttpServletResponse send(String path, String ip, String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,66 @@
+package com.minimart.api.config;
+
+import com.minimart.api.dto.AuthUser;
+import com.minimart.api.exception.ForbiddenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CurrentUserArgumentResolverTest {
+
+    private final CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolvesPrincipalSetByFilter() throws Exception {
+        MethodParameter annotated = parameter(0);
+        assertTrue(resolver.supportsParameter(annotated));
+        assertFalse(resolver.supportsParameter(parameter(1)));
+
+        AuthUser user = new AuthUser("dara@example.com", 7L, "customer", "jti", Long.MAX_VALUE);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        assertSame(user, resolver.resolveArgument(annotated, null, null, null));
+
+        SecurityContextHolder.clearContext();
+        assertThrows(AuthenticationCredentialsNotFoundException.class,
+                () -> resolver.resolveArgument(annotated, null, null, null));
+    }
+
+    @Test
+    void customersOnlyReachTheirOwnData() {
+        AuthUser customer = new AuthUser("dara@example.com", 7L, "customer", "jti", Long.MAX_VALUE);
+        assertDoesNotThrow(() -> customer.requireAccess(7L));
+        assertThrows(ForbiddenException.class, () -> customer.requireAccess(8L));
+        assertThrows(ForbiddenException.class, customer::requireAdminOrOwner);
+
+        AuthUser owner = new AuthUser("owner@example.com", 1L, "OWNER", "jti", Long.MAX_VALUE);
+        assertTrue(owner.canAccess(8L));
+        assertDoesNotThrow(owner::requireAdminOrOwner);
+    }
+
+    @SuppressWarnings("unused")
+    private void handler(@CurrentUser AuthUser user, AuthUser plain) {
+    }
+
+    private static MethodParameter parameter(int index) throws NoSuchMethodException {
+        Method method = CurrentUserArgumentResolverTest.class.getDeclaredMethod("handler", AuthUser.class, AuthUser.class);
+        return new MethodParameter(method, index);
+    }
+}
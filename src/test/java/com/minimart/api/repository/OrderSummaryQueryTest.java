@@ -0,0 +1,227 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.dto.OrderCursor;
+import com.minimart.api.dto.OrderFilter;
+import com.minimart.api.dto.OrderSummaryDTO;
+import com.minimart.api.dto.PendingOrderDTO;
+import com.minimart.api.model.Order;
+import com.minimart.api.model.OrderDetail;
+import com.minimart.api.model.Payment;
+import com.minimart.api.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class OrderSummaryQueryTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setUserName("Dara");
+        user.setEmail("dara@example.com");
+        user.setPassword("secret");
+        entityManager.persist(user);
+        userId = user.getUserId();
+    }
+
+    @Test
+    void summariesTakeOneStatementRegardlessOfOrderCount() {
+        OrderFilter filter = new OrderFilter(null, null, null, userId, null, null);
+
+        createOrders(1);
+        assertEquals(1, statementsFor(() -> orderRepository.findSummaryPage(filter, null, 50)));
+        assertEquals(1, statementsFor(() -> orderRepository.findAllSummaries()));
+        assertEquals(1, statementsFor(() -> orderRepository.findSummariesByUserId(userId)));
+        assertEquals(1, statementsFor(() -> orderRepository.findPendingSummariesByStatus("pending")));
+
+        createOrders(25);
+        assertEquals(1, statementsFor(() -> orderRepository.findSummaryPage(filter, null, 50)));
+        assertEquals(1, statementsFor(() -> orderRepository.findAllSummaries()));
+        assertEquals(1, statementsFor(() -> orderRepository.findSummariesByUserId(userId)));
+        assertEquals(1, statementsFor(() -> orderRepository.findPendingSummariesByStatus("pending")));
+    }
+
+    @Test
+    void summariesCarryItemCountPaymentAndUser() {
+        Order paid = createOrder(3, "paid", LocalDateTime.of(2025, 1, 2, 10, 0));
+        Order pending = createOrder(2, "pending", null);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<OrderSummaryDTO> summaries = orderRepository.findSummariesByUserId(userId);
+        assertEquals(2, summaries.size());
+
+        OrderSummaryDTO paidSummary = summaries.stream()
+                .filter(summary -> summary.getId().equals(paid.getId())).findFirst().orElseThrow();
+        assertEquals(3, paidSummary.getItemCount());
+        assertEquals(LocalDateTime.of(2025, 1, 2, 10, 0), paidSummary.getPayDate());
+
+        List<PendingOrderDTO> pendingSummaries = orderRepository.findPendingSummariesByStatus("pending");
+        assertEquals(1, pendingSummaries.size());
+        PendingOrderDTO pendingSummary = pendingSummaries.get(0);
+        assertEquals(pending.getId(), pendingSummary.getId());
+        assertEquals(2, pendingSummary.getItemCount());
+        assertEquals("Dara", pendingSummary.getUserName());
+        assertEquals("dara@example.com", pendingSummary.getUserEmail());
+        assertEquals("Bank Transfer", pendingSummary.getPaymentMethod());
+        assertNull(orderRepository.findAllSummaries().stream()
+                .filter(summary -> summary.getId().equals(pending.getId()))
+                .findFirst().orElseThrow().getPayDate());
+    }
+
+    @Test
+    void keysetPagesWalkEveryMatchingOrderOnce() {
+        createOrders(7);
+        Order big = createOrder(1, "paid", LocalDateTime.now());
+        big.setAmount(new BigDecimal("99.00"));
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderFilter all = new OrderFilter(null, null, null, userId, null, null);
+        List<Long> seen = new ArrayList<>();
+        OrderCursor cursor = null;
+        do {
+            List<OrderSummaryDTO> page = orderRepository.findSummaryPage(all, cursor, 3);
+            page.forEach(summary -> seen.add(summary.getId()));
+            OrderSummaryDTO last = page.isEmpty() ? null : page.get(page.size() - 1);
+            cursor = page.size() == 3 ? new OrderCursor(last.getCreatedAt(), last.getId()) : null;
+        } while (cursor != null);
+
+        assertEquals(8, seen.size());
+        assertEquals(8, seen.stream().distinct().count());
+        assertEquals(8, orderRepository.countByFilter(all));
+
+        OrderFilter paidAndBig = new OrderFilter("PAID", LocalDate.now(), LocalDate.now(), userId,
+                new BigDecimal("50"), null);
+        assertEquals(List.of(big.getId()), orderRepository.findSummaryPage(paidAndBig, null, 10).stream()
+                .map(OrderSummaryDTO::getId).toList());
+        assertEquals(4, orderRepository.findPendingSummaryPage(
+                new OrderFilter("pending", null, null, null, null, null), null, 10).size());
+    }
+
+    @Test
+    void filteredKeysetPagesKeepOrderAcrossTiesAndDateBounds() {
+        LocalDateTime noon = LocalDateTime.of(2025, 3, 10, 12, 0);
+        createOrderAt("paid", "20.00", LocalDateTime.of(2025, 3, 9, 23, 59));
+        Order firstDay = createOrderAt("paid", "20.00", LocalDateTime.of(2025, 3, 10, 0, 0));
+        Order tieOne = createOrderAt("paid", "20.00", noon);
+        Order tieTwo = createOrderAt("paid", "20.00", noon);
+        Order tieThree = createOrderAt("paid", "20.00", noon);
+        createOrderAt("paid", "5.00", noon);
+        Order pendingTie = createOrderAt("pending", "20.00", noon);
+        Order lastDay = createOrderAt("paid", "20.00", LocalDateTime.of(2025, 3, 12, 23, 59));
+        createOrderAt("paid", "20.00", LocalDateTime.of(2025, 3, 13, 0, 0));
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderFilter filter = new OrderFilter("Paid", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 12),
+                userId, new BigDecimal("10"), new BigDecimal("20"));
+        List<Long> expected = List.of(lastDay.getId(), tieThree.getId(), tieTwo.getId(), tieOne.getId(),
+                firstDay.getId());
+
+        for (int limit = 1; limit <= 3; limit++) {
+            List<Long> seen = new ArrayList<>();
+            OrderCursor cursor = null;
+            do {
+                List<OrderSummaryDTO> page = orderRepository.findSummaryPage(filter, cursor, limit);
+                page.forEach(summary -> seen.add(summary.getId()));
+                OrderSummaryDTO last = page.isEmpty() ? null : page.get(page.size() - 1);
+                cursor = page.size() == limit
+                        ? OrderCursor.parse(new OrderCursor(last.getCreatedAt(), last.getId()).encode())
+                        : null;
+            } while (cursor != null);
+            assertEquals(expected, seen);
+        }
+        assertEquals(5, orderRepository.countByFilter(filter));
+
+        // Pending listing continues from a cursor inside the tie just the same
+        OrderFilter pending = new OrderFilter("pending", null, null, userId, null, null);
+        assertEquals(List.of(pendingTie.getId()), orderRepository.findPendingSummaryPage(pending,
+                new OrderCursor(noon, pendingTie.getId() + 1), 10).stream().map(PendingOrderDTO::getId).toList());
+        assertEquals(List.of(), orderRepository.findPendingSummaryPage(pending,
+                new OrderCursor(noon, pendingTie.getId()), 10));
+        // Out-of-range days and the small amount only drop out under the filter
+        assertEquals(8, orderRepository.countByFilter(new OrderFilter("paid", null, null, userId, null, null)));
+    }
+
+    private long statementsFor(Supplier<List<?>> query) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        query.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            createOrder(2, i % 2 == 0 ? "pending" : "paid", LocalDateTime.now());
+        }
+    }
+
+    private Order createOrderAt(String status, String amount, LocalDateTime createdAt) {
+        Order order = createOrder(1, status, null);
+        order.setAmount(new BigDecimal(amount));
+        entityManager.flush();
+
+        // @PrePersist stamps now(); pin the timestamp the test pages over
+        entityManager.createQuery("UPDATE Order o SET o.createdAt = :createdAt WHERE o.id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", order.getId())
+                .executeUpdate();
+        return order;
+    }
+
+    private Order createOrder(int lines, String status, LocalDateTime payDate) {
+        Order order = new Order(userId, new BigDecimal("10.00"), status);
+        entityManager.persist(order);
+
+        for (int i = 0; i < lines; i++) {
+            OrderDetail detail = new OrderDetail(i + 1, 1, new BigDecimal("5.00"));
+            detail.setOrder(order);
+            entityManager.persist(detail);
+        }
+
+        Payment payment = new Payment();
+        payment.setOrderId(order.getId());
+        payment.setUserId(userId);
+        payment.setAmount(order.getAmount());
+        payment.setPaymentMethod("Bank Transfer");
+        payment.setStatus(status);
+        payment.setPayDate(payDate);
+        entityManager.persist(payment);
+        return order;
+    }
+}
@@ -0,0 +1,130 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.dto.ProductCursor;
+import com.minimart.api.model.Category;
+import com.minimart.api.model.Product;
+import com.minimart.api.model.Stock;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+class ProductPageQueryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Category snacks;
+    private Category drinks;
+
+    // Other tests commit products to the shared database; walks only report these
+    private final List<Integer> created = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        snacks = new Category("Snacks", null);
+        drinks = new Category("Drinks", null);
+        entityManager.persist(snacks);
+        entityManager.persist(drinks);
+    }
+
+    @Test
+    void dateSortPutsProductsWithoutCreatedAtLastAndPagesThroughThem() {
+        Product old = createProduct("Lays", "1.00", snacks, LocalDateTime.of(2025, 1, 1, 9, 0));
+        Product recent = createProduct("Pepsi", "1.50", drinks, LocalDateTime.of(2025, 6, 1, 9, 0));
+        Product sameTime = createProduct("Milo", "2.00", drinks, LocalDateTime.of(2025, 6, 1, 9, 0));
+        Product undatedOne = createProduct("Sting", "1.20", drinks, null);
+        Product undatedTwo = createProduct("Oishi", "0.80", snacks, null);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Integer> expected = List.of(
+                Math.max(recent.getId(), sameTime.getId()),
+                Math.min(recent.getId(), sameTime.getId()),
+                old.getId(),
+                Math.max(undatedOne.getId(), undatedTwo.getId()),
+                Math.min(undatedOne.getId(), undatedTwo.getId()));
+        assertEquals(expected, walk(ProductCursor.Sort.DATE, null, 2));
+        assertEquals(expected, walk(ProductCursor.Sort.DATE, null, 1));
+    }
+
+    @Test
+    void keysetPagesWalkEveryProductOnceInEachSort() {
+        Product lays = createProduct("Lays", "1.00", snacks, LocalDateTime.now());
+        Product pepsi = createProduct("Pepsi", "1.50", drinks, LocalDateTime.now());
+        Product milo = createProduct("Milo", "1.50", drinks, LocalDateTime.now());
+        Product oishi = createProduct("Oishi", "0.80", snacks, LocalDateTime.now());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(List.of(lays.getId(), milo.getId(), oishi.getId(), pepsi.getId()),
+                walk(ProductCursor.Sort.NAME, null, 3));
+        assertEquals(List.of(oishi.getId(), lays.getId(), pepsi.getId(), milo.getId()),
+                walk(ProductCursor.Sort.PRICE_ASC, null, 1));
+        assertEquals(List.of(milo.getId(), pepsi.getId(), lays.getId(), oishi.getId()),
+                walk(ProductCursor.Sort.PRICE_DESC, null, 2));
+        assertEquals(List.of(pepsi.getId(), milo.getId()),
+                walk(ProductCursor.Sort.ID, drinks.getId(), 1));
+        assertEquals(List.of(lays.getId(), oishi.getId(), pepsi.getId(), milo.getId()),
+                walk(ProductCursor.Sort.CATEGORY, null, 3));
+    }
+
+    @Test
+    void cursorOfAnUndatedProductRoundTrips() {
+        Product undated = createProduct("Sting", "1.20", drinks, null);
+        entityManager.flush();
+        entityManager.clear();
+
+        Product loaded = productRepository.findById(undated.getId()).orElseThrow();
+        ProductCursor cursor = ProductCursor.of(ProductCursor.Sort.DATE, loaded);
+        assertEquals("," + undated.getId(), cursor.encode());
+        assertEquals(cursor.encode(), ProductCursor.parse(ProductCursor.Sort.DATE, cursor.encode()).encode());
+    }
+
+    // Follow cursors page by page the way GET /api/products does
+    private List<Integer> walk(ProductCursor.Sort sort, Integer categoryId, int limit) {
+        List<Integer> seen = new ArrayList<>();
+        ProductCursor cursor = null;
+        do {
+            List<Product> page;
+            try (Stream<Product> products = productRepository.streamPage(sort, cursor, categoryId, limit)) {
+                page = products.toList();
+            }
+            page.stream().map(Product::getId).filter(created::contains).forEach(seen::add);
+            cursor = page.size() == limit
+                    ? ProductCursor.parse(sort, ProductCursor.of(sort, page.get(page.size() - 1)).encode())
+                    : null;
+        } while (cursor != null);
+        return seen;
+    }
+
+    private Product createProduct(String name, String price, Category category, LocalDateTime createdAt) {
+        Product product = new Product(name, null, new BigDecimal(price), category);
+        product.setStock(new Stock(5, product));
+        entityManager.persist(product);
+        entityManager.flush();
+        created.add(product.getId());
+
+        // @PrePersist always stamps now(); rows imported without a date have none
+        entityManager.createQuery("UPDATE Product p SET p.createdAt = :createdAt WHERE p.id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", product.getId())
+                .executeUpdate();
+        return product;
+    }
+}
@@ -0,0 +1,124 @@
+package com.minimart.api.repository;
+
+import com.minimart.api.model.Category;
+import com.minimart.api.model.Product;
+import com.minimart.api.model.Stock;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockRepositoryTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final int INITIAL_STOCK = 100;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentDeductionsNeverOversell() throws Exception {
+        Integer productId = createProduct("Coca Cola", INITIAL_STOCK);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                int sold = 0;
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    List<Integer> shortfalls = tx.execute(status ->
+                            stockRepository.deductAll(Map.of(productId, 1)));
+                    if (shortfalls.isEmpty()) {
+                        sold++;
+                    }
+                }
+                return sold;
+            }));
+        }
+
+        start.countDown();
+        int sold = 0;
+        for (Future<Integer> result : results) {
+            sold += result.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(INITIAL_STOCK, sold);
+        assertEquals(0, stockRepository.findByProductId(productId).orElseThrow().getQty());
+    }
+
+    @Test
+    void reportsEveryShortProduct() {
+        Integer enough = createProduct("Milo", 10);
+        Integer shortOne = createProduct("Pepsi", 1);
+        Integer shortTwo = createProduct("Lays", 0);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        List<Integer> shortfalls = tx.execute(status -> {
+            List<Integer> result = stockRepository.deductAll(Map.of(enough, 3, shortOne, 2, shortTwo, 1));
+            status.setRollbackOnly();
+            return result;
+        });
+
+        assertEquals(List.of(shortOne, shortTwo).stream().sorted().toList(), shortfalls);
+        assertEquals(10, stockRepository.findByProductId(enough).orElseThrow().getQty());
+    }
+
+    @Test
+    void stockReadAfterDeductionIsCurrent() {
+        Integer productId = createProduct("Sting", 10);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        int qtyAfter = tx.execute(status -> {
+            // Loaded into the persistence context before the bulk update
+            assertEquals(10, stockRepository.findByProductId(productId).orElseThrow().getQty());
+            assertTrue(stockRepository.deductAll(Map.of(productId, 4)).isEmpty());
+            return stockRepository.findByProductId(productId).orElseThrow().getQty();
+        });
+
+        assertEquals(6, qtyAfter);
+    }
+
+    private Integer createProduct(String name, int qty) {
+        Category category = categoryRepository.save(new Category(name + " category", null));
+
+        Product product = new Product(name, null, new BigDecimal("1.00"), category);
+        product.setStock(new Stock(qty, product));
+        return productRepository.save(product).getId();
+    }
+}
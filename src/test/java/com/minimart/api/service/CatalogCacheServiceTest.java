@@ -0,0 +1,98 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogCacheServiceTest {
+
+    private CatalogCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CatalogCacheService();
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        cache.init();
+    }
+
+    @Test
+    void cachedListsAreLoadedOnceAndCannotBeModified() {
+        AtomicInteger loads = new AtomicInteger();
+        String key = CatalogCacheService.productListKey(null, "all");
+
+        List<String> first = cache.get(key, () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>(List.of("Milo", "Pepsi"));
+        });
+        List<String> second = cache.get(key, () -> {
+            loads.incrementAndGet();
+            return new ArrayList<>();
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(List.of("Milo", "Pepsi"), second);
+        assertThrows(UnsupportedOperationException.class, () -> first.add("Lays"));
+        assertThrows(UnsupportedOperationException.class, () -> second.sort(null));
+    }
+
+    @Test
+    void productChangeDropsItselfCatalogListsAndItsCategoryListsOnly() {
+        String product = CatalogCacheService.productKey(1);
+        String otherProduct = CatalogCacheService.productKey(2);
+        String catalog = CatalogCacheService.productListKey(null, "all");
+        String ownCategory = CatalogCacheService.productListKey(10, "all");
+        String otherCategory = CatalogCacheService.productListKey(20, "all");
+        String categories = CatalogCacheService.categoryListKey("all");
+        List.of(product, otherProduct, catalog, ownCategory, otherCategory, categories).forEach(this::cache);
+
+        cache.invalidateProduct(1, 10);
+
+        assertFalse(isCached(product));
+        assertFalse(isCached(catalog));
+        assertFalse(isCached(ownCategory));
+        assertTrue(isCached(otherProduct));
+        assertTrue(isCached(otherCategory));
+        assertTrue(isCached(categories));
+    }
+
+    @Test
+    void categoryChangeDropsEveryProductEntry() {
+        String product = CatalogCacheService.productKey(1);
+        String otherCategoryList = CatalogCacheService.productListKey(20, "name");
+        String category = CatalogCacheService.categoryKey(10);
+        String otherCategory = CatalogCacheService.categoryKey(20);
+        String categories = CatalogCacheService.categoryListKey("name");
+        List.of(product, otherCategoryList, category, otherCategory, categories).forEach(this::cache);
+
+        cache.invalidateCategory(10);
+
+        assertFalse(isCached(product));
+        assertFalse(isCached(otherCategoryList));
+        assertFalse(isCached(category));
+        assertFalse(isCached(categories));
+        assertTrue(isCached(otherCategory));
+    }
+
+    private void cache(String key) {
+        cache.get(key, () -> List.of(key));
+    }
+
+    private boolean isCached(String key) {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(key, () -> {
+            loads.incrementAndGet();
+            return List.of(key);
+        });
+        return loads.get() == 0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Same configuration as PaymentVerificationServiceTest so the Spring context is shared
+@SpringBootTest(properties = {
+        "ocr.engine=local",
+        "payment.verification.workers=2",
+        "file.upload.payment=target/test-uploads/payments",
+        "file.upload.category=target/test-uploads/category",
+        "file.upload.blobs=target/test-uploads/blobs"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("h2")
+class ContentStoreServiceTest {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void identicalUploadsShareOneBlobUntilLastDelete() throws Exception {
+        byte[] icon = ("category icon " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+
+        String first = fileStorageService.storeFile(new MockMultipartFile("image", "drinks.png", "image/png", icon), "category");
+        String second = fileStorageService.storeFile(new MockMultipartFile("image", "copy.png", "image/png", icon), "category");
+        assertNotEquals(first, second);
+
+        Path firstBlob = fileStorageService.resolveServedFile("category", first);
+        assertEquals(firstBlob, fileStorageService.resolveServedFile("category", second));
+        assertTrue(firstBlob.startsWith(Path.of("target/test-uploads/blobs").toAbsolutePath()));
+        assertEquals(icon.length, Files.size(firstBlob));
+
+        fileStorageService.deleteFile(first, "category");
+        assertTrue(Files.exists(firstBlob));
+        assertFalse(Files.exists(fileStorageService.resolveServedFile("category", first)));
+
+        fileStorageService.deleteFile(second, "category");
+        assertFalse(Files.exists(firstBlob));
+    }
+
+    @Test
+    void productImagesAreKeyedWithoutCategory() throws Exception {
+        byte[] photo = ("product photo " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+
+        String url = fileStorageService.storeProductImage(new MockMultipartFile("image", "cola.png", "image/png", photo));
+        assertTrue(url.startsWith(FileStorageService.PRODUCT_IMAGE_URL));
+        String name = url.substring(FileStorageService.PRODUCT_IMAGE_URL.length());
+        assertFalse(name.contains("/"));
+
+        Path blob = fileStorageService.resolveServedFile("product", name);
+        assertEquals(photo.length, Files.size(blob));
+
+        fileStorageService.deleteProductImage(url);
+        assertFalse(Files.exists(blob));
+    }
+
+    @Test
+    void deleteInsideARolledBackTransactionKeepsTheBlob() throws Exception {
+        byte[] icon = ("rollback icon " + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+        String name = fileStorageService.storeFile(new MockMultipartFile("image", "snacks.png", "image/png", icon), "category");
+        Path blob = fileStorageService.resolveServedFile("category", name);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        tx.executeWithoutResult(status -> {
+            fileStorageService.deleteFile(name, "category");
+            status.setRollbackOnly();
+        });
+        assertTrue(Files.exists(blob));
+        assertEquals(blob, fileStorageService.resolveServedFile("category", name));
+
+        tx.executeWithoutResult(status -> fileStorageService.deleteFile(name, "category"));
+        assertFalse(Files.exists(blob));
+    }
+}
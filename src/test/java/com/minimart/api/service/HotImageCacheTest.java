@@ -0,0 +1,54 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HotImageCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cachesSmallFilesUntilInvalidated() throws IOException {
+        FileETagService etags = new FileETagService();
+        ReflectionTestUtils.setField(etags, "maxEntries", 100L);
+        etags.init();
+
+        HotImageCache cache = new HotImageCache();
+        ReflectionTestUtils.setField(cache, "fileETagService", etags);
+        ReflectionTestUtils.setField(cache, "maxBytes", 10_000L);
+        ReflectionTestUtils.setField(cache, "maxEntryBytes", 1_000L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        cache.init();
+
+        Path banner = Files.write(dir.resolve("banner.png"), new byte[500]);
+        Path huge = Files.write(dir.resolve("huge.png"), new byte[5_000]);
+
+        assertNull(cache.get(banner, 0));
+        HotImageCache.Entry loaded = cache.load(banner, 0, banner);
+        assertNotNull(loaded);
+        assertEquals(etags.getETag(banner, 500, Files.getLastModifiedTime(banner).toMillis()), loaded.etag());
+
+        // Served from memory even after the file is gone, until invalidated
+        Files.delete(banner);
+        assertArrayEquals(new byte[500], cache.get(banner, 0).content());
+        cache.invalidate(banner);
+        assertNull(cache.get(banner, 0));
+
+        assertNull(cache.load(huge, 0, huge));
+        assertNull(cache.load(dir.resolve("missing.png"), 0, dir.resolve("missing.png")));
+
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(0L, cache.getStats().get("residentBytes"));
+    }
+}
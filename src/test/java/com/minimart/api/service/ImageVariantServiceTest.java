@@ -0,0 +1,87 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void servesSnappedVariantAndNeverUpscales() throws IOException {
+        ImageVariantService variants = service();
+        Path photo = image(dir.resolve("photo.jpg"), 1600, 1200, "jpg");
+
+        Path small = variants.resolve(photo, 100);
+        assertEquals(ImageVariantService.variantPath(photo, 128), small);
+        BufferedImage thumb = ImageIO.read(small.toFile());
+        assertEquals(128, thumb.getWidth());
+        assertEquals(96, thumb.getHeight());
+        assertTrue(Files.size(small) < Files.size(photo));
+
+        // Wider than the largest variant: original
+        assertEquals(photo, variants.resolve(photo, 2000));
+
+        Path icon = image(dir.resolve("icon.png"), 200, 200, "png");
+        assertEquals(icon, variants.resolve(icon, 256));
+        assertEquals(128, ImageIO.read(variants.resolve(icon, 128).toFile()).getWidth());
+
+        variants.deleteVariants(photo);
+        variants.deleteVariants(icon);
+        assertFalse(Files.exists(dir.resolve(".variants")));
+    }
+
+    @Test
+    void narrowOriginalIsRememberedUntilItChanges() throws IOException {
+        ImageVariantService variants = service();
+        Path icon = image(dir.resolve("icon.png"), 200, 200, "png");
+        FileTime uploaded = Files.getLastModifiedTime(icon);
+        assertEquals(icon, variants.resolve(icon, 256));
+
+        // Same mtime: the cached width answers without reading the (now wider) file
+        image(icon, 800, 800, "png");
+        Files.setLastModifiedTime(icon, uploaded);
+        assertEquals(icon, variants.resolve(icon, 256));
+
+        Files.setLastModifiedTime(icon, FileTime.fromMillis(uploaded.toMillis() + 60_000));
+        assertEquals(ImageVariantService.variantPath(icon, 256), variants.resolve(icon, 256));
+    }
+
+    private static ImageVariantService service() {
+        FileETagService etags = new FileETagService();
+        ReflectionTestUtils.setField(etags, "maxEntries", 100L);
+        etags.init();
+
+        ImageVariantService variants = new ImageVariantService();
+        ReflectionTestUtils.setField(variants, "fileETagService", etags);
+        ReflectionTestUtils.setField(variants, "enabled", true);
+        return variants;
+    }
+
+    private static Path image(Path file, int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLUE);
+        g.fillOval(width / 4, height / 4, width / 2, height / 2);
+        g.dispose();
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+}
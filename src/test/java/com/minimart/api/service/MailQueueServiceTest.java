@@ -0,0 +1,112 @@
+package com.minimart.api.service;
+
+import com.minimart.api.model.OutboundMail;
+import com.minimart.api.repository.OutboundMailRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Mail goes to a LocalSmtpServer instead of Gmail; short backoff so retries happen within the test
+@SpringBootTest(properties = {
+        "ocr.engine=local",
+        "payment.verification.workers=2",
+        "file.upload.payment=target/test-uploads/payments",
+        "file.upload.category=target/test-uploads/category",
+        "file.upload.blobs=target/test-uploads/blobs",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "spring.mail.properties.mail.smtp.starttls.required=false",
+        "mail.queue.max-attempts=3",
+        "mail.queue.initial-backoff-ms=50"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("h2")
+class MailQueueServiceTest {
+
+    private static final LocalSmtpServer SMTP;
+
+    static {
+        try {
+            SMTP = new LocalSmtpServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void mailServer(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "127.0.0.1");
+        registry.add("spring.mail.port", SMTP::getPort);
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        SMTP.close();
+    }
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private MailQueueService mailQueueService;
+
+    @Autowired
+    private OutboundMailRepository outboundMailRepository;
+
+    @Test
+    void otpMailIsRetriedUntilTheServerAcceptsIt() throws Exception {
+        int before = SMTP.getMessages().size();
+        SMTP.failNext(2);
+
+        Long id = mailQueueService.enqueue("dara@example.com", "Mini Mart - Your OTP Verification Code", "code 123456");
+        assertTrue(SMTP.awaitMessages(before + 1, 10_000));
+        assertTrue(SMTP.getMessages().get(before).contains("code 123456"));
+
+        OutboundMail mail = awaitStatus(id, OutboundMail.SENT);
+        assertEquals(3, mail.getAttempts());
+        assertNull(mail.getBody());
+
+        // EmailService only queues; the mail arrives shortly after
+        assertTrue(emailService.sendPasswordResetOtpEmail("dara@example.com", "654321"));
+        assertTrue(SMTP.awaitMessages(before + 2, 10_000));
+        assertTrue(SMTP.getMessages().get(before + 1).contains("654321"));
+    }
+
+    @Test
+    void mailIsMarkedFailedAfterMaxAttempts() throws Exception {
+        SMTP.failNext(3);
+
+        Long id = mailQueueService.enqueue("sok@example.com", "Mini Mart - Password Reset OTP", "code 000111");
+
+        OutboundMail mail = awaitStatus(id, OutboundMail.FAILED);
+        assertEquals(3, mail.getAttempts());
+        assertTrue(mail.getLastError().contains("451"));
+        assertNull(mail.getBody());
+        Map<?, ?> byStatus = (Map<?, ?>) mailQueueService.getStats().get("byStatus");
+        assertTrue(((Number) byStatus.get(OutboundMail.FAILED)).longValue() >= 1);
+    }
+
+    private OutboundMail awaitStatus(Long id, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        OutboundMail mail = outboundMailRepository.findById(id).orElseThrow();
+        while (!status.equals(mail.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            mail = outboundMailRepository.findById(id).orElseThrow();
+        }
+        assertEquals(status, mail.getStatus());
+        return mail;
+    }
+}
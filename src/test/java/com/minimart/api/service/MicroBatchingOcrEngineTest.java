@@ -0,0 +1,186 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatchingOcrEngineTest {
+
+    @Test
+    void concurrentCallsShareOneBatchAndGetTheirOwnText() throws Exception {
+        AtomicInteger remoteCalls = new AtomicInteger();
+        OcrEngine remote = new OcrEngine() {
+            @Override
+            public String extractText(File imageFile) {
+                throw new AssertionError("single-image call");
+            }
+
+            @Override
+            public List<Result> extractTexts(List<File> imageFiles) {
+                remoteCalls.incrementAndGet();
+                List<Result> results = new ArrayList<>();
+                for (File file : imageFiles) {
+                    results.add(file.getName().startsWith("bad")
+                            ? new Result(null, new IOException("bad image"))
+                            : new Result("text of " + file.getName(), null));
+                }
+                return results;
+            }
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try (MicroBatchingOcrEngine engine = new MicroBatchingOcrEngine(remote, 8, 500, 1, 64, 10_000)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                File file = new File("receipt-" + i + ".png");
+                results.add(callers.submit(() -> engine.extractText(file)));
+            }
+            Future<String> bad = callers.submit(() -> engine.extractText(new File("bad.png")));
+
+            for (int i = 0; i < 7; i++) {
+                assertEquals("text of receipt-" + i + ".png", results.get(i).get());
+            }
+            Throwable error = assertThrows(Exception.class, bad::get).getCause();
+            assertTrue(error instanceof IOException && error.getMessage().equals("bad image"));
+
+            // 8 callers = max batch size, so they flush together without waiting the full 500ms
+            assertEquals(1, remoteCalls.get());
+            assertEquals(8L, engine.getStats().get("images"));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedBatchCountsOnceInTheCircuitBreaker() throws Exception {
+        AtomicInteger remoteCalls = new AtomicInteger();
+        OcrEngine remote = new OcrEngine() {
+            @Override
+            public String extractText(File imageFile) {
+                throw new AssertionError("single-image call");
+            }
+
+            @Override
+            public List<Result> extractTexts(List<File> imageFiles) throws IOException {
+                // First batch hits a transient remote error, later ones succeed
+                if (remoteCalls.incrementAndGet() == 1) {
+                    throw new IOException("vision unavailable");
+                }
+                List<Result> results = new ArrayList<>();
+                for (File file : imageFiles) {
+                    results.add(new Result("ok", null));
+                }
+                return results;
+            }
+        };
+
+        // Breaker opens after 5 consecutive failures; the failed batch carries 8 images
+        ResilientOcrEngine guarded = new ResilientOcrEngine(remote, 4, 100, 5_000, 5, 30_000);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try (MicroBatchingOcrEngine engine = new MicroBatchingOcrEngine(guarded, 8, 500, 1, 64, 10_000)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                File file = new File("receipt-" + i + ".png");
+                results.add(callers.submit(() -> engine.extractText(file)));
+            }
+            for (Future<String> result : results) {
+                assertTrue(assertThrows(Exception.class, result::get).getCause() instanceof IOException);
+            }
+
+            assertEquals(1, remoteCalls.get());
+            assertEquals(ResilientOcrEngine.CLOSED, guarded.getState());
+            assertEquals(1, guarded.getStats().get("consecutiveFailures"));
+            assertEquals("ok", engine.extractText(new File("receipt-8.png")));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void slowRemoteTimesOutCallersAndFullQueueFailsFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger sent = new AtomicInteger();
+        OcrEngine stuck = new OcrEngine() {
+            @Override
+            public String extractText(File imageFile) {
+                throw new AssertionError("single-image call");
+            }
+
+            @Override
+            public List<Result> extractTexts(List<File> imageFiles) throws IOException {
+                sent.addAndGet(imageFiles.size());
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException("interrupted", e);
+                }
+                List<Result> results = new ArrayList<>();
+                for (File file : imageFiles) {
+                    results.add(new Result("late", null));
+                }
+                return results;
+            }
+        };
+
+        // One sender, one image per batch, two callers may queue, 300ms caller deadline
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try (MicroBatchingOcrEngine engine = new MicroBatchingOcrEngine(stuck, 1, 1, 1, 2, 300)) {
+            Future<String> inFlight = callers.submit(() -> engine.extractText(new File("a.png")));
+            while (sent.get() == 0) {
+                Thread.sleep(5);
+            }
+            // The only sender is busy: two callers wait in the queue, a third is refused right away
+            Future<String> waiting = callers.submit(() -> engine.extractText(new File("b.png")));
+            Future<String> waiting2 = callers.submit(() -> engine.extractText(new File("c.png")));
+            while (!engine.getStats().get("queued").equals(2)) {
+                Thread.sleep(5);
+            }
+            IOException full = assertThrows(IOException.class, () -> engine.extractText(new File("d.png")));
+            assertTrue(full.getMessage().startsWith("OCR busy"));
+
+            long start = System.currentTimeMillis();
+            for (Future<String> caller : List.of(inFlight, waiting, waiting2)) {
+                Throwable error = assertThrows(Exception.class, caller::get).getCause();
+                assertTrue(error instanceof IOException && error.getMessage().startsWith("OCR timed out"));
+            }
+            assertTrue(System.currentTimeMillis() - start < 2_000);
+
+            // Timed-out callers left the queue: only the first image ever reached the remote side
+            release.countDown();
+            assertEquals("late", engine.extractText(new File("f.png")));
+            assertEquals(2, sent.get());
+            assertEquals(3L, engine.getStats().get("timeouts"));
+            assertEquals(1L, engine.getStats().get("rejected"));
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void loneCallIsFlushedAfterMaxWait() throws Exception {
+        try (MicroBatchingOcrEngine engine = new MicroBatchingOcrEngine(file -> "ok", 16, 20, 1, 64, 10_000)) {
+            long start = System.currentTimeMillis();
+            assertEquals("ok", engine.extractText(new File("receipt.png")));
+            assertTrue(System.currentTimeMillis() - start < 1_000);
+
+            MicroBatchingOcrEngine.Histogram sizes = new MicroBatchingOcrEngine.Histogram(1, 2);
+            sizes.record(1);
+            sizes.record(5);
+            assertEquals(1, sizes.count(0));
+            assertEquals(1, sizes.count(2));
+        }
+    }
+}
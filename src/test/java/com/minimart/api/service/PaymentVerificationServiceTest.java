@@ -0,0 +1,228 @@
+package com.minimart.api.service;
+
+import com.minimart.api.model.Category;
+import com.minimart.api.model.Order;
+import com.minimart.api.model.OrderDetail;
+import com.minimart.api.model.PaymentVerification;
+import com.minimart.api.model.Product;
+import com.minimart.api.model.Stock;
+import com.minimart.api.model.User;
+import com.minimart.api.repository.CategoryRepository;
+import com.minimart.api.repository.OrderDetailRepository;
+import com.minimart.api.repository.OrderRepository;
+import com.minimart.api.repository.PaymentRepository;
+import com.minimart.api.repository.ProductRepository;
+import com.minimart.api.repository.StockRepository;
+import com.minimart.api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "ocr.engine=local",
+        "payment.verification.workers=2",
+        "file.upload.payment=target/test-uploads/payments",
+        "file.upload.category=target/test-uploads/category",
+        "file.upload.blobs=target/test-uploads/blobs"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("h2")
+class PaymentVerificationServiceTest {
+
+    @Autowired
+    private PaymentVerificationService verificationService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private OcrResultCacheService ocrResultCache;
+
+    @Autowired
+    private OCRService ocrService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Long userId;
+
+    private Integer productId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUserName("Dara");
+        user.setEmail("dara" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        userId = userRepository.save(user).getUserId();
+
+        Category category = categoryRepository.save(new Category("Drinks " + System.nanoTime(), null));
+        Product product = new Product("Milo", null, new BigDecimal("5.00"), category);
+        product.setStock(new Stock(5, product));
+        productId = productRepository.save(product).getId();
+    }
+
+    @Test
+    void verifiesMatchingScreenshotInBackground() throws Exception {
+        Long orderId = createOrder("10.00");
+
+        Map<String, Object> accepted = verificationService.submit(userId, orderId,
+                screenshot("ABA Bank\nTrx. ID: 4311715623401\nAmount: USD 10.00\nOct 19, 2025 | 4:01PM"));
+        assertTrue((Boolean) accepted.get("success"));
+
+        PaymentVerification job = awaitFinished(orderId);
+        assertEquals(PaymentVerification.VERIFIED, job.getStatus());
+        assertEquals("4311715623401", job.getTransactionId());
+        assertEquals("paid", orderRepository.findById(orderId).orElseThrow().getStatus());
+        assertEquals("paid", paymentRepository.findByOrderId(orderId).orElseThrow().getStatus());
+        assertEquals(job.getContentHash(), paymentRepository.findByOrderId(orderId).orElseThrow().getScreenshotHash());
+        assertEquals(3, stockRepository.findByProductId(productId).orElseThrow().getQty());
+    }
+
+    @Test
+    void rejectsWrongAmountAndDropsScreenshot() throws Exception {
+        Long orderId = createOrder("10.00");
+
+        verificationService.submit(userId, orderId,
+                screenshot("Trx. ID: 4311715623402\nAmount: USD 9.00"));
+
+        PaymentVerification job = awaitFinished(orderId);
+        assertEquals(PaymentVerification.REJECTED, job.getStatus());
+        assertEquals("pending", orderRepository.findById(orderId).orElseThrow().getStatus());
+        assertEquals(5, stockRepository.findByProductId(productId).orElseThrow().getQty());
+        assertFalse(fileStorageService.getFileStorageLocation("payment")
+                .resolve(job.getFileName()).toFile().exists());
+    }
+
+    @Test
+    void reuploadedScreenshotIsAnsweredFromOcrCache() throws Exception {
+        Long orderId = createOrder("10.00");
+        String text = "Trx. ID: 4311715623403\nAmount: USD 8.00";
+
+        verificationService.submit(userId, orderId, screenshot(text));
+        PaymentVerification first = awaitFinished(orderId);
+        long hitsBefore = cacheHits();
+
+        verificationService.submit(userId, orderId, screenshot(text));
+        PaymentVerification second = awaitFinished(orderId);
+
+        assertEquals(PaymentVerification.REJECTED, second.getStatus());
+        assertEquals(first.getContentHash(), second.getContentHash());
+        assertEquals(OcrResultCacheService.sha256(text.getBytes(StandardCharsets.UTF_8)), second.getContentHash());
+        assertEquals(hitsBefore + 1, cacheHits());
+    }
+
+    @Test
+    void lookalikeScreenshotIsHeldForReviewWithoutOcr() throws Exception {
+        // Same bank-app layout: the others are within the dHash distance of the paid one
+        byte[] paid = PerceptualHashTest.png(PerceptualHashTest.receipt("Trx. ID: 7711000001", "-10.00 USD"));
+        byte[] other = PerceptualHashTest.png(PerceptualHashTest.receipt("Trx. ID: 7711000002", "-10.00 USD"));
+        byte[] recompressed = PerceptualHashTest.jpeg(PerceptualHashTest.receipt("Trx. ID: 7711000001", "-10.00 USD"));
+        // The local OCR engine cannot read images: give each one its text through the OCR cache
+        seedOcr(paid, "Trx. ID: 7711000001\nAmount: USD 10.00");
+        seedOcr(other, "Trx. ID: 7711000002\nAmount: USD 10.00");
+        seedOcr(recompressed, "Trx. ID: 7711000001\nAmount: USD 10.00");
+
+        Long firstOrder = createOrder("10.00");
+        verificationService.submit(userId, firstOrder, image(paid));
+        assertEquals(PaymentVerification.VERIFIED, awaitFinished(firstOrder).getStatus());
+
+        long hitsBefore = cacheHits();
+        Long secondOrder = createOrder("10.00");
+        verificationService.submit(userId, secondOrder, image(other));
+        PaymentVerification held = awaitFinished(secondOrder);
+        assertEquals(PaymentVerification.REVIEW, held.getStatus());
+        assertEquals("pending", orderRepository.findById(secondOrder).orElseThrow().getStatus());
+        assertEquals(held.getScreenshotPath(),
+                paymentRepository.findByOrderId(secondOrder).orElseThrow().getScreenshotPath());
+        assertTrue(fileStorageService.resolveStoredFile("payment", held.getFileName()).toFile().exists());
+
+        Long thirdOrder = createOrder("10.00");
+        verificationService.submit(userId, thirdOrder, image(recompressed));
+        assertEquals(PaymentVerification.REVIEW, awaitFinished(thirdOrder).getStatus());
+        // Neither upload reached the OCR step
+        assertEquals(hitsBefore, cacheHits());
+
+        // Identical bytes are rejected outright
+        verificationService.submit(userId, thirdOrder, image(paid));
+        PaymentVerification copy = awaitFinished(thirdOrder);
+        assertEquals(PaymentVerification.REJECTED, copy.getStatus());
+        assertEquals("This payment screenshot has already been used.", copy.getMessage());
+        assertEquals(hitsBefore, cacheHits());
+
+        // The admin decides the held one
+        assertTrue((Boolean) orderService.confirmPayment(secondOrder).get("success"));
+        assertEquals("paid", orderRepository.findById(secondOrder).orElseThrow().getStatus());
+    }
+
+    private void seedOcr(byte[] image, String text) {
+        ocrResultCache.put(OcrResultCacheService.sha256(image), text, ocrService.parseReceipt(text));
+    }
+
+    private MockMultipartFile image(byte[] bytes) {
+        return new MockMultipartFile("screenshot", "receipt.png", "image/png", bytes);
+    }
+
+    private long cacheHits() {
+        Map<String, Object> stats = ocrResultCache.getStats();
+        return (Long) stats.get("memoryHits") + (Long) stats.get("databaseHits");
+    }
+
+    private Long createOrder(String amount) {
+        Order order = orderRepository.save(new Order(userId, new BigDecimal(amount), "pending"));
+        OrderDetail detail = new OrderDetail(productId, 2, new BigDecimal("5.00"));
+        detail.setOrder(order);
+        orderDetailRepository.save(detail);
+        return order.getId();
+    }
+
+    private MockMultipartFile screenshot(String text) {
+        return new MockMultipartFile("screenshot", "receipt.png", "image/png",
+                text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PaymentVerification awaitFinished(Long orderId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            PaymentVerification job = verificationService.getLatest(orderId);
+            if (job != null && job.isFinished()) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Verification job did not finish");
+    }
+}
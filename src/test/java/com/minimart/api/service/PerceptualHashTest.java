@@ -0,0 +1,104 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerceptualHashTest {
+
+    @Test
+    void recompressedAndResizedCopiesStayClose() throws IOException {
+        BufferedImage original = receipt("Trx. ID: 43117156234", "-10.00 USD");
+        long hash = PerceptualHash.dHash(png(original));
+
+        BufferedImage smaller = new BufferedImage(540, 1200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = smaller.createGraphics();
+        g.drawImage(original, 0, 0, 540, 1200, null);
+        g.dispose();
+
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.dHash(jpeg(original))) <= 6);
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.dHash(png(smaller))) <= 6);
+        assertNull(PerceptualHash.dHash("not an image".getBytes()));
+    }
+
+    @Test
+    void differentReceiptsFromTheSameAppAreAlsoClose() throws IOException {
+        // Why a near match cannot reject on its own: only the transaction ID tells these apart
+        long hash = PerceptualHash.dHash(png(receipt("Trx. ID: 43117156234", "-10.00 USD")));
+
+        assertTrue(PerceptualHash.distance(hash,
+                PerceptualHash.dHash(png(receipt("Trx. ID: 58820413977", "-10.00 USD")))) <= 6);
+        assertTrue(PerceptualHash.distance(hash,
+                PerceptualHash.dHash(png(receipt("Trx. ID: 90215548310", "-250.00 USD")))) <= 6);
+    }
+
+    @Test
+    void bkTreeFindsSameMatchesAsLinearScan() {
+        Random random = new Random(7);
+        HammingBkTree tree = new HammingBkTree();
+        List<Long> hashes = new ArrayList<>();
+        for (long id = 0; id < 20_000; id++) {
+            long hash = random.nextLong();
+            hashes.add(hash);
+            tree.add(hash, id);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            // Query near a stored hash: flip a few random bits
+            long query = hashes.get(random.nextInt(hashes.size()));
+            for (int flips = random.nextInt(5); flips > 0; flips--) {
+                query ^= 1L << random.nextInt(64);
+            }
+
+            long expected = 0;
+            for (long hash : hashes) {
+                if (PerceptualHash.distance(hash, query) <= 6) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, tree.search(query, 6).size());
+        }
+    }
+
+    // Same bank-app layout every time; only the transaction ID and amount differ
+    static BufferedImage receipt(String trxLine, String amountLine) {
+        BufferedImage image = new BufferedImage(1080, 2400, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 1080, 2400);
+        g.setColor(new Color(0, 90, 160));
+        g.fillRect(0, 0, 1080, 400);
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 90));
+        g.drawString(amountLine, 120, 800);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 60));
+        g.drawString(trxLine, 120, 1200);
+        g.dispose();
+        return image;
+    }
+
+    static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    static byte[] jpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,77 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.index(1, "Coca Cola 330ml", "Classic soft drink", "Beverages");
+        index.index(2, "Pepsi Cola", "Cola flavoured soda", "Beverages");
+        index.index(3, "Lays Chips", "Potato chips, original", "Snacks");
+        index.index(4, "Milo", "Chocolate malt drink", "Beverages");
+    }
+
+    @Test
+    void ranksNameMatchesAboveDetailMatches() {
+        index.index(5, "Soda Water", "Not a cola at all", "Beverages");
+
+        List<Integer> ids = index.search("cola", 0, 10).productIds();
+
+        assertEquals(3, ids.size());
+        assertEquals(5, ids.get(2));
+    }
+
+    @Test
+    void pageFarPastTheLastHitIsEmpty() {
+        // page 20,000,000 x size 200 overflows int; the offset is clamped instead
+        int offset = ProductSearchService.pageOffset(20_000_000, 200);
+        assertEquals(Integer.MAX_VALUE, offset);
+
+        ProductSearchIndex.Hits hits = index.search("cola", offset, 200);
+        assertEquals(2, hits.total());
+        assertTrue(hits.productIds().isEmpty());
+    }
+
+    @Test
+    void matchesPrefixesAndCategoryName() {
+        assertEquals(List.of(3), index.search("chi", 0, 10).productIds());
+        assertEquals(1, index.search("snacks", 0, 10).total());
+    }
+
+    @Test
+    void requiresEveryToken() {
+        assertEquals(List.of(4), index.search("malt drink", 0, 10).productIds());
+        assertTrue(index.search("cola chips", 0, 10).productIds().isEmpty());
+    }
+
+    @Test
+    void pagesOverRankedHits() {
+        ProductSearchIndex.Hits first = index.search("beverages", 0, 2);
+        ProductSearchIndex.Hits second = index.search("beverages", 2, 2);
+
+        assertEquals(3, first.total());
+        assertEquals(2, first.productIds().size());
+        assertEquals(1, second.productIds().size());
+    }
+
+    @Test
+    void updatesAndRemovesIncrementally() {
+        index.index(3, "Pringles", "Stackable crisps", "Snacks");
+        assertTrue(index.search("lays", 0, 10).productIds().isEmpty());
+        assertEquals(List.of(3), index.search("pringles", 0, 10).productIds());
+
+        index.remove(3);
+        assertTrue(index.search("pringles", 0, 10).productIds().isEmpty());
+        assertEquals(3, index.size());
+    }
+}
@@ -0,0 +1,49 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSuggestIndexTest {
+
+    private ProductSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSuggestIndex();
+        index.put("product", 1, "Coca Cola 330ml", 50);
+        index.put("product", 2, "Pepsi Cola", 80);
+        index.put("product", 3, "Cocoa Powder", 5);
+        index.put("category", 1, "Cold Drinks", 130);
+    }
+
+    @Test
+    void ranksCompletionsByPopularityFromAnyWordStart() {
+        assertEquals(List.of("Cold Drinks", "Pepsi Cola", "Coca Cola 330ml", "Cocoa Powder"), texts("co"));
+        assertEquals(List.of("Pepsi Cola", "Coca Cola 330ml"), texts("cola"));
+        assertEquals(List.of("Coca Cola 330ml"), texts("COCA c"));
+    }
+
+    @Test
+    void appliesSalesAndMutationsIncrementally() {
+        index.addPopularity("product", 3, 200);
+        assertEquals("Cocoa Powder", texts("co").get(0));
+
+        index.put("product", 2, "Pepsi Max", index.popularity("product", 2));
+        assertEquals(List.of("Coca Cola 330ml"), texts("cola"));
+
+        index.remove("product", 1);
+        assertTrue(texts("cola").isEmpty());
+        assertEquals(List.of("Cocoa Powder"), texts("coc"));
+    }
+
+    private List<String> texts(String prefix) {
+        return index.suggest(prefix, ProductSuggestIndex.MAX_RESULTS).stream()
+                .map(ProductSuggestIndex.Suggestion::text)
+                .toList();
+    }
+}
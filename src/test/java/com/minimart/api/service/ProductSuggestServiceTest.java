@@ -0,0 +1,80 @@
+package com.minimart.api.service;
+
+import com.minimart.api.model.Category;
+import com.minimart.api.model.Product;
+import com.minimart.api.model.Stock;
+import com.minimart.api.repository.CategoryRepository;
+import com.minimart.api.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "ocr.engine=local",
+        "payment.verification.workers=2",
+        "file.upload.payment=target/test-uploads/payments",
+        "file.upload.category=target/test-uploads/category",
+        "file.upload.blobs=target/test-uploads/blobs"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("h2")
+class ProductSuggestServiceTest {
+
+    @Autowired
+    private ProductSuggestService suggestService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void salesFollowAProductToItsNewCategory() {
+        String word = uniqueWord();
+        Category snacks = categoryRepository.save(new Category(word + " Snacks", null));
+        Category drinks = categoryRepository.save(new Category(word + " Drinks", null));
+        Product product = new Product(word + " Chips", null, new BigDecimal("1.00"), snacks);
+        product.setStock(new Stock(10, product));
+        product = productRepository.save(product);
+
+        // First use builds the trie from the database
+        suggestService.suggest(word, 10);
+        suggestService.recordSale(product, 7);
+        assertEquals(7, popularity(word + " snacks"));
+
+        product.setCategory(drinks);
+        suggestService.indexProduct(productRepository.save(product));
+        assertEquals(0, popularity(word + " snacks"));
+        assertEquals(7, popularity(word + " drinks"));
+
+        suggestService.recordSale(product, 3);
+        assertEquals(10, popularity(word + " drinks"));
+
+        suggestService.removeProduct(product.getId());
+        assertEquals(0, popularity(word + " drinks"));
+        assertTrue(suggestService.suggest(word + " chips", 10).isEmpty());
+    }
+
+    private long popularity(String prefix) {
+        List<ProductSuggestIndex.Suggestion> suggestions = suggestService.suggest(prefix, 1);
+        return suggestions.isEmpty() ? -1 : suggestions.get(0).popularity();
+    }
+
+    // Letters only, so the word is one token no other test's names start with
+    private static String uniqueWord() {
+        StringBuilder word = new StringBuilder("Zq");
+        for (char digit : Long.toString(System.nanoTime()).toCharArray()) {
+            word.append((char) ('a' + (digit - '0')));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReceiptParserTest {
+
+    private final ReceiptParser parser = new ReceiptParser();
+
+    /**
+     * Every sample in src/test/resources/receipts parses to the values in expected.csv
+     */
+    @Test
+    void parsesReceiptCorpus() throws IOException {
+        List<String> rows = read("expected.csv").lines()
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .toList();
+        assertTrue(rows.size() >= 10);
+
+        for (String row : rows) {
+            String[] col = row.split(",");
+            String file = col[0];
+            ReceiptParser.Receipt receipt = parser.parse(read(file));
+
+            assertEquals(col[1], receipt.bank(), file + " bank");
+            assertEquals(0, new BigDecimal(col[2]).compareTo(receipt.amount()), file + " amount " + receipt.amount());
+            assertEquals(value(col[3]), receipt.currency(), file + " currency");
+            assertEquals(value(col[4]), receipt.transactionId(), file + " transaction id");
+            assertEquals(value(col[5]) == null ? null : LocalDateTime.parse(col[5]), receipt.transactionDate(),
+                    file + " date");
+            assertTrue(receipt.confidence() >= Double.parseDouble(col[6]),
+                    file + " confidence " + receipt.confidence());
+        }
+    }
+
+    @Test
+    void templatePicksBankSpecificIdLabel() {
+        String text = "ABA\nReference: 100FT30981234\nTrx. ID: 43117156234\n$10.00";
+
+        assertEquals("43117156234", parser.parse(text).transactionId());
+        assertEquals("100FT30981234", parser.parse("Reference: 100FT30981234\n$10.00").transactionId());
+    }
+
+    @Test
+    void emptyTextHasNoFields() {
+        ReceiptParser.Receipt receipt = parser.parse("  ");
+
+        assertNull(receipt.amount());
+        assertNull(receipt.transactionId());
+        assertEquals(0, receipt.confidence());
+    }
+
+    private static String value(String column) {
+        return "-".equals(column) ? null : column;
+    }
+
+    private static String read(String name) throws IOException {
+        try (InputStream in = ReceiptParserTest.class.getResourceAsStream("/receipts/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
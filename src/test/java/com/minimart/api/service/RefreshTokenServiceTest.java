@@ -0,0 +1,91 @@
+package com.minimart.api.service;
+
+import com.minimart.api.model.RefreshToken;
+import com.minimart.api.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Same configuration as PaymentVerificationServiceTest so the Spring context is shared
+@SpringBootTest(properties = {
+        "ocr.engine=local",
+        "payment.verification.workers=2",
+        "file.upload.payment=target/test-uploads/payments",
+        "file.upload.category=target/test-uploads/category",
+        "file.upload.blobs=target/test-uploads/blobs"
+})
+@AutoConfigureTestDatabase
+@ActiveProfiles("h2")
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Test
+    void rotationIssuesNewTokenInSameSession() {
+        String first = refreshTokenService.issue(7L);
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+
+        assertEquals(7L, rotation.userId());
+        assertNotEquals(first, rotation.refreshToken());
+        assertEquals(7L, refreshTokenService.rotate(rotation.refreshToken()).userId());
+    }
+
+    @Test
+    void reusingRotatedTokenRevokesTheWholeFamily() {
+        String stolen = refreshTokenService.issue(8L);
+        String current = refreshTokenService.rotate(stolen).refreshToken();
+
+        assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(stolen));
+        // The legitimate holder's newer token died with the family
+        assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(current));
+    }
+
+    @Test
+    void revokeAllForUserEndsEverySession() {
+        String phone = refreshTokenService.issue(9L);
+        String laptop = refreshTokenService.issue(9L);
+
+        assertEquals(2, refreshTokenService.revokeAllForUser(9L));
+        assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(phone));
+        assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(laptop));
+        assertThrows(RuntimeException.class, () -> refreshTokenService.rotate("unknown-token"));
+    }
+
+    @Test
+    void purgeDropsExpiredAndRevokedButKeepsRotatedTokens() {
+        String revoked = refreshTokenService.issue(10L);
+        refreshTokenService.revoke(revoked);
+        String rotated = refreshTokenService.issue(11L);
+        String current = refreshTokenService.rotate(rotated).refreshToken();
+        refreshTokenRepository.save(new RefreshToken("expired-" + System.nanoTime(), 12L,
+                UUID.randomUUID().toString(), LocalDateTime.now().minusMinutes(1)));
+
+        refreshTokenService.purge();
+
+        assertEquals(0, tokensOf(10L));
+        assertEquals(0, tokensOf(12L));
+        // The rotated one stays so that presenting it again is still caught
+        assertEquals(2, tokensOf(11L));
+        assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(rotated));
+        assertThrows(RuntimeException.class, () -> refreshTokenService.rotate(current));
+    }
+
+    private long tokensOf(Long userId) {
+        return refreshTokenRepository.findAll().stream()
+                .filter(token -> token.getUserId().equals(userId))
+                .count();
+    }
+}
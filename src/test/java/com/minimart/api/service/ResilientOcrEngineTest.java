@@ -0,0 +1,99 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientOcrEngineTest {
+
+    private static final File IMAGE = new File("receipt.png");
+
+    @Test
+    void abandonsCallsPastTheDeadline() {
+        ResilientOcrEngine engine = new ResilientOcrEngine(file -> {
+            await(new CountDownLatch(1));  // never answers
+            return "late";
+        }, 2, 100, 50, 5, 1_000);
+
+        long start = System.currentTimeMillis();
+        IOException error = assertThrows(IOException.class, () -> engine.extractText(IMAGE));
+
+        assertTrue(error.getMessage().contains("timed out"));
+        assertTrue(System.currentTimeMillis() - start < 2_000);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRecoversAfterTrial() throws Exception {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger remoteCalls = new AtomicInteger();
+        AtomicInteger failuresLeft = new AtomicInteger(3);
+        ResilientOcrEngine engine = new ResilientOcrEngine(file -> {
+            remoteCalls.incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IOException("vision down");
+            }
+            return "ok";
+        }, 2, 100, 1_000, 3, 30_000, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> engine.extractText(IMAGE));
+        }
+        assertEquals(ResilientOcrEngine.OPEN, engine.getState());
+
+        // Open: fails fast without touching the remote engine
+        assertThrows(IOException.class, () -> engine.extractText(IMAGE));
+        assertEquals(3, remoteCalls.get());
+
+        now.addAndGet(30_000);
+        assertEquals("ok", engine.extractText(IMAGE));
+        assertEquals(ResilientOcrEngine.CLOSED, engine.getState());
+    }
+
+    @Test
+    void bulkheadCapsConcurrentCalls() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxSeen = new AtomicInteger();
+        ResilientOcrEngine engine = new ResilientOcrEngine(file -> {
+            maxSeen.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            await(release);
+            inFlight.decrementAndGet();
+            return "ok";
+        }, 2, 50, 5_000, 5, 1_000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        pool.submit(() -> engine.extractText(IMAGE));
+        pool.submit(() -> engine.extractText(IMAGE));
+        while (inFlight.get() < 2) {
+            Thread.sleep(5);
+        }
+
+        IOException busy = assertThrows(IOException.class, () -> engine.extractText(IMAGE));
+        assertTrue(busy.getMessage().contains("busy"));
+
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, maxSeen.get());
+        assertEquals(ResilientOcrEngine.CLOSED, engine.getState());
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IOException("interrupted", e);
+        }
+    }
+}
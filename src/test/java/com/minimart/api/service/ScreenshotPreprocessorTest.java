@@ -0,0 +1,66 @@
+package com.minimart.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScreenshotPreprocessorTest {
+
+    @Test
+    void largeColorScreenshotIsDownscaledToGray() throws IOException {
+        // Phone-sized screenshot with a noisy colored header, like a banking app
+        BufferedImage screenshot = new BufferedImage(1080, 2400, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = screenshot.createGraphics();
+        Random random = new Random(3);
+        for (int y = 0; y < 400; y++) {
+            for (int x = 0; x < 1080; x++) {
+                screenshot.setRGB(x, y, new Color(0, 80 + random.nextInt(40), 160 + random.nextInt(40)).getRGB());
+            }
+        }
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 400, 1080, 2000);
+        g.setColor(Color.BLACK);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 48));
+        g.drawString("Trx. ID: 43117156234", 80, 900);
+        g.drawString("-10.00 USD", 80, 1100);
+        g.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(screenshot, "png", out);
+        byte[] original = out.toByteArray();
+
+        ScreenshotPreprocessor preprocessor = new ScreenshotPreprocessor(1000, 2000);
+        byte[] processed = preprocessor.process(original);
+        BufferedImage result = ImageIO.read(new ByteArrayInputStream(processed));
+
+        assertTrue(processed.length < original.length);
+        assertEquals(900, result.getWidth());
+        assertEquals(2000, result.getHeight());
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, result.getType());
+
+        Map<String, Object> stats = preprocessor.getStats();
+        assertEquals((long) (original.length - processed.length), stats.get("bytesSaved"));
+    }
+
+    @Test
+    void nonImageIsPassedThrough() {
+        ScreenshotPreprocessor preprocessor = new ScreenshotPreprocessor(1000, 2000);
+        byte[] text = "ABA Bank Trx. ID: 43117156234".getBytes();
+
+        assertSame(text, preprocessor.process(text));
+        assertEquals(1L, preprocessor.getStats().get("keptOriginal"));
+    }
+}
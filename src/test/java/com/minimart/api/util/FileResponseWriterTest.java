@@ -0,0 +1,107 @@
+package com.minimart.api.util;
+
+import com.minimart.api.service.FileETagService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileResponseWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private final FileResponseWriter writer = new FileResponseWriter();
+
+    @BeforeEach
+    void setUp() {
+        FileETagService etags = new FileETagService();
+        ReflectionTestUtils.setField(etags, "maxEntries", 100L);
+        etags.init();
+        ReflectionTestUtils.setField(writer, "fileETagService", etags);
+    }
+
+    @Test
+    void servesWholeFileAndByteRanges() throws IOException {
+        Path file = Files.writeString(dir.resolve("banner.png"), "0123456789");
+
+        MockHttpServletResponse full = get(file, null, null);
+        assertEquals(200, full.getStatus());
+        assertEquals("0123456789", full.getContentAsString());
+        assertEquals("bytes", full.getHeader("Accept-Ranges"));
+
+        MockHttpServletResponse middle = get(file, "bytes=2-5", null);
+        assertEquals(206, middle.getStatus());
+        assertEquals("2345", middle.getContentAsString());
+        assertEquals("bytes 2-5/10", middle.getHeader("Content-Range"));
+
+        assertEquals("789", get(file, "bytes=-3", null).getContentAsString());
+        assertEquals("89", get(file, "bytes=8-", null).getContentAsString());
+
+        MockHttpServletResponse outside = get(file, "bytes=10-20", null);
+        assertEquals(416, outside.getStatus());
+        assertEquals("bytes */10", outside.getHeader("Content-Range"));
+
+        // Validator older than the file: Range is ignored, whole file sent
+        MockHttpServletResponse stale = get(file, "bytes=2-5", "Thu, 01 Jan 1970 00:00:00 GMT");
+        assertEquals(200, stale.getStatus());
+        assertEquals("0123456789", stale.getContentAsString());
+    }
+
+    @Test
+    void conditionalGetAnswersNotModified() throws IOException {
+        Path file = Files.writeString(dir.resolve("icon.png"), "icon bytes");
+        MockHttpServletResponse first = get(file, null, null);
+        String etag = first.getHeader("ETag");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/category/icon.png");
+        request.addHeader("If-None-Match", "\"other\", " + etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(request, response, file, "icon.png", "image/png");
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        request = new MockHttpServletRequest("GET", "/api/files/category/icon.png");
+        request.addHeader("If-Modified-Since", first.getHeader("Last-Modified"));
+        response = new MockHttpServletResponse();
+        writer.write(request, response, file, "icon.png", "image/png");
+        assertEquals(304, response.getStatus());
+
+        // Changed content: new ETag, full body
+        Files.writeString(file, "new icon bytes");
+        request = new MockHttpServletRequest("GET", "/api/files/category/icon.png");
+        request.addHeader("If-None-Match", etag);
+        response = new MockHttpServletResponse();
+        writer.write(request, response, file, "icon.png", "image/png");
+        assertEquals(200, response.getStatus());
+        assertEquals("new icon bytes", response.getContentAsString());
+    }
+
+    @Test
+    void missingFileIsNotFound() throws IOException {
+        assertEquals(404, get(dir.resolve("nope.png"), null, null).getStatus());
+    }
+
+    private MockHttpServletResponse get(Path file, String range, String ifRange) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/files/advertising/banner.png");
+        if (range != null) {
+            request.addHeader("Range", range);
+        }
+        if (ifRange != null) {
+            request.addHeader("If-Range", ifRange);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        writer.write(request, response, file, file.getFileName().toString(), "image/png");
+        return response;
+    }
+}
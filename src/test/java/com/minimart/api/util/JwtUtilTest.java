@@ -0,0 +1,86 @@
+package com.minimart.api.util;
+
+import com.minimart.api.dto.AuthUser;
+import com.minimart.api.repository.RevokedTokenRepository;
+import com.minimart.api.service.TokenRevocationService;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "testSecretKeyForJwtUtilTestMustBeLongEnough0123456789";
+
+    private TokenRevocationService revocations;
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        revocations = new TokenRevocationService();
+        ReflectionTestUtils.setField(revocations, "revokedTokenRepository", Mockito.mock(RevokedTokenRepository.class));
+        ReflectionTestUtils.setField(revocations, "bloomBits", 1L << 16);
+        ReflectionTestUtils.setField(revocations, "pruneIntervalMs", 60_000L);
+        revocations.init();
+
+        jwtUtil = newJwtUtil(60_000L, 100);
+    }
+
+    @Test
+    void tokenIsVerifiedOnceIntoCachedPrincipal() {
+        String token = jwtUtil.generateAccessToken("dara@example.com", 42L, "customer");
+
+        AuthUser user = jwtUtil.authenticate(token);
+        assertEquals("dara@example.com", user.email());
+        assertEquals("dara@example.com", user.getName());
+        assertEquals(42L, user.userId());
+        assertEquals("customer", user.role());
+        assertFalse(user.isAdminOrOwner());
+        assertTrue(user.expiresAt() > System.currentTimeMillis());
+
+        assertSame(user, jwtUtil.authenticate(token));
+        assertTrue(jwtUtil.validateToken(token, "dara@example.com"));
+        assertFalse(jwtUtil.validateToken(token, "someone@example.com"));
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        String token = jwtUtil.generateAccessToken("dara@example.com", 42L, "customer");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> jwtUtil.authenticate(tampered));
+
+        String expired = newJwtUtil(-1_000L, 100).generateAccessToken("dara@example.com", 42L, "customer");
+        assertThrows(JwtException.class, () -> jwtUtil.authenticate(expired));
+        assertFalse(jwtUtil.validateToken(expired, "dara@example.com"));
+    }
+
+    @Test
+    void revokedTokenIsRejectedEvenWhenCached() {
+        String token = jwtUtil.generateAccessToken("dara@example.com", 42L, "customer");
+        String other = jwtUtil.generateAccessToken("dara@example.com", 42L, "customer");
+        AuthUser user = jwtUtil.authenticate(token);
+        assertNotEquals(user.jti(), jwtUtil.authenticate(other).jti());
+
+        revocations.revoke(user.jti(), user.expiresAt());
+        assertThrows(JwtException.class, () -> jwtUtil.authenticate(token));
+        assertEquals(42L, jwtUtil.authenticate(other).userId());
+    }
+
+    private JwtUtil newJwtUtil(long expirationMillis, long cacheEntries) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "SECRET_KEY", SECRET);
+        ReflectionTestUtils.setField(util, "accessTokenExpiration", expirationMillis);
+        ReflectionTestUtils.setField(util, "cacheMaxEntries", cacheEntries);
+        ReflectionTestUtils.setField(util, "tokenRevocationService", revocations);
+        util.init();
+        return util;
+    }
+}
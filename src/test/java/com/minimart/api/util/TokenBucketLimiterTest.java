@@ -0,0 +1,47 @@
+package com.minimart.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void burstThenWaitForRefill() {
+        // 3 burst, 6 per minute = one token every 10 seconds
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 6, 4, 1000);
+        long start = 1_000_000L;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("ip:10.0.0.1", start));
+        }
+        long wait = limiter.tryAcquire("ip:10.0.0.1", start);
+        assertEquals(TimeUnit.SECONDS.toNanos(10), wait, TimeUnit.MILLISECONDS.toNanos(1));
+
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("ip:10.0.0.2", start));
+
+        assertTrue(limiter.tryAcquire("ip:10.0.0.1", start + TimeUnit.SECONDS.toNanos(5)) > 0);
+        assertEquals(0, limiter.tryAcquire("ip:10.0.0.1", start + TimeUnit.SECONDS.toNanos(10)));
+
+        assertEquals(5L, limiter.getStats().get("allowed"));
+        assertEquals(2L, limiter.getStats().get("rejected"));
+    }
+
+    @Test
+    void leastRecentlyUsedKeysAreDroppedBeyondMaxKeys() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 1, 2);
+
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        assertEquals(0, limiter.tryAcquire("b", 0));
+        assertEquals(0, limiter.tryAcquire("c", 0));
+
+        assertEquals(2, limiter.getStats().get("trackedKeys"));
+        // "a" was evicted and starts with a full bucket again; "c" is still empty
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        assertTrue(limiter.tryAcquire("c", 0) > 0);
+    }
+}